@@ -2,19 +2,20 @@ package uncmn.eve.converter.moshi;
 
 import com.squareup.moshi.Moshi;
 import java.io.IOException;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import okio.Buffer;
-import uncmn.eve.Converter;
+import uncmn.eve.ThreadSafeConverter;
 
 /**
  * An object instance representing MoshiConverter.
  * <p> Serialize an object to bytes and vice versa.</p>
+ * <p> Thread safe, {@link Moshi} adapters are thread safe and mappings are held concurrently.</p>
  */
-public class MoshiConverter implements Converter {
+public class MoshiConverter implements ThreadSafeConverter {
 
   Moshi moshi;
-  private HashMap<String, Class<?>> converterMappings = new HashMap<>();
+  private final Map<String, Class<?>> converterMappings = new ConcurrentHashMap<>();
 
   MoshiConverter(Moshi moshi) {
     this.moshi = moshi;
@@ -61,7 +62,7 @@ public class MoshiConverter implements Converter {
    */
   @Override @SuppressWarnings("unchecked") public <T> T deserialize(byte[] data,
       String converterKey) {
-    return deserialize(data, (Class<T>) converterMappings.get(converterKey));
+    return deserialize(data, (Class<T>) mapType(converterKey));
   }
 
   @SuppressWarnings("unchecked") private byte[] serialize(Object object, Class type) {
@@ -110,7 +111,11 @@ public class MoshiConverter implements Converter {
     return null;
   }
 
+  /**
+   * @param converterKey Converter key, may be null for a missing key.
+   * @return mapped class, null if converterKey is null or not mapped.
+   */
   @Override public Class mapType(String converterKey) {
-    return converterMappings.get(converterKey);
+    return converterKey == null ? null : converterMappings.get(converterKey);
   }
 }
@@ -0,0 +1,32 @@
+package uncmn.eve.converter.moshi;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class MoshiConverterTest {
+
+  static final class Point {
+    int x;
+    int y;
+  }
+
+  @Test public void mapsKeysToClasses() {
+    MoshiConverter converter = MoshiConverter.create(null);
+    converter.map("point", Point.class);
+
+    assertEquals(Point.class, converter.mapType("point"));
+    assertEquals("point", converter.mapping(Point.class));
+    assertEquals("point", converter.mapping(new Point()));
+    assertNull(converter.mapType("missing"));
+  }
+
+  @Test public void nullKeyOfMissingValueMapsToNull() {
+    MoshiConverter converter = MoshiConverter.create(null);
+    converter.map("point", Point.class);
+
+    assertNull(converter.mapType(null));
+    assertNull(converter.deserialize(new byte[0], null));
+  }
+}
@@ -0,0 +1,801 @@
+package uncmn.eve.store.btree;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+import uncmn.eve.CloseableIterator;
+import uncmn.eve.Converter;
+import uncmn.eve.Entry;
+import uncmn.eve.Selection;
+import uncmn.eve.Store;
+import uncmn.eve.Value;
+import uncmn.eve.WriteBatch;
+
+/**
+ * An implementation of {@link Store} on a copy-on-write B+tree in a single memory-mapped file.
+ * <p>Writers never change a page a committed version uses. A write copies the pages on the path
+ * to its leaf, and commits by publishing the new root. Readers take the current version as a
+ * snapshot and read pages straight from the mapping without locks. There is a single writer at
+ * a time, a {@link WriteBatch} is committed as one transaction.</p>
+ * <p>Pages 0 and 1 hold the meta data of the last two durable versions; a commit writes the one
+ * of the older version. Pages freed by a commit are reused once no snapshot and no durable
+ * version uses them. Values too large for a quarter of a page are stored in overflow pages.</p>
+ * <p>Keys are ordered by their UTF-8 bytes, key prefix queries seek to the prefix and read the
+ * leaves in order. Key prefix and key contains filters are case sensitive.</p>
+ */
+public class BTreeStore extends Store {
+
+  static final Charset UTF_8 = Charset.forName("UTF-8");
+  private static final int MAGIC = 0x45564554; //EVET
+  private static final int FORMAT = 1;
+  private static final int MAX_KEY = 1000;
+  private static final int NOT_FOUND = -1;
+
+  private final PageFile file;
+  private final boolean syncOnCommit;
+  private final Object writeLock = new Object();
+  private final Set<Snapshot> readers =
+      Collections.newSetFromMap(new ConcurrentHashMap<Snapshot, Boolean>());
+  private volatile Meta meta;
+  //writer state, guarded by the write lock.
+  private long durableTxn;
+  private int metaPage;
+  private final TreeMap<Long, List<Integer>> pending = new TreeMap<>();
+  private final TreeSet<Integer> reusable = new TreeSet<>();
+
+  BTreeStore(Builder builder) {
+    super(builder.converter, builder.singleThreaded);
+    this.syncOnCommit = builder.syncOnCommit;
+    try {
+      this.file = new PageFile(builder.file);
+    } catch (IOException e) {
+      throw new IllegalStateException("Cannot open " + builder.file, e);
+    }
+    open();
+  }
+
+  /**
+   * Build a store in file, an existing tree in the file is opened.
+   *
+   * @param file file of the tree, used only by this store.
+   * @param converter Converter for objects that are not handled by eve.
+   */
+  public static Builder builder(File file, Converter converter) {
+    return new Builder(file, converter);
+  }
+
+  /**
+   * Open the newest valid meta page and find the pages the tree does not use.
+   */
+  private void open() {
+    Meta first = readMeta(0);
+    Meta second = readMeta(1);
+    Meta newest = first;
+    if (newest == null || second != null && second.txn > newest.txn) {
+      newest = second;
+      metaPage = 1;
+    }
+    if (newest == null) {
+      newest = new Meta(0, 0, 2);
+      metaPage = 0;
+      writeMeta(newest, metaPage);
+      file.force();
+    }
+    meta = newest;
+    durableTxn = newest.txn;
+    BitSet used = new BitSet(newest.pageCount);
+    used.set(0, 2);
+    if (newest.root != 0) {
+      ArrayDeque<Integer> pages = new ArrayDeque<>();
+      pages.add(newest.root);
+      while (!pages.isEmpty()) {
+        int page = pages.poll();
+        used.set(page);
+        Node node = Node.decode(file, page);
+        pages.addAll(node.children);
+        for (Node.Cell cell : node.cells) {
+          if (cell.storage == Node.OVERFLOW) {
+            used.set(cell.overflowPage, cell.overflowPage + cell.overflowPages());
+          }
+        }
+      }
+    }
+    for (int page = used.nextClearBit(2); page < newest.pageCount;
+        page = used.nextClearBit(page + 1)) {
+      reusable.add(page);
+    }
+  }
+
+  private Meta readMeta(int page) {
+    ByteBuffer region = file.region(page);
+    int base = PageFile.offset(page);
+    if (region.getInt(base) != MAGIC || region.getInt(base + 4) != FORMAT) {
+      return null;
+    }
+    CRC32 crc = new CRC32();
+    crc.update(Node.bytes(region, base, 24), 0, 24);
+    if ((int) crc.getValue() != region.getInt(base + 24)) {
+      return null;
+    }
+    return new Meta(region.getLong(base + 8), region.getInt(base + 16), region.getInt(base + 20));
+  }
+
+  /**
+   * Write the meta data of a version to page 0 or 1.
+   */
+  private void writeMeta(Meta meta, int page) {
+    ByteBuffer data = ByteBuffer.allocate(28);
+    data.putInt(MAGIC).putInt(FORMAT).putLong(meta.txn).putInt(meta.root).putInt(meta.pageCount);
+    CRC32 crc = new CRC32();
+    crc.update(data.array(), 0, 24);
+    data.putInt((int) crc.getValue());
+    file.write(page, data.array());
+  }
+
+  private Snapshot acquire() {
+    while (true) {
+      Meta current = meta;
+      Snapshot snapshot = new Snapshot(current, readers);
+      readers.add(snapshot);
+      //a commit after this check sees the snapshot and keeps its pages.
+      if (meta == current) {
+        return snapshot;
+      }
+      snapshot.release();
+    }
+  }
+
+  private static byte[] key(String key) {
+    byte[] bytes = key.getBytes(UTF_8);
+    if (bytes.length > MAX_KEY) {
+      throw new IllegalArgumentException("Key longer than " + MAX_KEY + " bytes " + key);
+    }
+    return bytes;
+  }
+
+  /**
+   * Value cell of key in a version, null if the key does not exist.
+   */
+  private Node.Cell find(Meta meta, byte[] key) {
+    int page = meta.root;
+    if (page == 0) {
+      return null;
+    }
+    while (true) {
+      ByteBuffer region = file.region(page);
+      int base = PageFile.offset(page);
+      int index = Node.search(region, base, key);
+      if (Node.isLeaf(region, base)) {
+        return index >= 0 ? Node.cell(region, base, index) : null;
+      }
+      page = Node.childPage(region, base, index >= 0 ? index + 1 : -(index + 1));
+    }
+  }
+
+  /**
+   * Changes of a write transaction, published on commit.
+   */
+  private final class Txn {
+
+    final long id;
+    int root;
+    int pageCount;
+    final Map<Integer, Node> nodes = new HashMap<>();
+    final Set<Integer> allocated = new HashSet<>();
+    final List<Integer> freed = new ArrayList<>();
+
+    Txn(Meta meta) {
+      this.id = meta.txn + 1;
+      this.root = meta.root;
+      this.pageCount = meta.pageCount;
+    }
+
+    int allocate() {
+      Integer page = reusable.pollFirst();
+      if (page == null) {
+        page = pageCount++;
+      }
+      allocated.add(page);
+      return page;
+    }
+
+    /**
+     * Allocate consecutive pages, the first free run that is long enough or at the end of the
+     * file.
+     */
+    int allocate(int pages) {
+      int first = -1;
+      int run = 0;
+      for (int page : reusable) {
+        if (run > 0 && page == first + run) {
+          run++;
+        } else {
+          first = page;
+          run = 1;
+        }
+        if (run == pages) {
+          break;
+        }
+      }
+      if (run < pages) {
+        first = pageCount;
+        pageCount += pages;
+      }
+      for (int page = first; page < first + pages; page++) {
+        reusable.remove(page);
+        allocated.add(page);
+      }
+      return first;
+    }
+
+    void free(int page) {
+      nodes.remove(page);
+      if (allocated.remove(page)) {
+        //never visible to readers.
+        reusable.add(page);
+      } else {
+        freed.add(page);
+      }
+    }
+
+    void free(Node.Cell cell) {
+      for (int i = 0; i < cell.overflowPages(); i++) {
+        free(cell.overflowPage + i);
+      }
+    }
+
+    Node read(int page) {
+      Node node = nodes.get(page);
+      return node != null ? node : Node.decode(file, page);
+    }
+
+    /**
+     * Page of a node this transaction may change, a copy if the page is committed.
+     */
+    int writable(int page, Node node) {
+      if (nodes.containsKey(page)) {
+        return page;
+      }
+      freed.add(page);
+      int copy = allocate();
+      nodes.put(copy, node);
+      return copy;
+    }
+  }
+
+  private Txn begin() {
+    long safe = durableTxn;
+    for (Snapshot snapshot : readers) {
+      safe = Math.min(safe, snapshot.meta.txn);
+    }
+    //pages freed by txn t were last used by version t - 1.
+    while (!pending.isEmpty() && pending.firstKey() <= safe) {
+      reusable.addAll(pending.pollFirstEntry().getValue());
+    }
+    return new Txn(meta);
+  }
+
+  private void commit(Txn txn) {
+    try {
+      file.grow(txn.pageCount);
+    } catch (IOException e) {
+      throw new IllegalStateException("Cannot grow " + file.file, e);
+    }
+    for (Map.Entry<Integer, Node> node : txn.nodes.entrySet()) {
+      file.write(node.getKey(), node.getValue().encode());
+    }
+    if (!txn.freed.isEmpty()) {
+      pending.put(txn.id, txn.freed);
+    }
+    meta = new Meta(txn.id, txn.root, txn.pageCount);
+    if (syncOnCommit) {
+      sync(meta);
+    }
+  }
+
+  /**
+   * Force all pages, then the meta page of the version. Callers hold the write lock.
+   */
+  private void sync(Meta meta) {
+    if (meta.txn == durableTxn) {
+      return;
+    }
+    file.force();
+    //keep the meta page of the durable version until the new one is written.
+    metaPage ^= 1;
+    writeMeta(meta, metaPage);
+    file.force();
+    durableTxn = meta.txn;
+  }
+
+  private Node.Cell cell(Txn txn, byte[] key, Value value) {
+    byte[] type = value.type().getBytes(UTF_8);
+    byte[] bytes = value.bytes();
+    int fixed = 2 + key.length + 2 + type.length + 1 + 4;
+    if (fixed + 4 > Node.MAX_CELL) {
+      throw new IllegalArgumentException("Key and type too long " + value.type());
+    }
+    if (bytes == null) {
+      return new Node.Cell(type, Node.NULL, 0, null, 0);
+    }
+    if (fixed + bytes.length <= Node.MAX_CELL) {
+      return new Node.Cell(type, Node.INLINE, bytes.length, bytes.clone(), 0);
+    }
+    int first = txn.allocate(Node.pages(bytes.length));
+    try {
+      file.grow(txn.pageCount);
+    } catch (IOException e) {
+      throw new IllegalStateException("Cannot grow " + file.file, e);
+    }
+    file.write(first, bytes);
+    return new Node.Cell(type, Node.OVERFLOW, bytes.length, null, first);
+  }
+
+  /**
+   * Result of an insert into a subtree: its new page and, if it was split, the separator key and
+   * the page of the right half.
+   */
+  private static final class Split {
+
+    final int left;
+    final byte[] separator;
+    final int right;
+
+    Split(int left, byte[] separator, int right) {
+      this.left = left;
+      this.separator = separator;
+      this.right = right;
+    }
+  }
+
+  private void put(Txn txn, byte[] key, Node.Cell cell) {
+    if (txn.root == 0) {
+      txn.root = txn.allocate();
+      txn.nodes.put(txn.root, new Node(true));
+    }
+    Split split = insert(txn, txn.root, key, cell);
+    txn.root = split.left;
+    if (split.right != 0) {
+      Node root = new Node(false);
+      root.keys.add(split.separator);
+      root.children.add(split.left);
+      root.children.add(split.right);
+      txn.root = txn.allocate();
+      txn.nodes.put(txn.root, root);
+    }
+  }
+
+  private Split insert(Txn txn, int page, byte[] key, Node.Cell cell) {
+    Node node = txn.read(page);
+    page = txn.writable(page, node);
+    if (node.leaf) {
+      int index = node.search(key);
+      if (index >= 0) {
+        txn.free(node.cells.get(index));
+        node.cells.set(index, cell);
+      } else {
+        node.keys.add(-(index + 1), key);
+        node.cells.add(-(index + 1), cell);
+      }
+    } else {
+      int index = node.child(key);
+      Split child = insert(txn, node.children.get(index), key, cell);
+      node.children.set(index, child.left);
+      if (child.right != 0) {
+        node.keys.add(index, child.separator);
+        node.children.add(index + 1, child.right);
+      }
+    }
+    if (node.fits()) {
+      return new Split(page, null, 0);
+    }
+    byte[][] separator = new byte[1][];
+    Node right = node.split(separator);
+    int rightPage = txn.allocate();
+    txn.nodes.put(rightPage, right);
+    return new Split(page, separator[0], rightPage);
+  }
+
+  /**
+   * Remove key from the tree of a transaction.
+   *
+   * @return true if the key existed.
+   */
+  private boolean remove(Txn txn, byte[] key) {
+    if (txn.root == 0) {
+      return false;
+    }
+    int root = remove(txn, txn.root, key);
+    if (root == NOT_FOUND) {
+      return false;
+    }
+    //collapse branches left with a single child.
+    while (root != 0) {
+      Node node = txn.read(root);
+      if (node.leaf || !node.keys.isEmpty()) {
+        break;
+      }
+      txn.free(root);
+      root = node.children.get(0);
+    }
+    txn.root = root;
+    return true;
+  }
+
+  /**
+   * @return new page of the subtree, 0 if it is empty, {@link #NOT_FOUND} if key does not exist.
+   */
+  private int remove(Txn txn, int page, byte[] key) {
+    Node node = txn.read(page);
+    if (node.leaf) {
+      int index = node.search(key);
+      if (index < 0) {
+        return NOT_FOUND;
+      }
+      page = txn.writable(page, node);
+      txn.free(node.cells.get(index));
+      node.keys.remove(index);
+      node.cells.remove(index);
+    } else {
+      int index = node.child(key);
+      int child = remove(txn, node.children.get(index), key);
+      if (child == NOT_FOUND) {
+        return NOT_FOUND;
+      }
+      page = txn.writable(page, node);
+      if (child != 0) {
+        node.children.set(index, child);
+      } else {
+        node.children.remove(index);
+        if (!node.keys.isEmpty()) {
+          node.keys.remove(index == 0 ? 0 : index - 1);
+        }
+      }
+    }
+    if (node.keys.isEmpty() && (node.leaf || node.children.isEmpty())) {
+      txn.free(page);
+      return 0;
+    }
+    return page;
+  }
+
+  /**
+   * Free every page of the tree of a transaction.
+   */
+  private void free(Txn txn, int root) {
+    ArrayDeque<Integer> pages = new ArrayDeque<>();
+    pages.add(root);
+    while (!pages.isEmpty()) {
+      int page = pages.poll();
+      Node node = txn.read(page);
+      pages.addAll(node.children);
+      for (Node.Cell cell : node.cells) {
+        txn.free(cell);
+      }
+      txn.free(page);
+    }
+  }
+
+  @Override public void set(String key, Value value) {
+    byte[] bytes = key(key);
+    synchronized (writeLock) {
+      Txn txn = begin();
+      put(txn, bytes, cell(txn, bytes, value));
+      commit(txn);
+    }
+  }
+
+  /**
+   * Commit all writes of the batch as one transaction.
+   */
+  @Override protected void write(WriteBatch batch) {
+    List<WriteBatch.Write> writes = batch.writes();
+    if (writes.isEmpty()) {
+      return;
+    }
+    synchronized (writeLock) {
+      Txn txn = begin();
+      for (WriteBatch.Write write : writes) {
+        byte[] key = key(write.key());
+        if (write.isDelete()) {
+          remove(txn, key);
+        } else {
+          put(txn, key, cell(txn, key, write.value()));
+        }
+      }
+      commit(txn);
+    }
+  }
+
+  @Override public Class type(String key) {
+    Snapshot snapshot = acquire();
+    Node.Cell cell;
+    try {
+      cell = find(snapshot.meta, key(key));
+    } finally {
+      snapshot.release();
+    }
+    return cell == null ? null : converterType(new String(cell.type, UTF_8));
+  }
+
+  @Override public <T> T get(String key) {
+    Snapshot snapshot = acquire();
+    Node.Cell cell;
+    byte[] value;
+    try {
+      cell = find(snapshot.meta, key(key));
+      if (cell == null) {
+        return null;
+      }
+      value = cell.value(file);
+    } finally {
+      snapshot.release();
+    }
+    return convert(value, new String(cell.type, UTF_8));
+  }
+
+  @Override protected byte[] bytes(String key, String converterKey) {
+    Snapshot snapshot = acquire();
+    try {
+      Node.Cell cell = find(snapshot.meta, key(key));
+      if (cell == null || !new String(cell.type, UTF_8).equals(converterKey)) {
+        return null;
+      }
+      return cell.value(file);
+    } finally {
+      snapshot.release();
+    }
+  }
+
+  /**
+   * Clear store and return number of keys removed.
+   */
+  @Override public int clear() {
+    synchronized (writeLock) {
+      int count = count();
+      Txn txn = begin();
+      if (txn.root != 0) {
+        free(txn, txn.root);
+        txn.root = 0;
+        commit(txn);
+      }
+      return count;
+    }
+  }
+
+  @Override public boolean delete(String key) {
+    byte[] bytes = key(key);
+    synchronized (writeLock) {
+      Txn txn = begin();
+      if (!remove(txn, bytes)) {
+        return false;
+      }
+      commit(txn);
+      return true;
+    }
+  }
+
+  @Override public boolean exists(String key) {
+    Snapshot snapshot = acquire();
+    try {
+      return find(snapshot.meta, key(key)) != null;
+    } finally {
+      snapshot.release();
+    }
+  }
+
+  /**
+   * Make the last commit durable, needed only if commits are not synced.
+   */
+  public void sync() {
+    synchronized (writeLock) {
+      sync(meta);
+    }
+  }
+
+  /**
+   * Sync and close the file, the store cannot be used afterwards.
+   */
+  public void close() {
+    synchronized (writeLock) {
+      sync(meta);
+      file.close();
+    }
+  }
+
+  /**
+   * Get number of entries in the store, counted by a scan.
+   */
+  public int count() {
+    CloseableIterator<String> keys = keys(null, null, null, null, 0, -1);
+    int count = 0;
+    while (keys.hasNext()) {
+      keys.next();
+      count++;
+    }
+    return count;
+  }
+
+  /**
+   * Number of pages of the file, including unused pages.
+   */
+  public int pageCount() {
+    return meta.pageCount;
+  }
+
+  @Override protected <T> List<Entry<T>> entries(String converterKey) {
+    return list(this.<T>entries(converterKey, null, null, null, 0, -1));
+  }
+
+  @Override protected <T> List<Entry<T>> entriesKeyPrefix(String converterKey, String keyPrefix) {
+    return list(this.<T>entries(converterKey, keyPrefix, null, null, 0, -1));
+  }
+
+  @Override
+  protected <T> List<Entry<T>> entriesKeyContains(String converterKey, String keyContains) {
+    return list(this.<T>entries(converterKey, null, keyContains, null, 0, -1));
+  }
+
+  @Override protected List<String> keysType(String converterKey) {
+    return list(keys(converterKey, null, null, null, 0, -1));
+  }
+
+  @Override protected List<String> keysPrefixAny(String keyPrefix) {
+    return keysPrefix(null, keyPrefix);
+  }
+
+  @Override protected List<String> keysContainsAny(String keyContains) {
+    return keysContains(null, keyContains);
+  }
+
+  @Override protected List<String> keysPrefix(String converterKey, String keyPrefix) {
+    return list(keys(converterKey, keyPrefix, null, null, 0, -1));
+  }
+
+  @Override protected List<String> keysContains(String converterKey, String keyContains) {
+    return list(keys(converterKey, null, keyContains, null, 0, -1));
+  }
+
+  @Override protected <T> List<T> valuesType(String converterKey) {
+    return values(converterKey, null, null);
+  }
+
+  @Override protected List<Object> valuesPrefixAny(String keyPrefix) {
+    return valuesPrefix(null, keyPrefix);
+  }
+
+  @Override protected List<Object> valuesContainsAny(String keyContains) {
+    return valuesContains(null, keyContains);
+  }
+
+  @Override protected <T> List<T> valuesPrefix(String converterKey, String keyPrefix) {
+    return values(converterKey, keyPrefix, null);
+  }
+
+  @Override protected <T> List<T> valuesContains(String converterKey, String keyContains) {
+    return values(converterKey, null, keyContains);
+  }
+
+  @Override protected <T> CloseableIterator<Entry<T>> entriesIterator(Selection selection) {
+    return entries(selection.converterKey(), selection.keyPrefix(), selection.keyContains(),
+        selection.afterKey(), selection.offset(), selection.limit());
+  }
+
+  @Override protected CloseableIterator<String> keysIterator(Selection selection) {
+    return keys(selection.converterKey(), selection.keyPrefix(), selection.keyContains(),
+        selection.afterKey(), selection.offset(), selection.limit());
+  }
+
+  @Override protected <T> CloseableIterator<T> valuesIterator(Selection selection) {
+    return new TreeScanIterator<T>(file, acquire(), selection.converterKey(), selection.keyPrefix(),
+        selection.keyContains(), selection.afterKey(), selection.offset(), selection.limit()) {
+      @Override protected T read(String key, Node.Cell cell) {
+        return convert(cell.value(file), new String(cell.type, UTF_8));
+      }
+    };
+  }
+
+  private <T> CloseableIterator<Entry<T>> entries(String converterKey, String keyPrefix,
+      String keyContains, String afterKey, int offset, int limit) {
+    return new TreeScanIterator<Entry<T>>(file, acquire(), converterKey, keyPrefix, keyContains,
+        afterKey, offset, limit) {
+      @Override protected Entry<T> read(String key, Node.Cell cell) {
+        return BTreeStore.this.entry(key, cell.value(file), new String(cell.type, UTF_8));
+      }
+    };
+  }
+
+  private CloseableIterator<String> keys(String converterKey, String keyPrefix,
+      String keyContains, String afterKey, int offset, int limit) {
+    return new TreeScanIterator<String>(file, acquire(), converterKey, keyPrefix, keyContains,
+        afterKey, offset, limit) {
+      @Override protected String read(String key, Node.Cell cell) {
+        return key;
+      }
+    };
+  }
+
+  /**
+   * Copy the values out of the snapshot first and convert them with
+   * {@link #convertAll(List, List)}.
+   */
+  private <T> List<T> values(String converterKey, String keyPrefix, String keyContains) {
+    final ArrayList<byte[]> bytes = new ArrayList<>();
+    final ArrayList<String> converterKeys = new ArrayList<>();
+    CloseableIterator<Void> scan = new TreeScanIterator<Void>(file, acquire(), converterKey,
+        keyPrefix, keyContains, null, 0, -1) {
+      @Override protected Void read(String key, Node.Cell cell) {
+        bytes.add(cell.value(file));
+        converterKeys.add(new String(cell.type, UTF_8));
+        return null;
+      }
+    };
+    while (scan.hasNext()) {
+      scan.next();
+    }
+    return convertAll(bytes, converterKeys);
+  }
+
+  private static <T> List<T> list(CloseableIterator<T> iterator) {
+    ArrayList<T> list = new ArrayList<>();
+    try {
+      while (iterator.hasNext()) {
+        list.add(iterator.next());
+      }
+    } finally {
+      iterator.close();
+    }
+    return list;
+  }
+
+  public static class Builder {
+
+    final File file;
+    final Converter converter;
+    boolean syncOnCommit = true;
+    boolean singleThreaded;
+
+    Builder(File file, Converter converter) {
+      if (file == null) {
+        throw new IllegalArgumentException("File cannot be null");
+      }
+      this.file = file;
+      this.converter = converter;
+    }
+
+    /**
+     * True to make every commit durable before it returns, the default. Otherwise commits are
+     * durable after {@link BTreeStore#sync()}, and freed pages are only reused after a sync.
+     */
+    public Builder syncOnCommit(boolean syncOnCommit) {
+      this.syncOnCommit = syncOnCommit;
+      return this;
+    }
+
+    /**
+     * True if the store is only accessed from one thread, key locks are skipped.
+     */
+    public Builder singleThreaded(boolean singleThreaded) {
+      this.singleThreaded = singleThreaded;
+      return this;
+    }
+
+    public BTreeStore build() {
+      return new BTreeStore(this);
+    }
+  }
+}
@@ -0,0 +1,20 @@
+package uncmn.eve.store.btree;
+
+/**
+ * A committed version of the tree: its transaction id, root page and number of pages.
+ */
+final class Meta {
+
+  final long txn;
+  /**
+   * Root page, 0 if the tree is empty.
+   */
+  final int root;
+  final int pageCount;
+
+  Meta(long txn, int root, int pageCount) {
+    this.txn = txn;
+    this.root = root;
+    this.pageCount = pageCount;
+  }
+}
@@ -0,0 +1,324 @@
+package uncmn.eve.store.btree;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A page of the tree, decoded for the writer, and the lock-free page reads of readers.
+ * <p>A page starts with {@code kind, 0, count} and an array of {@code count} cell offsets. A
+ * leaf cell is {@code keyLength, key, typeLength, type, storage, valueLength} followed by the
+ * value, or by the first page of the value if it is stored in overflow pages. A branch has
+ * {@code count + 1} child pages before its offsets, its cells are {@code keyLength, key}, child
+ * {@code i} holds the keys smaller than key {@code i}.</p>
+ * <p>Keys are ordered by their UTF-8 bytes, compared unsigned.</p>
+ */
+final class Node {
+
+  static final byte LEAF = 1;
+  static final byte BRANCH = 2;
+  static final byte INLINE = 0;
+  static final byte OVERFLOW = 1;
+  static final byte NULL = 2;
+  static final int MAX_CELL = PageFile.PAGE_SIZE / 4;
+  private static final int HEADER = 4;
+
+  final boolean leaf;
+  final List<byte[]> keys = new ArrayList<>();
+  final List<Cell> cells = new ArrayList<>();
+  final List<Integer> children = new ArrayList<>();
+
+  Node(boolean leaf) {
+    this.leaf = leaf;
+  }
+
+  /**
+   * A value of a leaf, inline or in overflow pages.
+   */
+  static final class Cell {
+
+    final byte[] type;
+    final byte storage;
+    final int valueLength;
+    final byte[] value;
+    final int overflowPage;
+
+    Cell(byte[] type, byte storage, int valueLength, byte[] value, int overflowPage) {
+      this.type = type;
+      this.storage = storage;
+      this.valueLength = valueLength;
+      this.value = value;
+      this.overflowPage = overflowPage;
+    }
+
+    /**
+     * Value bytes, read from the overflow pages if the value is not inline.
+     */
+    byte[] value(PageFile file) {
+      if (storage == OVERFLOW) {
+        return file.read(overflowPage, valueLength);
+      }
+      return value;
+    }
+
+    /**
+     * Number of overflow pages of the value.
+     */
+    int overflowPages() {
+      return storage == OVERFLOW ? pages(valueLength) : 0;
+    }
+
+    int size(byte[] key) {
+      int size = 2 + key.length + 2 + type.length + 1 + 4;
+      if (storage == INLINE) {
+        size += valueLength;
+      } else if (storage == OVERFLOW) {
+        size += 4;
+      }
+      return size;
+    }
+  }
+
+  static int pages(int length) {
+    return (length + PageFile.PAGE_SIZE - 1) / PageFile.PAGE_SIZE;
+  }
+
+  static int compare(byte[] lhs, byte[] rhs) {
+    int length = Math.min(lhs.length, rhs.length);
+    for (int i = 0; i < length; i++) {
+      int compare = (lhs[i] & 0xff) - (rhs[i] & 0xff);
+      if (compare != 0) {
+        return compare;
+      }
+    }
+    return lhs.length - rhs.length;
+  }
+
+  /**
+   * Index of key in a leaf, or {@code -(insertion point) - 1}.
+   */
+  int search(byte[] key) {
+    int low = 0;
+    int high = keys.size() - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      int compare = compare(keys.get(middle), key);
+      if (compare < 0) {
+        low = middle + 1;
+      } else if (compare > 0) {
+        high = middle - 1;
+      } else {
+        return middle;
+      }
+    }
+    return -(low + 1);
+  }
+
+  /**
+   * Index of the child of a branch that holds key.
+   */
+  int child(byte[] key) {
+    int index = search(key);
+    return index >= 0 ? index + 1 : -(index + 1);
+  }
+
+  int size() {
+    int size = HEADER;
+    if (leaf) {
+      for (int i = 0; i < keys.size(); i++) {
+        size += 2 + cells.get(i).size(keys.get(i));
+      }
+    } else {
+      size += 4 * children.size();
+      for (byte[] key : keys) {
+        size += 2 + 2 + key.length;
+      }
+    }
+    return size;
+  }
+
+  boolean fits() {
+    return size() <= PageFile.PAGE_SIZE;
+  }
+
+  /**
+   * Move the upper half of this node to a new node.
+   *
+   * @return separator key and the right node.
+   */
+  Node split(byte[][] separator) {
+    Node right = new Node(leaf);
+    if (leaf) {
+      int half = size() / 2;
+      int size = HEADER;
+      int index = 0;
+      while (index < keys.size() - 1) {
+        size += 2 + cells.get(index).size(keys.get(index));
+        if (size > half && index > 0) {
+          break;
+        }
+        index++;
+      }
+      move(keys, right.keys, index);
+      move(cells, right.cells, index);
+      separator[0] = right.keys.get(0);
+    } else {
+      int middle = keys.size() / 2;
+      separator[0] = keys.get(middle);
+      move(keys, right.keys, middle + 1);
+      move(children, right.children, middle + 1);
+      keys.remove(middle);
+    }
+    return right;
+  }
+
+  private static <T> void move(List<T> from, List<T> to, int index) {
+    List<T> tail = from.subList(index, from.size());
+    to.addAll(tail);
+    tail.clear();
+  }
+
+  byte[] encode() {
+    ByteBuffer page = ByteBuffer.allocate(PageFile.PAGE_SIZE);
+    int count = keys.size();
+    page.put(leaf ? LEAF : BRANCH).put((byte) 0).putShort((short) count);
+    int slots = HEADER;
+    if (!leaf) {
+      for (int child : children) {
+        page.putInt(child);
+      }
+      slots = page.position();
+    }
+    page.position(slots + 2 * count);
+    for (int i = 0; i < count; i++) {
+      page.putShort(slots + 2 * i, (short) page.position());
+      byte[] key = keys.get(i);
+      page.putShort((short) key.length).put(key);
+      if (leaf) {
+        Cell cell = cells.get(i);
+        page.putShort((short) cell.type.length).put(cell.type);
+        page.put(cell.storage).putInt(cell.valueLength);
+        if (cell.storage == INLINE) {
+          page.put(cell.value);
+        } else if (cell.storage == OVERFLOW) {
+          page.putInt(cell.overflowPage);
+        }
+      }
+    }
+    return page.array();
+  }
+
+  static Node decode(PageFile file, int page) {
+    ByteBuffer region = file.region(page);
+    int base = PageFile.offset(page);
+    boolean leaf = region.get(base) == LEAF;
+    int count = region.getShort(base + 2) & 0xffff;
+    Node node = new Node(leaf);
+    if (!leaf) {
+      for (int i = 0; i <= count; i++) {
+        node.children.add(region.getInt(base + HEADER + 4 * i));
+      }
+    }
+    for (int i = 0; i < count; i++) {
+      node.keys.add(key(region, base, i));
+      if (leaf) {
+        node.cells.add(cell(region, base, i));
+      }
+    }
+    return node;
+  }
+
+  //Reads of readers, straight from the mapping.
+
+  static boolean isLeaf(ByteBuffer region, int base) {
+    return region.get(base) == LEAF;
+  }
+
+  static int count(ByteBuffer region, int base) {
+    return region.getShort(base + 2) & 0xffff;
+  }
+
+  static int childPage(ByteBuffer region, int base, int index) {
+    return region.getInt(base + HEADER + 4 * index);
+  }
+
+  /**
+   * Offset of cell index from the start of its page.
+   */
+  static int cellOffset(ByteBuffer region, int base, int index) {
+    int slots = HEADER;
+    if (!isLeaf(region, base)) {
+      slots += 4 * (count(region, base) + 1);
+    }
+    return region.getShort(base + slots + 2 * index) & 0xffff;
+  }
+
+  static byte[] key(ByteBuffer region, int base, int index) {
+    int cell = base + cellOffset(region, base, index);
+    return bytes(region, cell + 2, region.getShort(cell) & 0xffff);
+  }
+
+  /**
+   * Value cell index of a leaf, an overflow value is not read.
+   */
+  static Cell cell(ByteBuffer region, int base, int index) {
+    int cell = base + cellOffset(region, base, index);
+    int typeAt = cell + 2 + (region.getShort(cell) & 0xffff);
+    byte[] type = bytes(region, typeAt + 2, region.getShort(typeAt) & 0xffff);
+    int storageAt = typeAt + 2 + type.length;
+    byte storage = region.get(storageAt);
+    int valueLength = region.getInt(storageAt + 1);
+    byte[] value = null;
+    int overflowPage = 0;
+    if (storage == INLINE) {
+      value = bytes(region, storageAt + 5, valueLength);
+    } else if (storage == OVERFLOW) {
+      overflowPage = region.getInt(storageAt + 5);
+    }
+    return new Cell(type, storage, valueLength, value, overflowPage);
+  }
+
+  /**
+   * Compare the key of cell index with key.
+   */
+  static int compareKey(ByteBuffer region, int base, int index, byte[] key) {
+    int cell = base + cellOffset(region, base, index);
+    int length = region.getShort(cell) & 0xffff;
+    int common = Math.min(length, key.length);
+    for (int i = 0; i < common; i++) {
+      int compare = (region.get(cell + 2 + i) & 0xff) - (key[i] & 0xff);
+      if (compare != 0) {
+        return compare;
+      }
+    }
+    return length - key.length;
+  }
+
+  /**
+   * Index of key in the page, or {@code -(insertion point) - 1}.
+   */
+  static int search(ByteBuffer region, int base, byte[] key) {
+    int low = 0;
+    int high = count(region, base) - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      int compare = compareKey(region, base, middle, key);
+      if (compare < 0) {
+        low = middle + 1;
+      } else if (compare > 0) {
+        high = middle - 1;
+      } else {
+        return middle;
+      }
+    }
+    return -(low + 1);
+  }
+
+  static byte[] bytes(ByteBuffer region, int position, int length) {
+    ByteBuffer reader = region.duplicate();
+    reader.position(position);
+    byte[] bytes = new byte[length];
+    reader.get(bytes);
+    return bytes;
+  }
+}
@@ -0,0 +1,110 @@
+package uncmn.eve.store.btree;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * A file of fixed size pages, memory-mapped in regions that are added as the file grows.
+ * <p>Readers use absolute reads of the mapping and never lock, only the writer of the store
+ * writes and grows the file.</p>
+ */
+final class PageFile {
+
+  static final int PAGE_SIZE = 4096;
+  private static final int PAGES_PER_REGION = 2048;
+  private static final long REGION_SIZE = (long) PAGE_SIZE * PAGES_PER_REGION;
+
+  final File file;
+  private final RandomAccessFile randomAccessFile;
+  private volatile MappedByteBuffer[] regions;
+
+  PageFile(File file) throws IOException {
+    this.file = file;
+    this.randomAccessFile = new RandomAccessFile(file, "rw");
+    long regions = Math.max(1, (randomAccessFile.length() + REGION_SIZE - 1) / REGION_SIZE);
+    this.regions = new MappedByteBuffer[0];
+    grow((int) (regions * PAGES_PER_REGION));
+  }
+
+  /**
+   * Make sure pages up to, excluding, page count are mapped.
+   */
+  void grow(int pageCount) throws IOException {
+    MappedByteBuffer[] current = regions;
+    int needed = (pageCount + PAGES_PER_REGION - 1) / PAGES_PER_REGION;
+    if (needed <= current.length) {
+      return;
+    }
+    if (randomAccessFile.length() < needed * REGION_SIZE) {
+      randomAccessFile.setLength(needed * REGION_SIZE);
+    }
+    MappedByteBuffer[] grown = Arrays.copyOf(current, needed);
+    for (int i = current.length; i < needed; i++) {
+      grown[i] = randomAccessFile.getChannel()
+          .map(FileChannel.MapMode.READ_WRITE, i * REGION_SIZE, REGION_SIZE);
+    }
+    regions = grown;
+  }
+
+  /**
+   * Mapping of the region of a page, positions of the page start at {@link #offset(int)}.
+   */
+  ByteBuffer region(int page) {
+    return regions[page / PAGES_PER_REGION];
+  }
+
+  static int offset(int page) {
+    return (page % PAGES_PER_REGION) * PAGE_SIZE;
+  }
+
+  /**
+   * Copy bytes of consecutive pages, starting at the beginning of page.
+   */
+  byte[] read(int page, int length) {
+    byte[] bytes = new byte[length];
+    int copied = 0;
+    while (copied < length) {
+      ByteBuffer reader = region(page).duplicate();
+      reader.position(offset(page));
+      int count = Math.min(PAGE_SIZE, length - copied);
+      reader.get(bytes, copied, count);
+      copied += count;
+      page++;
+    }
+    return bytes;
+  }
+
+  /**
+   * Write bytes to consecutive pages, starting at the beginning of page.
+   */
+  void write(int page, byte[] bytes) {
+    int written = 0;
+    while (written < bytes.length) {
+      ByteBuffer writer = region(page).duplicate();
+      writer.position(offset(page));
+      int count = Math.min(PAGE_SIZE, bytes.length - written);
+      writer.put(bytes, written, count);
+      written += count;
+      page++;
+    }
+  }
+
+  void force() {
+    for (MappedByteBuffer region : regions) {
+      region.force();
+    }
+  }
+
+  void close() {
+    try {
+      randomAccessFile.close();
+    } catch (IOException ignored) {
+      //nothing to release.
+    }
+  }
+}
@@ -0,0 +1,22 @@
+package uncmn.eve.store.btree;
+
+import java.util.Set;
+
+/**
+ * A version of the tree a reader is using. Pages freed after this version are not reused until
+ * the snapshot is released.
+ */
+final class Snapshot {
+
+  final Meta meta;
+  private final Set<Snapshot> readers;
+
+  Snapshot(Meta meta, Set<Snapshot> readers) {
+    this.meta = meta;
+    this.readers = readers;
+  }
+
+  void release() {
+    readers.remove(this);
+  }
+}
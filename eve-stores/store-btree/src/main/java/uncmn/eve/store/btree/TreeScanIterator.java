@@ -0,0 +1,156 @@
+package uncmn.eve.store.btree;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import uncmn.eve.ScanIterator;
+
+/**
+ * A {@link ScanIterator} over the leaves of a {@link Snapshot}, in key order.
+ * <p>The cursor seeks to the first key of the prefix or after the last key of the previous page
+ * and walks the leaves with a stack of branch positions. Type filters are checked per key. The
+ * snapshot is released when the last element was read or the iterator is closed.</p>
+ *
+ * @param <T> element type.
+ */
+abstract class TreeScanIterator<T> extends ScanIterator<Node.Cell, T> {
+
+  private final PageFile file;
+  private final Snapshot snapshot;
+  private final byte[] converterKey;
+  private int[] pages = new int[16];
+  private int[] indexes = new int[16];
+  private int depth = -1;
+  private ByteBuffer leafRegion;
+  private int leafBase;
+  private int leafIndex;
+
+  /**
+   * @param snapshot version to be read, released by this iterator.
+   * @param converterKey converter key values must have, null or empty for any type.
+   * @param keyPrefix prefix keys must start with, null for any key.
+   * @param keyContains string keys must contain, null for any key.
+   * @param afterKey only keys greater than this key are read, null to start at the first key.
+   * @param offset number of matching keys to skip.
+   * @param limit maximum number of elements, -1 if not limited.
+   */
+  TreeScanIterator(PageFile file, Snapshot snapshot, String converterKey, String keyPrefix,
+      String keyContains, String afterKey, int offset, int limit) {
+    super(keyPrefix, keyContains, afterKey, offset, limit);
+    this.file = file;
+    this.snapshot = snapshot;
+    this.converterKey = converterKey == null || converterKey.length() == 0 ? null
+        : converterKey.getBytes(BTreeStore.UTF_8);
+    if (snapshot.meta.root != 0) {
+      String from = from();
+      seek(snapshot.meta.root, from == null ? null : from.getBytes(BTreeStore.UTF_8));
+    }
+  }
+
+  private void push(int page, int index) {
+    depth++;
+    if (depth == pages.length) {
+      pages = Arrays.copyOf(pages, depth * 2);
+      indexes = Arrays.copyOf(indexes, depth * 2);
+    }
+    pages[depth] = page;
+    indexes[depth] = index;
+  }
+
+  /**
+   * Descend to the leaf position of the first key not smaller than from.
+   */
+  private void seek(int page, byte[] from) {
+    while (true) {
+      ByteBuffer region = file.region(page);
+      int base = PageFile.offset(page);
+      int index = 0;
+      if (from != null) {
+        index = Node.search(region, base, from);
+        if (Node.isLeaf(region, base)) {
+          index = index >= 0 ? index : -(index + 1);
+        } else {
+          index = index >= 0 ? index + 1 : -(index + 1);
+        }
+      }
+      push(page, index);
+      if (Node.isLeaf(region, base)) {
+        return;
+      }
+      page = Node.childPage(region, base, index);
+    }
+  }
+
+  /**
+   * Move to the next leaf position with a key.
+   *
+   * @return false if all leaves were read.
+   */
+  private boolean position() {
+    while (depth >= 0) {
+      int page = pages[depth];
+      ByteBuffer region = file.region(page);
+      int base = PageFile.offset(page);
+      int count = Node.count(region, base);
+      if (Node.isLeaf(region, base)) {
+        if (indexes[depth] < count) {
+          return true;
+        }
+        depth--;
+      } else if (indexes[depth] < count) {
+        indexes[depth]++;
+        seek(Node.childPage(region, base, indexes[depth]), null);
+      } else {
+        depth--;
+      }
+    }
+    return false;
+  }
+
+  @Override protected boolean advance() {
+    if (!position()) {
+      return false;
+    }
+    int page = pages[depth];
+    leafRegion = file.region(page);
+    leafBase = PageFile.offset(page);
+    leafIndex = indexes[depth]++;
+    return true;
+  }
+
+  @Override protected String key() {
+    return new String(Node.key(leafRegion, leafBase, leafIndex), BTreeStore.UTF_8);
+  }
+
+  @Override protected Node.Cell candidate() {
+    return Node.cell(leafRegion, leafBase, leafIndex);
+  }
+
+  @Override protected boolean accept(Node.Cell cell) {
+    return converterKey == null || Arrays.equals(converterKey, cell.type);
+  }
+
+  /**
+   * Order of the UTF-8 bytes of the keys, which is code point order. Surrogate pairs sort above
+   * all other chars, unlike in {@link String#compareTo(String)}.
+   */
+  @Override protected int compare(String key, String other) {
+    int length = Math.min(key.length(), other.length());
+    for (int i = 0; i < length; i++) {
+      char c = key.charAt(i);
+      char o = other.charAt(i);
+      if (c != o) {
+        if (Character.isSurrogate(c) != Character.isSurrogate(o)) {
+          return Character.isSurrogate(c) ? 1 : -1;
+        }
+        return c - o;
+      }
+    }
+    return key.length() - other.length();
+  }
+
+  @Override protected void release() {
+    depth = -1;
+    leafRegion = null;
+    snapshot.release();
+  }
+}
@@ -0,0 +1,145 @@
+package uncmn.eve.store.btree;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import uncmn.eve.Store;
+import uncmn.eve.store.testing.StoreContract;
+import uncmn.eve.store.testing.TestConverter;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class BTreeStoreTest extends StoreContract {
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  private BTreeStore store;
+
+  private static BTreeStore open(File file) {
+    return BTreeStore.builder(file, new TestConverter()).build();
+  }
+
+  private File file() {
+    return new File(folder.getRoot(), "tree");
+  }
+
+  @Override protected Store newStore() {
+    store = open(file());
+    return store;
+  }
+
+  @After public void closeStore() {
+    if (store != null) {
+      store.close();
+    }
+  }
+
+  @Test public void overflowValues() {
+    store = open(file());
+    byte[] large = new byte[3 * 4096 + 17];
+    Arrays.fill(large, (byte) 7);
+    store.set("large", large);
+
+    assertArrayEquals(large, store.<byte[]>get("large"));
+  }
+
+  @Test public void reopenReadsTree() {
+    File file = file();
+    BTreeStore first = open(file);
+    for (int i = 0; i < 1000; i++) {
+      first.set(key(i), i);
+    }
+    first.delete(key(3));
+    first.close();
+
+    store = open(file);
+
+    assertEquals(999, store.count());
+    assertNull(store.get(key(3)));
+    assertEquals(999, store.getInt(key(999), -1));
+  }
+
+  @Test public void deleteAcrossLeaves() {
+    store = open(file());
+    for (int i = 0; i < 1000; i++) {
+      store.set(key(i), i);
+    }
+
+    assertTrue(store.delete(key(10)));
+    assertFalse(store.delete(key(10)));
+    assertFalse(store.exists(key(10)));
+    for (int i = 0; i < 1000; i++) {
+      store.delete(key(i));
+    }
+    assertEquals(0, store.count());
+    assertEquals(0, store.query().keyPrefix("key").anyType().count());
+  }
+
+  @Test public void pagesAcrossLeaves() {
+    store = open(file());
+    List<String> expected = new ArrayList<>();
+    for (int i = 0; i < 2000; i++) {
+      store.set(key(i), i);
+      expected.add(key(i));
+    }
+
+    List<String> paged = new ArrayList<>();
+    String after = null;
+    while (true) {
+      List<String> page = after == null
+          ? store.query().keyPrefix("key").anyType().limit(150).keys()
+          : store.query().keyPrefix("key").anyType().after(after).limit(150).keys();
+      if (page.isEmpty()) {
+        break;
+      }
+      paged.addAll(page);
+      after = page.get(page.size() - 1);
+    }
+
+    assertEquals(expected, paged);
+  }
+
+  @Test public void pagesInUtf8Order() {
+    store = open(file());
+    String bmp = "a\ufffd";
+    String supplementary = "a\ud83d\ude00";
+    store.set(supplementary, 1);
+    store.set(bmp, 2);
+
+    assertEquals(asList(bmp, supplementary), store.query().keyPrefix("a").anyType().keys());
+    assertEquals(asList(supplementary),
+        store.query().keyPrefix("a").anyType().after(bmp).keys());
+  }
+
+  @Test public void freedPagesAreReused() {
+    store = open(file());
+    for (int round = 0; round < 3; round++) {
+      for (int i = 0; i < 500; i++) {
+        store.set(key(i), round);
+      }
+    }
+    int pages = store.pageCount();
+
+    for (int round = 0; round < 10; round++) {
+      for (int i = 0; i < 500; i++) {
+        store.set(key(i), round);
+      }
+    }
+
+    assertEquals(pages, store.pageCount());
+  }
+
+  private static String key(int i) {
+    return String.format("key%05d", i);
+  }
+}
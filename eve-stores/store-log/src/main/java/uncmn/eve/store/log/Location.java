@@ -0,0 +1,31 @@
+package uncmn.eve.store.log;
+
+/**
+ * Where the latest record of a key is, an entry of the key directory.
+ */
+final class Location {
+
+  final Segment segment;
+  final int position;
+  final int length;
+  final int valueLength;
+  final String type;
+
+  Location(Segment segment, int position, int length, int valueLength, String type) {
+    this.segment = segment;
+    this.position = position;
+    this.length = length;
+    this.valueLength = valueLength;
+    this.type = type;
+  }
+
+  /**
+   * Copy the value out of the segment.
+   */
+  byte[] value() {
+    if (valueLength == Segment.NULL_VALUE) {
+      return null;
+    }
+    return segment.read(position + length - valueLength, valueLength);
+  }
+}
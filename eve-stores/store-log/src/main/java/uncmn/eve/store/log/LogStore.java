@@ -0,0 +1,568 @@
+package uncmn.eve.store.log;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import uncmn.eve.CloseableIterator;
+import uncmn.eve.Converter;
+import uncmn.eve.Entry;
+import uncmn.eve.MapScanIterator;
+import uncmn.eve.Selection;
+import uncmn.eve.Store;
+import uncmn.eve.Value;
+
+/**
+ * An implementation of {@link Store} on append-only, memory-mapped segment files.
+ * <p>Every write appends a record to the active segment, a sorted key directory in memory points
+ * to the latest record of each key. Reads copy the value straight out of the mapped segment, key
+ * prefix queries are range scans of the key directory. The directory is rebuilt from the segments
+ * when the store is opened.</p>
+ * <p>Overwritten and deleted records stay in the segments until compaction copies the live
+ * records of all sealed segments to the active segment and deletes the sealed files. Compaction
+ * runs in the background once enough sealed bytes are dead, or on {@link #compact()}.</p>
+ * <p>Records are written to the page cache, {@link #sync()} forces them to the file.</p>
+ */
+public class LogStore extends Store {
+
+  private final File directory;
+  private final int segmentSize;
+  private final float compactionRatio;
+  private final Executor compactionExecutor;
+  private final ConcurrentSkipListMap<String, Location> keys = new ConcurrentSkipListMap<>();
+  private final List<Segment> segments = new CopyOnWriteArrayList<>();
+  private final Object writeLock = new Object();
+  private final Object compactionLock = new Object();
+  private final AtomicBoolean compactionScheduled = new AtomicBoolean();
+  private volatile Segment active;
+  //guarded by compactionLock, a compaction queued before close must not touch the files.
+  private boolean closed;
+
+  LogStore(Builder builder) {
+    super(builder.converter, builder.singleThreaded);
+    this.directory = builder.directory;
+    this.segmentSize = builder.segmentSize;
+    this.compactionRatio = builder.compactionRatio;
+    this.compactionExecutor = builder.compactionExecutor;
+    recover();
+  }
+
+  /**
+   * Build a store in directory, existing segments in the directory are read.
+   *
+   * @param directory directory of the segment files, used only by this store.
+   * @param converter Converter for objects that are not handled by eve.
+   */
+  public static Builder builder(File directory, Converter converter) {
+    return new Builder(directory, converter);
+  }
+
+  /**
+   * Get number of entries in the store.
+   */
+  public int count() {
+    return keys.size();
+  }
+
+  /**
+   * Replay all segments in order into the key directory.
+   */
+  private void recover() {
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      throw new IllegalStateException("Cannot create directory " + directory);
+    }
+    File[] files = directory.listFiles();
+    int[] ids = new int[files == null ? 0 : files.length];
+    int count = 0;
+    for (int i = 0; i < ids.length; i++) {
+      int id = Segment.id(files[i]);
+      if (id >= 0) {
+        ids[count++] = id;
+      }
+    }
+    ids = Arrays.copyOf(ids, count);
+    Arrays.sort(ids);
+    for (int id : ids) {
+      Segment segment = open(id, segmentSize);
+      Segment.Cursor cursor = segment.cursor();
+      while (cursor.next()) {
+        replay(segment, cursor);
+      }
+      segment.end(cursor.end());
+      segments.add(segment);
+    }
+    if (segments.isEmpty()) {
+      segments.add(open(0, segmentSize));
+    }
+    active = segments.get(segments.size() - 1);
+  }
+
+  private void replay(Segment segment, Segment.Cursor cursor) {
+    int valueLength = cursor.valueLength();
+    if (valueLength == Segment.CLEAR) {
+      for (Location location : keys.values()) {
+        location.segment.dead(location.length);
+      }
+      keys.clear();
+      segment.dead(cursor.length());
+    } else if (valueLength == Segment.TOMBSTONE) {
+      dead(keys.remove(cursor.key()));
+      segment.dead(cursor.length());
+    } else {
+      Location location = new Location(segment, cursor.position(), cursor.length(), valueLength,
+          cursor.type());
+      dead(keys.put(cursor.key(), location));
+    }
+  }
+
+  private static void dead(Location location) {
+    if (location != null) {
+      location.segment.dead(location.length);
+    }
+  }
+
+  private Segment open(int id, int capacity) {
+    try {
+      return Segment.open(directory, id, capacity);
+    } catch (IOException e) {
+      throw new IllegalStateException("Cannot open segment " + id + " in " + directory, e);
+    }
+  }
+
+  /**
+   * Append a record to the active segment, rolling to a new segment if it does not fit.
+   * Callers hold the write lock and call {@link #rolled(Location)} after releasing it.
+   */
+  private Location append(byte[] record, int valueLength, String type) {
+    Segment segment = active;
+    if (segment.remaining() < record.length) {
+      segment.force();
+      segment = open(segment.id + 1, Math.max(segmentSize, record.length));
+      segments.add(segment);
+      active = segment;
+    }
+    int position = segment.append(record);
+    return new Location(segment, position, record.length, valueLength, type);
+  }
+
+  /**
+   * Start a background compaction if the record rolled the active segment and enough sealed
+   * bytes are dead. Never called with the write lock held, the executor may run compaction on
+   * the calling thread.
+   */
+  private void rolled(Location location) {
+    if (location.position != 0) {
+      return;
+    }
+    long dead = 0;
+    long total = 0;
+    for (Segment segment : segments) {
+      if (segment != active) {
+        dead += segment.deadBytes();
+        total += segment.end();
+      }
+    }
+    if (total == 0 || dead < total * compactionRatio) {
+      return;
+    }
+    if (compactionScheduled.compareAndSet(false, true)) {
+      Runnable compaction = new Runnable() {
+        @Override public void run() {
+          try {
+            compact();
+          } finally {
+            compactionScheduled.set(false);
+          }
+        }
+      };
+      if (compactionExecutor != null) {
+        compactionExecutor.execute(compaction);
+      } else {
+        Thread thread = new Thread(compaction, "eve-log-compaction");
+        thread.setDaemon(true);
+        thread.start();
+      }
+    }
+  }
+
+  @Override public void set(String key, Value value) {
+    byte[] bytes = value.bytes();
+    int valueLength = bytes == null ? Segment.NULL_VALUE : bytes.length;
+    byte[] record = Segment.record(key, value.type(), bytes, valueLength);
+    Location location;
+    synchronized (writeLock) {
+      location = append(record, valueLength, value.type());
+      dead(keys.put(key, location));
+    }
+    rolled(location);
+  }
+
+  @Override public Class type(String key) {
+    Location location = keys.get(key);
+    return location == null ? null : converterType(location.type);
+  }
+
+  @Override public <T> T get(String key) {
+    Location location = keys.get(key);
+    return location == null ? null : this.<T>convert(location.value(), location.type);
+  }
+
+  @Override protected byte[] bytes(String key, String converterKey) {
+    Location location = keys.get(key);
+    return location == null || !location.type.equals(converterKey) ? null : location.value();
+  }
+
+  /**
+   * Clear store and return number of keys removed. A clear record starts a new segment, all
+   * older segments are deleted.
+   */
+  @Override public int clear() {
+    byte[] record = Segment.record("", null, null, Segment.CLEAR);
+    synchronized (compactionLock) {
+      List<Segment> older;
+      int count;
+      synchronized (writeLock) {
+        older = new ArrayList<>(segments);
+        Segment segment = open(active.id + 1, Math.max(segmentSize, record.length));
+        segment.append(record);
+        segment.dead(record.length);
+        segment.force();
+        segments.add(segment);
+        active = segment;
+        count = keys.size();
+        keys.clear();
+      }
+      delete(older);
+      return count;
+    }
+  }
+
+  @Override public boolean delete(String key) {
+    if (!keys.containsKey(key)) {
+      return false;
+    }
+    byte[] record = Segment.record(key, null, null, Segment.TOMBSTONE);
+    Location tombstone;
+    synchronized (writeLock) {
+      Location previous = keys.remove(key);
+      if (previous == null) {
+        return false;
+      }
+      previous.segment.dead(previous.length);
+      tombstone = append(record, Segment.TOMBSTONE, null);
+      tombstone.segment.dead(record.length);
+    }
+    rolled(tombstone);
+    return true;
+  }
+
+  @Override public boolean exists(String key) {
+    return keys.containsKey(key);
+  }
+
+  /**
+   * Copy the live records of all sealed segments to the active segment and delete the sealed
+   * segment files. Readers and writers are not blocked, writes only wait while a record is
+   * copied. Does nothing once the store is closed.
+   */
+  public void compact() {
+    synchronized (compactionLock) {
+      if (closed) {
+        return;
+      }
+      List<Segment> sealed = new ArrayList<>();
+      for (Segment segment : segments) {
+        if (segment != active) {
+          sealed.add(segment);
+        }
+      }
+      for (Segment segment : sealed) {
+        Segment.Cursor cursor = segment.cursor();
+        while (cursor.next()) {
+          Location location = keys.get(cursor.key());
+          if (location == null || location.segment != segment
+              || location.position != cursor.position()) {
+            continue;
+          }
+          byte[] record = segment.read(location.position, location.length);
+          synchronized (writeLock) {
+            if (keys.get(cursor.key()) == location) {
+              keys.put(cursor.key(), append(record, location.valueLength, location.type));
+            }
+          }
+        }
+      }
+      if (!sealed.isEmpty()) {
+        synchronized (writeLock) {
+          active.force();
+        }
+      }
+      delete(sealed);
+    }
+  }
+
+  /**
+   * Delete segments oldest first, so a crash never leaves a record without its tombstone.
+   */
+  private void delete(List<Segment> older) {
+    for (Segment segment : older) {
+      segments.remove(segment);
+      segment.close();
+      if (!segment.file.delete() && segment.file.exists()) {
+        throw new IllegalStateException("Cannot delete segment " + segment.file);
+      }
+    }
+  }
+
+  /**
+   * Force records of the active segment to the file.
+   */
+  public void sync() {
+    synchronized (writeLock) {
+      active.force();
+    }
+  }
+
+  /**
+   * Sync and close all segment files, the store cannot be used afterwards. Waits for a running
+   * compaction, compactions scheduled but not started yet do nothing.
+   */
+  public void close() {
+    synchronized (compactionLock) {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      synchronized (writeLock) {
+        active.force();
+        for (Segment segment : segments) {
+          segment.close();
+        }
+      }
+    }
+  }
+
+  /**
+   * Number of segment files.
+   */
+  public int segmentCount() {
+    return segments.size();
+  }
+
+  /**
+   * Bytes of overwritten and deleted records not yet reclaimed by compaction.
+   */
+  public long deadBytes() {
+    long dead = 0;
+    for (Segment segment : segments) {
+      dead += segment.deadBytes();
+    }
+    return dead;
+  }
+
+  @Override protected <T> List<Entry<T>> entries(String converterKey) {
+    return list(this.<T>entries(converterKey, null, null, null, 0, -1));
+  }
+
+  @Override protected <T> List<Entry<T>> entriesKeyPrefix(String converterKey, String keyPrefix) {
+    return list(this.<T>entries(converterKey, keyPrefix, null, null, 0, -1));
+  }
+
+  @Override
+  protected <T> List<Entry<T>> entriesKeyContains(String converterKey, String keyContains) {
+    return list(this.<T>entries(converterKey, null, keyContains, null, 0, -1));
+  }
+
+  @Override protected List<String> keysType(String converterKey) {
+    return list(keys(converterKey, null, null, null, 0, -1));
+  }
+
+  @Override protected List<String> keysPrefixAny(String keyPrefix) {
+    return keysPrefix(null, keyPrefix);
+  }
+
+  @Override protected List<String> keysContainsAny(String keyContains) {
+    return keysContains(null, keyContains);
+  }
+
+  @Override protected List<String> keysPrefix(String converterKey, String keyPrefix) {
+    return list(keys(converterKey, keyPrefix, null, null, 0, -1));
+  }
+
+  @Override protected List<String> keysContains(String converterKey, String keyContains) {
+    return list(keys(converterKey, null, keyContains, null, 0, -1));
+  }
+
+  @Override protected <T> List<T> valuesType(String converterKey) {
+    return values(converterKey, null, null);
+  }
+
+  @Override protected List<Object> valuesPrefixAny(String keyPrefix) {
+    return valuesPrefix(null, keyPrefix);
+  }
+
+  @Override protected List<Object> valuesContainsAny(String keyContains) {
+    return valuesContains(null, keyContains);
+  }
+
+  @Override protected <T> List<T> valuesPrefix(String converterKey, String keyPrefix) {
+    return values(converterKey, keyPrefix, null);
+  }
+
+  @Override protected <T> List<T> valuesContains(String converterKey, String keyContains) {
+    return values(converterKey, null, keyContains);
+  }
+
+  @Override protected <T> CloseableIterator<Entry<T>> entriesIterator(Selection selection) {
+    return entries(selection.converterKey(), selection.keyPrefix(), selection.keyContains(),
+        selection.afterKey(), selection.offset(), selection.limit());
+  }
+
+  @Override protected CloseableIterator<String> keysIterator(Selection selection) {
+    return keys(selection.converterKey(), selection.keyPrefix(), selection.keyContains(),
+        selection.afterKey(), selection.offset(), selection.limit());
+  }
+
+  @Override protected <T> CloseableIterator<T> valuesIterator(Selection selection) {
+    return new LocationScan<T>(keys, selection.converterKey(), selection.keyPrefix(),
+        selection.keyContains(), selection.afterKey(), selection.offset(), selection.limit()) {
+      @Override protected T read(String key, Location location) {
+        return convert(location.value(), location.type);
+      }
+    };
+  }
+
+  private <T> CloseableIterator<Entry<T>> entries(String converterKey, String keyPrefix,
+      String keyContains, String afterKey, int offset, int limit) {
+    return new LocationScan<Entry<T>>(keys, converterKey, keyPrefix, keyContains, afterKey,
+        offset, limit) {
+      @Override protected Entry<T> read(String key, Location location) {
+        return LogStore.this.entry(key, location.value(), location.type);
+      }
+    };
+  }
+
+  private CloseableIterator<String> keys(String converterKey, String keyPrefix,
+      String keyContains, String afterKey, int offset, int limit) {
+    return new LocationScan<String>(keys, converterKey, keyPrefix, keyContains, afterKey, offset,
+        limit) {
+      @Override protected String read(String key, Location location) {
+        return key;
+      }
+    };
+  }
+
+  /**
+   * Copy the values out of the segments first and convert them with
+   * {@link #convertAll(List, List)}.
+   */
+  private <T> List<T> values(String converterKey, String keyPrefix, String keyContains) {
+    ArrayList<byte[]> bytes = new ArrayList<>();
+    ArrayList<String> converterKeys = new ArrayList<>();
+    CloseableIterator<Location> scan = new LocationScan<Location>(keys, converterKey, keyPrefix,
+        keyContains, null, 0, -1) {
+      @Override protected Location read(String key, Location location) {
+        return location;
+      }
+    };
+    while (scan.hasNext()) {
+      Location location = scan.next();
+      bytes.add(location.value());
+      converterKeys.add(location.type);
+    }
+    return convertAll(bytes, converterKeys);
+  }
+
+  private static <T> List<T> list(CloseableIterator<T> iterator) {
+    ArrayList<T> list = new ArrayList<>();
+    try {
+      while (iterator.hasNext()) {
+        list.add(iterator.next());
+      }
+    } finally {
+      iterator.close();
+    }
+    return list;
+  }
+
+  /**
+   * Scan of the key directory, type filters are checked per key.
+   */
+  private abstract static class LocationScan<T> extends MapScanIterator<Location, T> {
+
+    private final String converterKey;
+
+    LocationScan(ConcurrentSkipListMap<String, Location> keys, String converterKey,
+        String keyPrefix, String keyContains, String afterKey, int offset, int limit) {
+      super(keys, keyPrefix, keyContains, afterKey, offset, limit);
+      this.converterKey = converterKey == null || converterKey.length() == 0 ? null : converterKey;
+    }
+
+    @Override protected boolean accept(Location location) {
+      return converterKey == null || converterKey.equals(location.type);
+    }
+  }
+
+  public static class Builder {
+
+    final File directory;
+    final Converter converter;
+    int segmentSize = 4 * 1024 * 1024;
+    float compactionRatio = 0.5f;
+    Executor compactionExecutor;
+    boolean singleThreaded;
+
+    Builder(File directory, Converter converter) {
+      if (directory == null) {
+        throw new IllegalArgumentException("Directory cannot be null");
+      }
+      this.directory = directory;
+      this.converter = converter;
+    }
+
+    /**
+     * Size of a segment file, 4 MiB by default. Larger records get a segment of their own.
+     */
+    public Builder segmentSize(int segmentSize) {
+      if (segmentSize <= Segment.HEADER) {
+        throw new IllegalArgumentException("Segment size too small " + segmentSize);
+      }
+      this.segmentSize = segmentSize;
+      return this;
+    }
+
+    /**
+     * Fraction of dead bytes in sealed segments that starts a background compaction, 0.5 by
+     * default. Greater than 1 disables background compaction.
+     */
+    public Builder compactionRatio(float compactionRatio) {
+      this.compactionRatio = compactionRatio;
+      return this;
+    }
+
+    /**
+     * Executor background compaction runs on, a new daemon thread per compaction by default.
+     */
+    public Builder compactionExecutor(Executor compactionExecutor) {
+      this.compactionExecutor = compactionExecutor;
+      return this;
+    }
+
+    /**
+     * True if the store is only accessed from one thread, key locks are skipped.
+     */
+    public Builder singleThreaded(boolean singleThreaded) {
+      this.singleThreaded = singleThreaded;
+      return this;
+    }
+
+    public LogStore build() {
+      return new LogStore(this);
+    }
+  }
+}
@@ -0,0 +1,257 @@
+package uncmn.eve.store.log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * A preallocated, memory-mapped log file of records.
+ * <p>A record is {@code crc, keyLength, typeLength, valueLength, key, type, value}. The crc covers
+ * everything after itself, the first record that fails the check ends the segment. A negative
+ * value length marks a tombstone, a null value or a clear of all older records.</p>
+ * <p>Only the writer of the store appends, readers copy values out of the mapping without
+ * locking.</p>
+ */
+final class Segment {
+
+  static final Charset UTF_8 = Charset.forName("UTF-8");
+  static final int HEADER = 16;
+  static final int TOMBSTONE = -1;
+  static final int NULL_VALUE = -2;
+  static final int CLEAR = -3;
+
+  private static final String SUFFIX = ".log";
+
+  final int id;
+  final File file;
+  private final RandomAccessFile randomAccessFile;
+  private final MappedByteBuffer buffer;
+  private final ByteBuffer writer;
+  private final AtomicLong deadBytes = new AtomicLong();
+  private volatile int end;
+
+  private Segment(int id, File file, RandomAccessFile randomAccessFile, MappedByteBuffer buffer) {
+    this.id = id;
+    this.file = file;
+    this.randomAccessFile = randomAccessFile;
+    this.buffer = buffer;
+    this.writer = buffer.duplicate();
+  }
+
+  /**
+   * Open a segment file, creating and preallocating it if it does not exist.
+   *
+   * @param capacity size of a new file, existing files keep their size.
+   */
+  static Segment open(File directory, int id, int capacity) throws IOException {
+    File file = new File(directory, String.format(Locale.US, "%08d", id) + SUFFIX);
+    RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+    try {
+      if (randomAccessFile.length() == 0) {
+        randomAccessFile.setLength(capacity);
+      }
+      MappedByteBuffer buffer = randomAccessFile.getChannel()
+          .map(FileChannel.MapMode.READ_WRITE, 0, randomAccessFile.length());
+      return new Segment(id, file, randomAccessFile, buffer);
+    } catch (IOException e) {
+      randomAccessFile.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Id of a segment file, -1 if the file is not a segment.
+   */
+  static int id(File file) {
+    String name = file.getName();
+    if (!name.endsWith(SUFFIX)) {
+      return -1;
+    }
+    try {
+      return Integer.parseInt(name.substring(0, name.length() - SUFFIX.length()));
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  /**
+   * Encode a record.
+   *
+   * @param value value bytes, ignored if value length is negative.
+   * @param valueLength length of value or one of {@link #TOMBSTONE}, {@link #NULL_VALUE} and
+   * {@link #CLEAR}.
+   */
+  static byte[] record(String key, String type, byte[] value, int valueLength) {
+    byte[] keyBytes = key.getBytes(UTF_8);
+    byte[] typeBytes = type == null ? new byte[0] : type.getBytes(UTF_8);
+    int length = HEADER + keyBytes.length + typeBytes.length + Math.max(valueLength, 0);
+    ByteBuffer record = ByteBuffer.allocate(length);
+    record.position(4);
+    record.putInt(keyBytes.length).putInt(typeBytes.length).putInt(valueLength);
+    record.put(keyBytes).put(typeBytes);
+    if (valueLength > 0) {
+      record.put(value);
+    }
+    CRC32 crc = new CRC32();
+    crc.update(record.array(), 4, length - 4);
+    record.putInt(0, (int) crc.getValue());
+    return record.array();
+  }
+
+  int capacity() {
+    return buffer.capacity();
+  }
+
+  int end() {
+    return end;
+  }
+
+  /**
+   * Set the end of a recovered segment, appends continue from there.
+   */
+  void end(int end) {
+    this.end = end;
+  }
+
+  int remaining() {
+    return buffer.capacity() - end;
+  }
+
+  /**
+   * Append a record, the caller checked {@link #remaining()}.
+   *
+   * @return position of the record.
+   */
+  int append(byte[] record) {
+    int position = end;
+    writer.position(position);
+    writer.put(record);
+    end = position + record.length;
+    return position;
+  }
+
+  /**
+   * Copy bytes out of the mapping.
+   */
+  byte[] read(int position, int length) {
+    ByteBuffer reader = buffer.duplicate();
+    reader.position(position);
+    byte[] bytes = new byte[length];
+    reader.get(bytes);
+    return bytes;
+  }
+
+  void dead(int bytes) {
+    deadBytes.addAndGet(bytes);
+  }
+
+  long deadBytes() {
+    return deadBytes.get();
+  }
+
+  /**
+   * Write changes of the mapping to the file.
+   */
+  void force() {
+    buffer.force();
+  }
+
+  /**
+   * Close the file. Values already read stay valid, the mapping is released by the garbage
+   * collector.
+   */
+  void close() {
+    try {
+      randomAccessFile.close();
+    } catch (IOException ignored) {
+      //nothing to release.
+    }
+  }
+
+  Cursor cursor() {
+    return new Cursor();
+  }
+
+  /**
+   * Reads records from the start of the segment, up to the first invalid record.
+   */
+  final class Cursor {
+
+    private final ByteBuffer reader = buffer.duplicate();
+    private final CRC32 crc = new CRC32();
+    private int next = 0;
+    private int position;
+    private int length;
+    private String key;
+    private String type;
+    private int valueLength;
+
+    /**
+     * Move to the next valid record.
+     *
+     * @return false if there is none, {@link #end()} is then the end of the segment.
+     */
+    boolean next() {
+      int capacity = buffer.capacity();
+      if (next + HEADER > capacity) {
+        return false;
+      }
+      int checksum = reader.getInt(next);
+      int keyLength = reader.getInt(next + 4);
+      int typeLength = reader.getInt(next + 8);
+      int valueLength = reader.getInt(next + 12);
+      long recordLength = (long) HEADER + keyLength + typeLength + Math.max(valueLength, 0);
+      if (keyLength < 0 || typeLength < 0 || valueLength < CLEAR
+          || next + recordLength > capacity) {
+        return false;
+      }
+      byte[] record = read(next + 4, (int) recordLength - 4);
+      crc.reset();
+      crc.update(record, 0, record.length);
+      if ((int) crc.getValue() != checksum) {
+        return false;
+      }
+      this.position = next;
+      this.length = (int) recordLength;
+      this.key = new String(record, HEADER - 4, keyLength, UTF_8);
+      this.type = new String(record, HEADER - 4 + keyLength, typeLength, UTF_8);
+      this.valueLength = valueLength;
+      next += length;
+      return true;
+    }
+
+    int position() {
+      return position;
+    }
+
+    /**
+     * Position after the last record read.
+     */
+    int end() {
+      return next;
+    }
+
+    int length() {
+      return length;
+    }
+
+    String key() {
+      return key;
+    }
+
+    String type() {
+      return type;
+    }
+
+    int valueLength() {
+      return valueLength;
+    }
+  }
+}
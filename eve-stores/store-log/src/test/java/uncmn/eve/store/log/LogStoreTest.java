@@ -0,0 +1,124 @@
+package uncmn.eve.store.log;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import uncmn.eve.Store;
+import uncmn.eve.store.testing.StoreContract;
+import uncmn.eve.store.testing.TestConverter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class LogStoreTest extends StoreContract {
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  private final ArrayDeque<Runnable> compactions = new ArrayDeque<>();
+  private final Executor queue = new Executor() {
+    @Override public void execute(Runnable command) {
+      compactions.add(command);
+    }
+  };
+  private LogStore store;
+
+  private LogStore open(File directory) {
+    return LogStore.builder(directory, new TestConverter())
+        .segmentSize(256)
+        .compactionRatio(0.5f)
+        .compactionExecutor(queue)
+        .build();
+  }
+
+  @Override protected Store newStore() {
+    store = open(folder.getRoot());
+    return store;
+  }
+
+  @After public void closeStore() {
+    if (store != null) {
+      store.close();
+    }
+  }
+
+  @Test public void reopenReadsSegments() throws Exception {
+    File directory = folder.getRoot();
+    LogStore first = open(directory);
+    for (int i = 0; i < 50; i++) {
+      first.set("key" + i, i);
+    }
+    first.set("key0", "zero");
+    first.delete("key1");
+    first.close();
+
+    store = open(directory);
+
+    assertEquals(49, store.count());
+    assertEquals("zero", store.<String>get("key0"));
+    assertNull(store.get("key1"));
+    assertEquals(49, store.getInt("key49", 0));
+    assertTrue(store.segmentCount() > 1);
+  }
+
+  @Test public void deleteLeavesDeadBytes() throws Exception {
+    store = open(folder.getRoot());
+    store.set("a1", 1);
+    store.set("a2", 2);
+
+    assertTrue(store.delete("a1"));
+
+    assertTrue(store.deadBytes() > 0);
+    assertEquals(1, store.count());
+  }
+
+  @Test public void compactionKeepsLiveRecords() throws Exception {
+    store = open(folder.getRoot());
+    for (int round = 0; round < 3; round++) {
+      for (int i = 0; i < 50; i++) {
+        store.set("key" + i, round * 100 + i);
+      }
+    }
+    assertFalse(compactions.isEmpty());
+    int segments = store.segmentCount();
+
+    store.compact();
+
+    assertTrue(store.segmentCount() < segments);
+    for (int i = 0; i < 50; i++) {
+      assertEquals(200 + i, store.getInt("key" + i, -1));
+    }
+  }
+
+  @Test public void compactionQueuedBeforeCloseDoesNotTouchReopenedStore() throws Exception {
+    File directory = folder.getRoot();
+    LogStore first = open(directory);
+    for (int round = 0; round < 3; round++) {
+      for (int i = 0; i < 50; i++) {
+        first.set("key" + i, round * 100 + i);
+      }
+    }
+    assertFalse(compactions.isEmpty());
+    first.close();
+
+    LogStore second = open(directory);
+    while (!compactions.isEmpty()) {
+      compactions.poll().run();
+    }
+    for (int i = 0; i < 50; i++) {
+      second.set("other" + i, i);
+    }
+    second.close();
+
+    store = open(directory);
+    for (int i = 0; i < 50; i++) {
+      assertEquals(200 + i, store.getInt("key" + i, -1));
+      assertEquals(i, store.getInt("other" + i, -1));
+    }
+  }
+}
@@ -0,0 +1,53 @@
+package uncmn.eve.store.lsm;
+
+import java.util.List;
+
+/**
+ * Records of the tables of a level with disjoint key ranges, read one table after another.
+ */
+final class LevelSource implements Source {
+
+  private final List<SsTable> tables;
+  private int table;
+  private Source current;
+
+  /**
+   * @param tables tables sorted by key.
+   * @param from first key, null for the first key of the level.
+   */
+  LevelSource(List<SsTable> tables, String from) {
+    this.tables = tables;
+    this.table = 0;
+    if (from != null) {
+      while (table < tables.size() && tables.get(table).lastKey.compareTo(from) < 0) {
+        table++;
+      }
+    }
+    this.current = table < tables.size() ? tables.get(table).source(from) : null;
+    skipExhausted();
+  }
+
+  private void skipExhausted() {
+    while (current != null && !current.valid()) {
+      table++;
+      current = table < tables.size() ? tables.get(table).source(null) : null;
+    }
+  }
+
+  @Override public boolean valid() {
+    return current != null;
+  }
+
+  @Override public String key() {
+    return current.key();
+  }
+
+  @Override public Record record() {
+    return current.record();
+  }
+
+  @Override public void next() {
+    current.next();
+    skipExhausted();
+  }
+}
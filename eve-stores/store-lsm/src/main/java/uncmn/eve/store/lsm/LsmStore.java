@@ -0,0 +1,755 @@
+package uncmn.eve.store.lsm;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import uncmn.eve.CloseableIterator;
+import uncmn.eve.Converter;
+import uncmn.eve.Entry;
+import uncmn.eve.Selection;
+import uncmn.eve.Store;
+import uncmn.eve.Value;
+
+/**
+ * An implementation of {@link Store} as a log-structured merge tree, for large key spaces.
+ * <p>Writes go to a sorted memtable and are appended to its write-ahead log. A full memtable is
+ * flushed to an immutable sorted table in the background, writers only switch to a new memtable.
+ * Tables carry a block index and a Bloom filter, so point reads touch at most one block of each
+ * table whose filter matches.</p>
+ * <p>Flushed tables enter level 0. Once level 0 has enough tables they are merged into level 1,
+ * and a level larger than its size target merges one table into the next level, which is ten
+ * times larger. Tables of level 1 and deeper never overlap.</p>
+ * <p>Key prefix queries are merged iterators over the memtables and all levels that seek to the
+ * prefix, the newest record of each key wins. Key prefix and key contains filters are case
+ * sensitive.</p>
+ */
+public class LsmStore extends Store {
+
+  private static final String MANIFEST = "MANIFEST";
+  private static final String LOG_SUFFIX = ".wal";
+  private static final String TABLE_SUFFIX = ".sst";
+  private static final int LEVELS = 7;
+  private static final Comparator<SsTable> KEY_ORDER = new Comparator<SsTable>() {
+    @Override public int compare(SsTable lhs, SsTable rhs) {
+      return lhs.firstKey.compareTo(rhs.firstKey);
+    }
+  };
+
+  private final File directory;
+  private final long memtableSize;
+  private final long tableSize;
+  private final int blockSize;
+  private final int level0Tables;
+  private final long levelSize;
+  private final AtomicInteger nextId = new AtomicInteger();
+  private final String[] compactionKeys = new String[LEVELS];
+  private final ExecutorService background;
+  private final Object writeLock = new Object();
+  private final Object versionLock = new Object();
+  private volatile Version version;
+  private volatile IOException backgroundFailure;
+
+  LsmStore(Builder builder) {
+    super(builder.converter, builder.singleThreaded);
+    this.directory = builder.directory;
+    this.memtableSize = builder.memtableSize;
+    this.tableSize = builder.tableSize;
+    this.blockSize = builder.blockSize;
+    this.level0Tables = builder.level0Tables;
+    this.levelSize = builder.levelSize;
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS,
+        new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+      @Override public Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "eve-lsm-compaction");
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+    executor.allowCoreThreadTimeOut(true);
+    this.background = executor;
+    try {
+      open();
+    } catch (IOException e) {
+      throw new IllegalStateException("Cannot open store in " + directory, e);
+    }
+  }
+
+  /**
+   * Build a store in directory, existing tables and logs in the directory are read.
+   *
+   * @param directory directory of the store files, used only by this store.
+   * @param converter Converter for objects that are not handled by eve.
+   */
+  public static Builder builder(File directory, Converter converter) {
+    return new Builder(directory, converter);
+  }
+
+  /**
+   * Load the tables of the manifest and flush the write-ahead logs left by the last session to
+   * a level 0 table.
+   */
+  private void open() throws IOException {
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      throw new IOException("Cannot create directory " + directory);
+    }
+    List<List<SsTable>> levels = new ArrayList<>(LEVELS);
+    for (int i = 0; i < LEVELS; i++) {
+      levels.add(new ArrayList<SsTable>());
+    }
+    Set<Integer> live = new HashSet<>();
+    int next = readManifest(levels, live);
+    Collections.sort(levels.get(0), new Comparator<SsTable>() {
+      @Override public int compare(SsTable lhs, SsTable rhs) {
+        return rhs.id - lhs.id;
+      }
+    });
+    for (int i = 1; i < LEVELS; i++) {
+      Collections.sort(levels.get(i), KEY_ORDER);
+    }
+    List<Integer> logs = new ArrayList<>();
+    File[] files = directory.listFiles();
+    for (File file : files == null ? new File[0] : files) {
+      int id = id(file.getName());
+      if (id < 0) {
+        continue;
+      }
+      next = Math.max(next, id + 1);
+      if (file.getName().endsWith(LOG_SUFFIX)) {
+        logs.add(id);
+      } else if (!live.contains(id) && !file.delete()) {
+        //left by a flush or compaction that did not finish.
+        throw new IOException("Cannot delete " + file);
+      }
+    }
+    nextId.set(next);
+    Collections.sort(logs);
+    Memtable replayed = new Memtable(null);
+    for (int id : logs) {
+      WriteAheadLog.replay(logFile(id), replayed);
+    }
+    if (!replayed.isEmpty()) {
+      SsTable table = SsTable.write(directory, nextId.getAndIncrement(), replayed.source(null),
+          replayed.size(), blockSize, Long.MAX_VALUE, false);
+      levels.get(0).add(0, table);
+    }
+    Memtable memtable = new Memtable(WriteAheadLog.create(logFile(nextId.getAndIncrement())));
+    version = new Version(memtable, new ArrayList<Memtable>(), levels);
+    writeManifest(levels);
+    for (int id : logs) {
+      delete(logFile(id));
+    }
+    compact();
+  }
+
+  private static int id(String name) {
+    int dot = name.indexOf('.');
+    if (dot <= 0 || !(name.endsWith(LOG_SUFFIX) || name.endsWith(TABLE_SUFFIX))) {
+      return -1;
+    }
+    try {
+      return Integer.parseInt(name.substring(0, dot));
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  private File logFile(int id) {
+    return new File(directory, id + LOG_SUFFIX);
+  }
+
+  /**
+   * Read the tables of the manifest into levels.
+   *
+   * @return next file id.
+   */
+  private int readManifest(List<List<SsTable>> levels, Set<Integer> live) throws IOException {
+    File file = new File(directory, MANIFEST);
+    if (!file.exists()) {
+      return 0;
+    }
+    BufferedReader reader =
+        new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+    try {
+      int next = Integer.parseInt(reader.readLine());
+      String line;
+      while ((line = reader.readLine()) != null) {
+        int space = line.indexOf(' ');
+        int level = Integer.parseInt(line.substring(0, space));
+        int id = Integer.parseInt(line.substring(space + 1));
+        levels.get(level).add(SsTable.open(id, SsTable.file(directory, id)));
+        live.add(id);
+      }
+      return next;
+    } finally {
+      reader.close();
+    }
+  }
+
+  /**
+   * Replace the manifest with the tables of levels, the rename makes the switch atomic.
+   */
+  private void writeManifest(List<List<SsTable>> levels) throws IOException {
+    File file = new File(directory, MANIFEST);
+    File temp = new File(directory, MANIFEST + ".tmp");
+    FileOutputStream output = new FileOutputStream(temp);
+    Writer writer = new OutputStreamWriter(output, "UTF-8");
+    try {
+      writer.write(nextId.get() + "\n");
+      for (int level = 0; level < levels.size(); level++) {
+        for (SsTable table : levels.get(level)) {
+          writer.write(level + " " + table.id + "\n");
+        }
+      }
+      writer.flush();
+      output.getFD().sync();
+    } finally {
+      writer.close();
+    }
+    if (!temp.renameTo(file)) {
+      throw new IOException("Cannot rename " + temp + " to " + file);
+    }
+  }
+
+  private static void delete(File file) throws IOException {
+    if (!file.delete() && file.exists()) {
+      throw new IOException("Cannot delete " + file);
+    }
+  }
+
+  /**
+   * Log and apply a write, switching to a new memtable when the current one is full.
+   */
+  private void write(String key, Record record) {
+    IOException failure = backgroundFailure;
+    if (failure != null) {
+      throw new IllegalStateException("Background flush failed", failure);
+    }
+    synchronized (writeLock) {
+      Memtable memtable = version.memtable;
+      try {
+        memtable.log.append(key, record);
+      } catch (IOException e) {
+        throw new IllegalStateException("Cannot write log " + memtable.log.file, e);
+      }
+      memtable.put(key, record);
+      if (memtable.weight() >= memtableSize) {
+        rotate(memtable);
+      }
+    }
+  }
+
+  /**
+   * Make the full memtable immutable and schedule its flush. Callers hold the write lock.
+   */
+  private void rotate(Memtable full) {
+    WriteAheadLog log;
+    try {
+      log = WriteAheadLog.create(logFile(nextId.getAndIncrement()));
+    } catch (IOException e) {
+      throw new IllegalStateException("Cannot create log in " + directory, e);
+    }
+    synchronized (versionLock) {
+      Version current = version;
+      List<Memtable> immutables = new ArrayList<>();
+      immutables.add(full);
+      immutables.addAll(current.immutables);
+      version = new Version(new Memtable(log), immutables, current.levels);
+    }
+    full.log.close();
+    background.execute(new Runnable() {
+      @Override public void run() {
+        try {
+          flush();
+          compact();
+        } catch (IOException e) {
+          backgroundFailure = e;
+        }
+      }
+    });
+  }
+
+  /**
+   * Write the oldest immutable memtable to a level 0 table and delete its log.
+   */
+  private void flush() throws IOException {
+    List<Memtable> immutables = version.immutables;
+    if (immutables.isEmpty()) {
+      return;
+    }
+    Memtable immutable = immutables.get(immutables.size() - 1);
+    SsTable table = SsTable.write(directory, nextId.getAndIncrement(), immutable.source(null),
+        immutable.size(), blockSize, Long.MAX_VALUE, false);
+    List<List<SsTable>> levels = copy(version.levels);
+    if (table != null) {
+      levels.get(0).add(0, table);
+    }
+    writeManifest(levels);
+    synchronized (versionLock) {
+      Version current = version;
+      List<Memtable> remaining = new ArrayList<>(current.immutables);
+      remaining.remove(immutable);
+      version = new Version(current.memtable, remaining, levels);
+    }
+    delete(immutable.log.file);
+  }
+
+  private static List<List<SsTable>> copy(List<List<SsTable>> levels) {
+    List<List<SsTable>> copy = new ArrayList<>(levels.size());
+    for (List<SsTable> level : levels) {
+      copy.add(new ArrayList<>(level));
+    }
+    return copy;
+  }
+
+  /**
+   * Merge tables into the next level until level 0 has less than its table limit and every
+   * other level is within its size target. Runs on the background thread only, or before the
+   * store is published.
+   */
+  private void compact() throws IOException {
+    while (true) {
+      List<List<SsTable>> levels = version.levels;
+      int level = -1;
+      List<SsTable> upper = new ArrayList<>();
+      if (levels.get(0).size() >= level0Tables) {
+        level = 0;
+        upper.addAll(levels.get(0));
+      } else {
+        long target = levelSize;
+        for (int i = 1; i < LEVELS - 1 && level < 0; i++, target *= 10) {
+          if (size(levels.get(i)) > target) {
+            level = i;
+            upper.add(pick(i, levels.get(i)));
+          }
+        }
+      }
+      if (level < 0) {
+        return;
+      }
+      compact(level, upper, levels);
+    }
+  }
+
+  /**
+   * Next table of a level to compact, tables are picked round-robin by key.
+   */
+  private SsTable pick(int level, List<SsTable> tables) {
+    SsTable picked = tables.get(0);
+    String previous = compactionKeys[level];
+    if (previous != null) {
+      for (SsTable table : tables) {
+        if (table.firstKey.compareTo(previous) > 0) {
+          picked = table;
+          break;
+        }
+      }
+    }
+    compactionKeys[level] = picked.lastKey;
+    return picked;
+  }
+
+  private static long size(List<SsTable> tables) {
+    long size = 0;
+    for (SsTable table : tables) {
+      size += table.size();
+    }
+    return size;
+  }
+
+  private void compact(int level, List<SsTable> upper, List<List<SsTable>> levels)
+      throws IOException {
+    String from = null;
+    String to = null;
+    for (SsTable table : upper) {
+      if (from == null || table.firstKey.compareTo(from) < 0) {
+        from = table.firstKey;
+      }
+      if (to == null || table.lastKey.compareTo(to) > 0) {
+        to = table.lastKey;
+      }
+    }
+    List<SsTable> lower = new ArrayList<>();
+    for (SsTable table : levels.get(level + 1)) {
+      if (table.overlaps(from, to)) {
+        lower.add(table);
+      }
+    }
+    boolean bottom = true;
+    for (int i = level + 2; i < LEVELS; i++) {
+      bottom &= levels.get(i).isEmpty();
+    }
+    List<Source> sources = new ArrayList<>();
+    long expectedKeys = 0;
+    for (SsTable table : upper) {
+      sources.add(table.source(null));
+      expectedKeys += table.entries;
+    }
+    sources.add(new LevelSource(lower, null));
+    for (SsTable table : lower) {
+      expectedKeys += table.entries;
+    }
+    Source merged = new MergeSource(sources);
+    List<SsTable> outputs = new ArrayList<>();
+    while (merged.valid()) {
+      SsTable table = SsTable.write(directory, nextId.getAndIncrement(), merged,
+          Math.min(expectedKeys, tableSize / 16), blockSize, tableSize, bottom);
+      if (table != null) {
+        outputs.add(table);
+      }
+    }
+    List<List<SsTable>> compacted = copy(levels);
+    compacted.get(level).removeAll(upper);
+    compacted.get(level + 1).removeAll(lower);
+    compacted.get(level + 1).addAll(outputs);
+    Collections.sort(compacted.get(level + 1), KEY_ORDER);
+    writeManifest(compacted);
+    synchronized (versionLock) {
+      Version current = version;
+      version = new Version(current.memtable, current.immutables, compacted);
+    }
+    //readers of older versions keep reading the mappings of deleted files.
+    for (SsTable table : upper) {
+      delete(table.file);
+    }
+    for (SsTable table : lower) {
+      delete(table.file);
+    }
+  }
+
+  /**
+   * Force the write-ahead log of the current memtable to the file.
+   */
+  public void sync() {
+    synchronized (writeLock) {
+      Memtable memtable = version.memtable;
+      try {
+        memtable.log.sync();
+      } catch (IOException e) {
+        throw new IllegalStateException("Cannot sync log " + memtable.log.file, e);
+      }
+    }
+  }
+
+  /**
+   * Wait for background flushes and compactions, sync and close the log. The store cannot be
+   * used afterwards, unflushed memtables are replayed from their logs when the store is opened.
+   */
+  public void close() {
+    background.shutdown();
+    try {
+      background.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    sync();
+    version.memtable.log.close();
+  }
+
+  /**
+   * Number of tables per level.
+   */
+  public int[] tableCounts() {
+    List<List<SsTable>> levels = version.levels;
+    int[] counts = new int[levels.size()];
+    for (int i = 0; i < counts.length; i++) {
+      counts[i] = levels.get(i).size();
+    }
+    return counts;
+  }
+
+  /**
+   * Get number of entries in the store, counted by a scan.
+   */
+  public int count() {
+    return count(null, null, null);
+  }
+
+  private int count(String converterKey, String keyPrefix, String keyContains) {
+    CloseableIterator<String> keys = keys(converterKey, keyPrefix, keyContains, null, 0, -1);
+    int count = 0;
+    while (keys.hasNext()) {
+      keys.next();
+      count++;
+    }
+    return count;
+  }
+
+  @Override public void set(String key, Value value) {
+    byte[] bytes = value.bytes();
+    //copy, the caller may reuse its value.
+    write(key, new Record(value.type(), bytes == null ? null : bytes.clone()));
+  }
+
+  private Record record(String key) {
+    Record record = version.get(key);
+    return record == null || record.deleted ? null : record;
+  }
+
+  @Override public Class type(String key) {
+    Record record = record(key);
+    return record == null ? null : converterType(record.type);
+  }
+
+  @Override public <T> T get(String key) {
+    Record record = record(key);
+    return record == null ? null : this.<T>convert(record.value, record.type);
+  }
+
+  @Override protected byte[] bytes(String key, String converterKey) {
+    Record record = record(key);
+    return record == null || !record.type.equals(converterKey) ? null : record.value;
+  }
+
+  /**
+   * Clear store and return number of keys removed, every key gets a tombstone.
+   */
+  @Override public int clear() {
+    int count = 0;
+    for (String key : keysType(null)) {
+      if (delete(key)) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  @Override public boolean delete(String key) {
+    lock(key);
+    try {
+      if (record(key) == null) {
+        return false;
+      }
+      write(key, Record.DELETED);
+      return true;
+    } finally {
+      unlock(key);
+    }
+  }
+
+  @Override public boolean exists(String key) {
+    return record(key) != null;
+  }
+
+  @Override protected <T> List<Entry<T>> entries(String converterKey) {
+    return list(this.<T>entries(converterKey, null, null, null, 0, -1));
+  }
+
+  @Override protected <T> List<Entry<T>> entriesKeyPrefix(String converterKey, String keyPrefix) {
+    return list(this.<T>entries(converterKey, keyPrefix, null, null, 0, -1));
+  }
+
+  @Override
+  protected <T> List<Entry<T>> entriesKeyContains(String converterKey, String keyContains) {
+    return list(this.<T>entries(converterKey, null, keyContains, null, 0, -1));
+  }
+
+  @Override protected List<String> keysType(String converterKey) {
+    return list(keys(converterKey, null, null, null, 0, -1));
+  }
+
+  @Override protected List<String> keysPrefixAny(String keyPrefix) {
+    return keysPrefix(null, keyPrefix);
+  }
+
+  @Override protected List<String> keysContainsAny(String keyContains) {
+    return keysContains(null, keyContains);
+  }
+
+  @Override protected List<String> keysPrefix(String converterKey, String keyPrefix) {
+    return list(keys(converterKey, keyPrefix, null, null, 0, -1));
+  }
+
+  @Override protected List<String> keysContains(String converterKey, String keyContains) {
+    return list(keys(converterKey, null, keyContains, null, 0, -1));
+  }
+
+  @Override protected <T> List<T> valuesType(String converterKey) {
+    return values(converterKey, null, null);
+  }
+
+  @Override protected List<Object> valuesPrefixAny(String keyPrefix) {
+    return valuesPrefix(null, keyPrefix);
+  }
+
+  @Override protected List<Object> valuesContainsAny(String keyContains) {
+    return valuesContains(null, keyContains);
+  }
+
+  @Override protected <T> List<T> valuesPrefix(String converterKey, String keyPrefix) {
+    return values(converterKey, keyPrefix, null);
+  }
+
+  @Override protected <T> List<T> valuesContains(String converterKey, String keyContains) {
+    return values(converterKey, null, keyContains);
+  }
+
+  @Override protected int count(Selection selection) {
+    if (selection.paged()) {
+      return super.count(selection);
+    }
+    return count(selection.converterKey(), selection.keyPrefix(), selection.keyContains());
+  }
+
+  @Override protected <T> CloseableIterator<Entry<T>> entriesIterator(Selection selection) {
+    return entries(selection.converterKey(), selection.keyPrefix(), selection.keyContains(),
+        selection.afterKey(), selection.offset(), selection.limit());
+  }
+
+  @Override protected CloseableIterator<String> keysIterator(Selection selection) {
+    return keys(selection.converterKey(), selection.keyPrefix(), selection.keyContains(),
+        selection.afterKey(), selection.offset(), selection.limit());
+  }
+
+  @Override protected <T> CloseableIterator<T> valuesIterator(Selection selection) {
+    return new VersionScanIterator<T>(version, selection.converterKey(), selection.keyPrefix(),
+        selection.keyContains(), selection.afterKey(), selection.offset(), selection.limit()) {
+      @Override protected T read(String key, Record record) {
+        return convert(record.value, record.type);
+      }
+    };
+  }
+
+  private <T> CloseableIterator<Entry<T>> entries(String converterKey, String keyPrefix,
+      String keyContains, String afterKey, int offset, int limit) {
+    return new VersionScanIterator<Entry<T>>(version, converterKey, keyPrefix, keyContains,
+        afterKey, offset, limit) {
+      @Override protected Entry<T> read(String key, Record record) {
+        return LsmStore.this.entry(key, record.value, record.type);
+      }
+    };
+  }
+
+  private CloseableIterator<String> keys(String converterKey, String keyPrefix,
+      String keyContains, String afterKey, int offset, int limit) {
+    return new VersionScanIterator<String>(version, converterKey, keyPrefix, keyContains,
+        afterKey, offset, limit) {
+      @Override protected String read(String key, Record record) {
+        return key;
+      }
+    };
+  }
+
+  /**
+   * Read the records first and convert them with {@link #convertAll(List, List)}.
+   */
+  private <T> List<T> values(String converterKey, String keyPrefix, String keyContains) {
+    ArrayList<byte[]> bytes = new ArrayList<>();
+    ArrayList<String> converterKeys = new ArrayList<>();
+    CloseableIterator<Record> scan = new VersionScanIterator<Record>(version, converterKey,
+        keyPrefix, keyContains, null, 0, -1) {
+      @Override protected Record read(String key, Record record) {
+        return record;
+      }
+    };
+    while (scan.hasNext()) {
+      Record record = scan.next();
+      bytes.add(record.value);
+      converterKeys.add(record.type);
+    }
+    return convertAll(bytes, converterKeys);
+  }
+
+  private static <T> List<T> list(CloseableIterator<T> iterator) {
+    ArrayList<T> list = new ArrayList<>();
+    try {
+      while (iterator.hasNext()) {
+        list.add(iterator.next());
+      }
+    } finally {
+      iterator.close();
+    }
+    return list;
+  }
+
+  public static class Builder {
+
+    final File directory;
+    final Converter converter;
+    long memtableSize = 4 * 1024 * 1024;
+    long tableSize = 2 * 1024 * 1024;
+    int blockSize = 4096;
+    int level0Tables = 4;
+    long levelSize = 10 * 1024 * 1024;
+    boolean singleThreaded;
+
+    Builder(File directory, Converter converter) {
+      if (directory == null) {
+        throw new IllegalArgumentException("Directory cannot be null");
+      }
+      this.directory = directory;
+      this.converter = converter;
+    }
+
+    /**
+     * Approximate heap size of a memtable before it is flushed, 4 MiB by default.
+     */
+    public Builder memtableSize(long memtableSize) {
+      this.memtableSize = memtableSize;
+      return this;
+    }
+
+    /**
+     * Size of tables written by compaction, 2 MiB by default.
+     */
+    public Builder tableSize(long tableSize) {
+      this.tableSize = tableSize;
+      return this;
+    }
+
+    /**
+     * Size of an indexed block of a table, 4 KiB by default.
+     */
+    public Builder blockSize(int blockSize) {
+      this.blockSize = blockSize;
+      return this;
+    }
+
+    /**
+     * Number of level 0 tables that are merged into level 1, 4 by default.
+     */
+    public Builder level0Tables(int level0Tables) {
+      if (level0Tables < 1) {
+        throw new IllegalArgumentException("Level 0 needs at least one table");
+      }
+      this.level0Tables = level0Tables;
+      return this;
+    }
+
+    /**
+     * Size target of level 1, 10 MiB by default. Every deeper level is ten times larger.
+     */
+    public Builder levelSize(long levelSize) {
+      this.levelSize = levelSize;
+      return this;
+    }
+
+    /**
+     * True if the store is only accessed from one thread, key locks are skipped.
+     */
+    public Builder singleThreaded(boolean singleThreaded) {
+      this.singleThreaded = singleThreaded;
+      return this;
+    }
+
+    public LsmStore build() {
+      return new LsmStore(this);
+    }
+  }
+}
@@ -0,0 +1,74 @@
+package uncmn.eve.store.lsm;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sorted in-memory writes, logged to a {@link WriteAheadLog} until flushed to a table.
+ */
+final class Memtable {
+
+  final WriteAheadLog log;
+  private final ConcurrentSkipListMap<String, Record> records = new ConcurrentSkipListMap<>();
+  private final AtomicLong weight = new AtomicLong();
+
+  /**
+   * @param log log of the writes, null while replaying.
+   */
+  Memtable(WriteAheadLog log) {
+    this.log = log;
+  }
+
+  void put(String key, Record record) {
+    Record previous = records.put(key, record);
+    weight.addAndGet(record.weight(key) - (previous == null ? 0 : previous.weight(key)));
+  }
+
+  Record get(String key) {
+    return records.get(key);
+  }
+
+  boolean isEmpty() {
+    return records.isEmpty();
+  }
+
+  int size() {
+    return records.size();
+  }
+
+  /**
+   * Approximate heap size of all records.
+   */
+  long weight() {
+    return weight.get();
+  }
+
+  /**
+   * Records from key on, including tombstones.
+   */
+  Source source(String from) {
+    Map<String, Record> range = from == null ? records : records.tailMap(from, true);
+    final Iterator<Map.Entry<String, Record>> iterator = range.entrySet().iterator();
+    return new Source() {
+      private Map.Entry<String, Record> current = iterator.hasNext() ? iterator.next() : null;
+
+      @Override public boolean valid() {
+        return current != null;
+      }
+
+      @Override public String key() {
+        return current.getKey();
+      }
+
+      @Override public Record record() {
+        return current.getValue();
+      }
+
+      @Override public void next() {
+        current = iterator.hasNext() ? iterator.next() : null;
+      }
+    };
+  }
+}
@@ -0,0 +1,78 @@
+package uncmn.eve.store.lsm;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Merges sources in key order. When several sources have a key, the record of the source that
+ * comes first in the list wins, sources must be ordered from newest to oldest.
+ */
+final class MergeSource implements Source {
+
+  private final PriorityQueue<Ranked> queue;
+  private String key;
+  private Record record;
+
+  MergeSource(List<Source> sources) {
+    queue = new PriorityQueue<>(Math.max(1, sources.size()), new Comparator<Ranked>() {
+      @Override public int compare(Ranked lhs, Ranked rhs) {
+        int compare = lhs.source.key().compareTo(rhs.source.key());
+        return compare != 0 ? compare : lhs.rank - rhs.rank;
+      }
+    });
+    for (int i = 0; i < sources.size(); i++) {
+      Source source = sources.get(i);
+      if (source.valid()) {
+        queue.add(new Ranked(source, i));
+      }
+    }
+    next();
+  }
+
+  @Override public boolean valid() {
+    return key != null;
+  }
+
+  @Override public String key() {
+    return key;
+  }
+
+  @Override public Record record() {
+    return record;
+  }
+
+  @Override public void next() {
+    Ranked newest = queue.poll();
+    if (newest == null) {
+      key = null;
+      record = null;
+      return;
+    }
+    key = newest.source.key();
+    record = newest.source.record();
+    advance(newest);
+    //skip older records of the same key.
+    while (!queue.isEmpty() && queue.peek().source.key().equals(key)) {
+      advance(queue.poll());
+    }
+  }
+
+  private void advance(Ranked ranked) {
+    ranked.source.next();
+    if (ranked.source.valid()) {
+      queue.add(ranked);
+    }
+  }
+
+  private static final class Ranked {
+
+    final Source source;
+    final int rank;
+
+    Ranked(Source source, int rank) {
+      this.source = source;
+      this.rank = rank;
+    }
+  }
+}
@@ -0,0 +1,59 @@
+package uncmn.eve.store.lsm;
+
+/**
+ * The value of a key in a memtable or a table, a tombstone if the key was deleted.
+ */
+final class Record {
+
+  static final int TOMBSTONE = -1;
+  static final int NULL_VALUE = -2;
+  static final Record DELETED = new Record(null, null, true);
+
+  final String type;
+  final byte[] value;
+  final boolean deleted;
+
+  Record(String type, byte[] value) {
+    this(type, value, false);
+  }
+
+  private Record(String type, byte[] value, boolean deleted) {
+    this.type = type;
+    this.value = value;
+    this.deleted = deleted;
+  }
+
+  /**
+   * Stored value length, or {@link #TOMBSTONE} or {@link #NULL_VALUE}.
+   */
+  int valueLength() {
+    if (deleted) {
+      return TOMBSTONE;
+    }
+    return value == null ? NULL_VALUE : value.length;
+  }
+
+  /**
+   * Record of a stored value length.
+   */
+  static Record of(String type, byte[] value, int valueLength) {
+    if (valueLength == TOMBSTONE) {
+      return DELETED;
+    }
+    return new Record(type, valueLength == NULL_VALUE ? null : value);
+  }
+
+  /**
+   * Approximate heap size of the record with its key.
+   */
+  int weight(String key) {
+    int weight = 64 + 2 * key.length();
+    if (type != null) {
+      weight += 2 * type.length();
+    }
+    if (value != null) {
+      weight += value.length;
+    }
+    return weight;
+  }
+}
@@ -0,0 +1,21 @@
+package uncmn.eve.store.lsm;
+
+/**
+ * Records of a memtable, a table or a level in key order.
+ */
+interface Source {
+
+  /**
+   * @return true if positioned at a record.
+   */
+  boolean valid();
+
+  String key();
+
+  Record record();
+
+  /**
+   * Move to the record with the next key.
+   */
+  void next();
+}
@@ -0,0 +1,272 @@
+package uncmn.eve.store.lsm;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import uncmn.eve.BloomFilter;
+
+/**
+ * An immutable sorted table file.
+ * <p>The file is a sequence of data blocks, an index with the first key and position of every
+ * block and the last key of the table, a {@link BloomFilter} of all keys and a fixed size
+ * footer. Entries of a block are {@code keyLength, key, typeLength, type, valueLength, value}.</p>
+ * <p>The file is memory-mapped, the index and the filter are kept on the heap. Lookups check the
+ * filter, binary search the index and scan a single block.</p>
+ */
+final class SsTable {
+
+  private static final int MAGIC = 0x4556454c; //EVEL
+  private static final int FOOTER = 24;
+
+  final int id;
+  final File file;
+  final int entries;
+  final String firstKey;
+  final String lastKey;
+  private final MappedByteBuffer buffer;
+  private final String[] blockKeys;
+  private final int[] blockPositions;
+  private final BloomFilter filter;
+
+  private SsTable(int id, File file, MappedByteBuffer buffer, int entries, String[] blockKeys,
+      int[] blockPositions, String lastKey, BloomFilter filter) {
+    this.id = id;
+    this.file = file;
+    this.buffer = buffer;
+    this.entries = entries;
+    this.blockKeys = blockKeys;
+    this.blockPositions = blockPositions;
+    this.firstKey = blockKeys[0];
+    this.lastKey = lastKey;
+    this.filter = filter;
+  }
+
+  static File file(File directory, int id) {
+    return new File(directory, id + ".sst");
+  }
+
+  /**
+   * Write records of a source to a new table, until the source is exhausted or the table reached
+   * its maximum size.
+   *
+   * @param source records in key order, positioned at the first record to write.
+   * @param expectedKeys upper bound of the number of keys, sizes the filter.
+   * @param dropTombstones true if no older table can contain the deleted keys.
+   * @return the table, null if the source had no record to write.
+   */
+  static SsTable write(File directory, int id, Source source, long expectedKeys, int blockSize,
+      long maxSize, boolean dropTombstones) throws IOException {
+    File file = file(directory, id);
+    FileOutputStream fileOutput = new FileOutputStream(file);
+    DataOutputStream output = new DataOutputStream(new BufferedOutputStream(fileOutput));
+    BloomFilter filter = BloomFilter.create(expectedKeys, 0.01);
+    List<String> blockKeys = new ArrayList<>();
+    List<Integer> blockPositions = new ArrayList<>();
+    String lastKey = null;
+    int entries = 0;
+    int blockStart = -blockSize;
+    try {
+      while (source.valid() && output.size() < maxSize) {
+        String key = source.key();
+        Record record = source.record();
+        source.next();
+        if (record.deleted && dropTombstones) {
+          continue;
+        }
+        if (output.size() - blockStart >= blockSize) {
+          blockStart = output.size();
+          blockKeys.add(key);
+          blockPositions.add(blockStart);
+        }
+        writeString(output, key);
+        writeString(output, record.type == null ? "" : record.type);
+        output.writeInt(record.valueLength());
+        if (record.valueLength() > 0) {
+          output.write(record.value);
+        }
+        filter.put(key);
+        lastKey = key;
+        entries++;
+      }
+      if (entries == 0) {
+        output.close();
+        if (!file.delete()) {
+          throw new IOException("Cannot delete empty table " + file);
+        }
+        return null;
+      }
+      long indexPosition = output.size();
+      output.writeInt(blockKeys.size());
+      for (int i = 0; i < blockKeys.size(); i++) {
+        writeString(output, blockKeys.get(i));
+        output.writeInt(blockPositions.get(i));
+      }
+      writeString(output, lastKey);
+      long filterPosition = output.size();
+      ByteArrayOutputStream filterBytes = new ByteArrayOutputStream();
+      filter.writeTo(filterBytes);
+      filterBytes.writeTo(output);
+      output.writeLong(indexPosition);
+      output.writeLong(filterPosition);
+      output.writeInt(entries);
+      output.writeInt(MAGIC);
+      output.flush();
+      fileOutput.getFD().sync();
+    } finally {
+      output.close();
+    }
+    return open(id, file);
+  }
+
+  /**
+   * Map a table file and read its index and filter.
+   */
+  static SsTable open(int id, File file) throws IOException {
+    RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+    MappedByteBuffer buffer;
+    try {
+      buffer = randomAccessFile.getChannel()
+          .map(FileChannel.MapMode.READ_ONLY, 0, randomAccessFile.length());
+    } finally {
+      randomAccessFile.close();
+    }
+    int size = buffer.capacity();
+    if (size < FOOTER || buffer.getInt(size - 4) != MAGIC) {
+      throw new IOException("Not a table " + file);
+    }
+    int indexPosition = (int) buffer.getLong(size - FOOTER);
+    int filterPosition = (int) buffer.getLong(size - FOOTER + 8);
+    int entries = buffer.getInt(size - 8);
+    ByteBuffer index = buffer.duplicate();
+    index.position(indexPosition);
+    int blocks = index.getInt();
+    String[] blockKeys = new String[blocks];
+    int[] blockPositions = new int[blocks];
+    for (int i = 0; i < blocks; i++) {
+      blockKeys[i] = readString(index);
+      blockPositions[i] = index.getInt();
+    }
+    String lastKey = readString(index);
+    byte[] filterBytes = new byte[size - FOOTER - filterPosition];
+    ByteBuffer filter = buffer.duplicate();
+    filter.position(filterPosition);
+    filter.get(filterBytes);
+    return new SsTable(id, file, buffer, entries, blockKeys, blockPositions, lastKey,
+        BloomFilter.readFrom(new ByteArrayInputStream(filterBytes)));
+  }
+
+  private static void writeString(DataOutputStream output, String string) throws IOException {
+    byte[] bytes = string.getBytes(WriteAheadLog.UTF_8);
+    output.writeInt(bytes.length);
+    output.write(bytes);
+  }
+
+  private static String readString(ByteBuffer buffer) {
+    byte[] bytes = new byte[buffer.getInt()];
+    buffer.get(bytes);
+    return new String(bytes, WriteAheadLog.UTF_8);
+  }
+
+  long size() {
+    return buffer.capacity();
+  }
+
+  boolean overlaps(String from, String to) {
+    return lastKey.compareTo(from) >= 0 && firstKey.compareTo(to) <= 0;
+  }
+
+  /**
+   * Record of key, null if this table has none.
+   */
+  Record get(String key) {
+    if (key.compareTo(firstKey) < 0 || key.compareTo(lastKey) > 0 || !filter.mightContain(key)) {
+      return null;
+    }
+    Source source = source(key);
+    if (source.valid() && source.key().equals(key)) {
+      return source.record();
+    }
+    return null;
+  }
+
+  /**
+   * Records from key on, including tombstones.
+   */
+  Source source(String from) {
+    return new TableSource(from);
+  }
+
+  /**
+   * Index of the last block with a first key not greater than key, 0 if there is none.
+   */
+  private int block(String key) {
+    int low = 0;
+    int high = blockKeys.length - 1;
+    while (low < high) {
+      int middle = (low + high + 1) >>> 1;
+      if (blockKeys[middle].compareTo(key) <= 0) {
+        low = middle;
+      } else {
+        high = middle - 1;
+      }
+    }
+    return low;
+  }
+
+  private final class TableSource implements Source {
+
+    private final ByteBuffer reader = buffer.duplicate();
+    private final int end;
+    private String key;
+    private Record record;
+
+    TableSource(String from) {
+      int blocks = blockKeys.length;
+      this.end = (int) buffer.getLong(buffer.capacity() - FOOTER);
+      reader.position(from == null || blocks == 0 ? 0 : blockPositions[block(from)]);
+      next();
+      while (from != null && key != null && key.compareTo(from) < 0) {
+        next();
+      }
+    }
+
+    @Override public boolean valid() {
+      return key != null;
+    }
+
+    @Override public String key() {
+      return key;
+    }
+
+    @Override public Record record() {
+      return record;
+    }
+
+    @Override public void next() {
+      if (reader.position() >= end) {
+        key = null;
+        record = null;
+        return;
+      }
+      key = readString(reader);
+      String type = readString(reader);
+      int valueLength = reader.getInt();
+      byte[] value = null;
+      if (valueLength >= 0) {
+        value = new byte[valueLength];
+        reader.get(value);
+      }
+      record = Record.of(type, value, valueLength);
+    }
+  }
+}
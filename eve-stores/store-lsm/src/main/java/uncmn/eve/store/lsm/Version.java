@@ -0,0 +1,100 @@
+package uncmn.eve.store.lsm;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An immutable snapshot of the memtables and tables of a store. Readers use the version they
+ * read last, flushes and compactions publish a new version.
+ */
+final class Version {
+
+  final Memtable memtable;
+  /**
+   * Memtables waiting to be flushed, newest first.
+   */
+  final List<Memtable> immutables;
+  /**
+   * Tables per level. Level 0 tables may overlap and are ordered newest first, tables of deeper
+   * levels are disjoint and ordered by key.
+   */
+  final List<List<SsTable>> levels;
+
+  Version(Memtable memtable, List<Memtable> immutables, List<List<SsTable>> levels) {
+    this.memtable = memtable;
+    this.immutables = Collections.unmodifiableList(immutables);
+    List<List<SsTable>> copy = new ArrayList<>(levels.size());
+    for (List<SsTable> level : levels) {
+      copy.add(Collections.unmodifiableList(new ArrayList<>(level)));
+    }
+    this.levels = Collections.unmodifiableList(copy);
+  }
+
+  /**
+   * Record of key in the newest memtable or table that has one, null if none has.
+   */
+  Record get(String key) {
+    Record record = memtable.get(key);
+    for (int i = 0; record == null && i < immutables.size(); i++) {
+      record = immutables.get(i).get(key);
+    }
+    if (record != null) {
+      return record;
+    }
+    for (SsTable table : levels.get(0)) {
+      record = table.get(key);
+      if (record != null) {
+        return record;
+      }
+    }
+    for (int level = 1; level < levels.size(); level++) {
+      SsTable table = find(levels.get(level), key);
+      if (table != null) {
+        record = table.get(key);
+        if (record != null) {
+          return record;
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Table of a level whose key range contains key.
+   */
+  private static SsTable find(List<SsTable> tables, String key) {
+    int low = 0;
+    int high = tables.size() - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      SsTable table = tables.get(middle);
+      if (table.lastKey.compareTo(key) < 0) {
+        low = middle + 1;
+      } else if (table.firstKey.compareTo(key) > 0) {
+        high = middle - 1;
+      } else {
+        return table;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Records of all memtables and tables from key on, newest record of each key.
+   */
+  Source source(String from) {
+    List<Source> sources = new ArrayList<>();
+    sources.add(memtable.source(from));
+    for (Memtable immutable : immutables) {
+      sources.add(immutable.source(from));
+    }
+    for (SsTable table : levels.get(0)) {
+      sources.add(table.source(from));
+    }
+    for (int level = 1; level < levels.size(); level++) {
+      sources.add(new LevelSource(levels.get(level), from));
+    }
+    return new MergeSource(sources);
+  }
+}
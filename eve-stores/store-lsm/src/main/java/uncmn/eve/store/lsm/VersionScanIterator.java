@@ -0,0 +1,53 @@
+package uncmn.eve.store.lsm;
+
+import uncmn.eve.ScanIterator;
+
+/**
+ * A {@link ScanIterator} over the merged records of a {@link Version}, in key order.
+ * <p>Prefix filters seek to the first key of the prefix in every memtable and table and stop
+ * after its last key, tombstones are skipped and type filters are checked per key.</p>
+ *
+ * @param <T> element type.
+ */
+abstract class VersionScanIterator<T> extends ScanIterator<Record, T> {
+
+  private final Source source;
+  private final String converterKey;
+  private boolean started;
+
+  /**
+   * @param version memtables and tables to be read.
+   * @param converterKey converter key values must have, null or empty for any type.
+   * @param keyPrefix prefix keys must start with, null for any key.
+   * @param keyContains string keys must contain, null for any key.
+   * @param afterKey only keys greater than this key are read, null to start at the first key.
+   * @param offset number of matching keys to skip.
+   * @param limit maximum number of elements, -1 if not limited.
+   */
+  VersionScanIterator(Version version, String converterKey, String keyPrefix,
+      String keyContains, String afterKey, int offset, int limit) {
+    super(keyPrefix, keyContains, afterKey, offset, limit);
+    this.source = version.source(from());
+    this.converterKey = converterKey == null || converterKey.length() == 0 ? null : converterKey;
+  }
+
+  @Override protected boolean advance() {
+    if (started) {
+      source.next();
+    }
+    started = true;
+    return source.valid();
+  }
+
+  @Override protected String key() {
+    return source.key();
+  }
+
+  @Override protected Record candidate() {
+    return source.record();
+  }
+
+  @Override protected boolean accept(Record record) {
+    return !record.deleted && (converterKey == null || converterKey.equals(record.type));
+  }
+}
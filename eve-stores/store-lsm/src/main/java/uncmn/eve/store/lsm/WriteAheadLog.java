@@ -0,0 +1,113 @@
+package uncmn.eve.store.lsm;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.zip.CRC32;
+
+/**
+ * Sequential log of the writes of a memtable, replayed when the store is opened.
+ * <p>A record is {@code crc, keyLength, typeLength, valueLength, key, type, value}. The crc covers
+ * everything after itself, the first record that fails the check ends the log.</p>
+ */
+final class WriteAheadLog {
+
+  static final Charset UTF_8 = Charset.forName("UTF-8");
+  private static final int HEADER = 16;
+
+  final File file;
+  private final FileOutputStream output;
+
+  private WriteAheadLog(File file, FileOutputStream output) {
+    this.file = file;
+    this.output = output;
+  }
+
+  static WriteAheadLog create(File file) throws IOException {
+    return new WriteAheadLog(file, new FileOutputStream(file, true));
+  }
+
+  /**
+   * Append the write of a key with a single write to the file.
+   */
+  void append(String key, Record record) throws IOException {
+    byte[] keyBytes = key.getBytes(UTF_8);
+    byte[] typeBytes = record.type == null ? new byte[0] : record.type.getBytes(UTF_8);
+    int valueLength = record.valueLength();
+    int length = HEADER + keyBytes.length + typeBytes.length + Math.max(valueLength, 0);
+    ByteBuffer buffer = ByteBuffer.allocate(length);
+    buffer.position(4);
+    buffer.putInt(keyBytes.length).putInt(typeBytes.length).putInt(valueLength);
+    buffer.put(keyBytes).put(typeBytes);
+    if (valueLength > 0) {
+      buffer.put(record.value);
+    }
+    CRC32 crc = new CRC32();
+    crc.update(buffer.array(), 4, length - 4);
+    buffer.putInt(0, (int) crc.getValue());
+    output.write(buffer.array());
+  }
+
+  /**
+   * Force appended writes to the file.
+   */
+  void sync() throws IOException {
+    output.getFD().sync();
+  }
+
+  void close() {
+    try {
+      output.close();
+    } catch (IOException ignored) {
+      //nothing to release.
+    }
+  }
+
+  /**
+   * Replay the valid records of a log into a memtable.
+   */
+  static void replay(File file, Memtable memtable) throws IOException {
+    DataInputStream input =
+        new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+    CRC32 crc = new CRC32();
+    try {
+      while (true) {
+        int checksum = input.readInt();
+        int keyLength = input.readInt();
+        int typeLength = input.readInt();
+        int valueLength = input.readInt();
+        if (keyLength < 0 || typeLength < 0 || valueLength < Record.NULL_VALUE) {
+          return;
+        }
+        byte[] data = new byte[keyLength + typeLength + Math.max(valueLength, 0)];
+        input.readFully(data);
+        crc.reset();
+        ByteBuffer header = ByteBuffer.allocate(HEADER - 4);
+        header.putInt(keyLength).putInt(typeLength).putInt(valueLength);
+        crc.update(header.array(), 0, HEADER - 4);
+        crc.update(data, 0, data.length);
+        if ((int) crc.getValue() != checksum) {
+          return;
+        }
+        String key = new String(data, 0, keyLength, UTF_8);
+        String type = new String(data, keyLength, typeLength, UTF_8);
+        byte[] value = null;
+        if (valueLength >= 0) {
+          value = new byte[valueLength];
+          System.arraycopy(data, keyLength + typeLength, value, 0, valueLength);
+        }
+        memtable.put(key, Record.of(type, value, valueLength));
+      }
+    } catch (EOFException e) {
+      //torn or complete end of the log.
+    } finally {
+      input.close();
+    }
+  }
+}
@@ -0,0 +1,116 @@
+package uncmn.eve.store.lsm;
+
+import java.io.File;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import uncmn.eve.Store;
+import uncmn.eve.store.testing.StoreContract;
+import uncmn.eve.store.testing.TestConverter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class LsmStoreTest extends StoreContract {
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  private LsmStore store;
+
+  private static LsmStore open(File directory) {
+    return LsmStore.builder(directory, new TestConverter())
+        .memtableSize(2 * 1024)
+        .tableSize(4 * 1024)
+        .blockSize(256)
+        .level0Tables(2)
+        .levelSize(8 * 1024)
+        .build();
+  }
+
+  private static int tables(LsmStore store) {
+    int tables = 0;
+    for (int count : store.tableCounts()) {
+      tables += count;
+    }
+    return tables;
+  }
+
+  @Override protected Store newStore() {
+    store = open(folder.getRoot());
+    return store;
+  }
+
+  @After public void closeStore() {
+    if (store != null) {
+      store.close();
+    }
+  }
+
+  @Test public void reopenReplaysLog() {
+    File directory = folder.getRoot();
+    LsmStore first = open(directory);
+    first.set("a1", 1);
+    first.set("a2", "two");
+    first.close();
+
+    store = open(directory);
+
+    assertEquals(1, store.getInt("a1", 0));
+    assertEquals("two", store.<String>get("a2"));
+  }
+
+  @Test public void recoversSyncedLogOfStoreNotClosed() {
+    File directory = folder.getRoot();
+    LsmStore first = open(directory);
+    first.set("a1", 1);
+    first.sync();
+
+    store = open(directory);
+
+    assertEquals(1, store.getInt("a1", 0));
+  }
+
+  @Test public void tombstonesHideFlushedValues() {
+    File directory = folder.getRoot();
+    LsmStore first = open(directory);
+    for (int i = 0; i < 200; i++) {
+      first.set("key" + i, i);
+    }
+    first.close();
+    first = open(directory);
+    assertTrue(tables(first) > 0);
+
+    assertTrue(first.delete("key7"));
+    assertFalse(first.exists("key7"));
+    first.close();
+
+    store = open(directory);
+    assertNull(store.get("key7"));
+    assertFalse(store.exists("key7"));
+    assertEquals(199, store.count());
+    assertEquals(8, store.getInt("key8", -1));
+  }
+
+  @Test public void compactionKeepsNewestValues() {
+    File directory = folder.getRoot();
+    LsmStore first = open(directory);
+    for (int round = 0; round < 3; round++) {
+      for (int i = 0; i < 300; i++) {
+        first.set("key" + i, round * 1000 + i);
+      }
+    }
+    first.close();
+    int[] counts = first.tableCounts();
+    assertTrue(counts[0] < 2);
+    assertTrue(counts[1] > 0);
+
+    store = open(directory);
+    assertEquals(300, store.count());
+    for (int i = 0; i < 300; i++) {
+      assertEquals(2000 + i, store.getInt("key" + i, -1));
+    }
+  }
+}
@@ -0,0 +1,267 @@
+package uncmn.eve.store.memory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import uncmn.eve.CloseableIterator;
+import uncmn.eve.Converter;
+import uncmn.eve.Entry;
+import uncmn.eve.MapScanIterator;
+import uncmn.eve.Selection;
+import uncmn.eve.Store;
+import uncmn.eve.Value;
+
+/**
+ * An implementation of {@link Store} held in memory, for ephemeral data and tests.
+ * <p>Point operations use a concurrent hash map, queries scan concurrent skip list maps of all
+ * keys and of the keys of each type, so key prefix queries only visit keys of the prefix.
+ * Reads never lock, writes of a key hold the lock of that key.</p>
+ * <p>Key prefix and key contains filters are case sensitive, unlike the Sqlite store which
+ * ignores ASCII case in key contains filters.</p>
+ */
+public class MemoryStore extends Store {
+
+  private final ConcurrentHashMap<String, Value> values = new ConcurrentHashMap<>();
+  private final ConcurrentSkipListMap<String, Value> sorted = new ConcurrentSkipListMap<>();
+  private final ConcurrentHashMap<String, ConcurrentSkipListMap<String, Value>> types =
+      new ConcurrentHashMap<>();
+
+  MemoryStore(Converter converter, boolean singleThreaded) {
+    super(converter, singleThreaded);
+  }
+
+  public static MemoryStore create(Converter converter) {
+    return new MemoryStore(converter, false);
+  }
+
+  /**
+   * @param singleThreaded true if the store is only accessed from one thread, locking is skipped.
+   */
+  public static MemoryStore create(Converter converter, boolean singleThreaded) {
+    return new MemoryStore(converter, singleThreaded);
+  }
+
+  /**
+   * Get number of entries in the store.
+   */
+  public int count() {
+    return values.size();
+  }
+
+  /**
+   * Keys of type, sorted. Created for writes only, reads of a type never written use an empty
+   * map so queries cannot grow {@link #types}.
+   */
+  private ConcurrentSkipListMap<String, Value> typeMap(String converterKey) {
+    ConcurrentSkipListMap<String, Value> map = types.get(converterKey);
+    if (map == null) {
+      map = new ConcurrentSkipListMap<>();
+      ConcurrentSkipListMap<String, Value> existing = types.putIfAbsent(converterKey, map);
+      if (existing != null) {
+        map = existing;
+      }
+    }
+    return map;
+  }
+
+  /**
+   * Map to scan for a converter key, all keys if converter key is empty.
+   */
+  private ConcurrentNavigableMap<String, Value> scanMap(String converterKey) {
+    if (converterKey == null || converterKey.length() == 0) {
+      return sorted;
+    }
+    ConcurrentSkipListMap<String, Value> map = types.get(converterKey);
+    return map == null ? new ConcurrentSkipListMap<String, Value>() : map;
+  }
+
+  @Override public void set(String key, Value value) {
+    byte[] bytes = value.bytes();
+    //copy, the caller may reuse its value.
+    Value stored = value(bytes == null ? null : bytes.clone(), value.type());
+    lock(key);
+    try {
+      Value previous = values.put(key, stored);
+      sorted.put(key, stored);
+      typeMap(stored.type()).put(key, stored);
+      if (previous != null && !previous.type().equals(stored.type())) {
+        typeMap(previous.type()).remove(key);
+      }
+    } finally {
+      unlock(key);
+    }
+  }
+
+  @Override public Class type(String key) {
+    Value value = values.get(key);
+    return value == null ? null : converterType(value.type());
+  }
+
+  @Override public <T> T get(String key) {
+    Value value = values.get(key);
+    return value == null ? null : this.<T>convert(value.bytes(), value.type());
+  }
+
+  @Override protected byte[] bytes(String key, String converterKey) {
+    Value value = values.get(key);
+    return value == null || !value.type().equals(converterKey) ? null : value.bytes();
+  }
+
+  /**
+   * Clear store and return number of keys removed.
+   */
+  @Override public int clear() {
+    int count = 0;
+    for (String key : values.keySet()) {
+      if (delete(key)) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  @Override public boolean delete(String key) {
+    lock(key);
+    try {
+      Value previous = values.remove(key);
+      if (previous == null) {
+        return false;
+      }
+      sorted.remove(key);
+      typeMap(previous.type()).remove(key);
+      return true;
+    } finally {
+      unlock(key);
+    }
+  }
+
+  @Override public boolean exists(String key) {
+    return values.containsKey(key);
+  }
+
+  @Override protected <T> List<Entry<T>> entries(String converterKey) {
+    return list(this.<T>entries(converterKey, null, null, null, 0, -1));
+  }
+
+  @Override protected <T> List<Entry<T>> entriesKeyPrefix(String converterKey, String keyPrefix) {
+    return list(this.<T>entries(converterKey, keyPrefix, null, null, 0, -1));
+  }
+
+  @Override
+  protected <T> List<Entry<T>> entriesKeyContains(String converterKey, String keyContains) {
+    return list(this.<T>entries(converterKey, null, keyContains, null, 0, -1));
+  }
+
+  @Override protected List<String> keysType(String converterKey) {
+    return list(keys(converterKey, null, null, null, 0, -1));
+  }
+
+  @Override protected List<String> keysPrefixAny(String keyPrefix) {
+    return keysPrefix(null, keyPrefix);
+  }
+
+  @Override protected List<String> keysContainsAny(String keyContains) {
+    return keysContains(null, keyContains);
+  }
+
+  @Override protected List<String> keysPrefix(String converterKey, String keyPrefix) {
+    return list(keys(converterKey, keyPrefix, null, null, 0, -1));
+  }
+
+  @Override protected List<String> keysContains(String converterKey, String keyContains) {
+    return list(keys(converterKey, null, keyContains, null, 0, -1));
+  }
+
+  @Override protected <T> List<T> valuesType(String converterKey) {
+    return values(converterKey, null, null);
+  }
+
+  @Override protected List<Object> valuesPrefixAny(String keyPrefix) {
+    return valuesPrefix(null, keyPrefix);
+  }
+
+  @Override protected List<Object> valuesContainsAny(String keyContains) {
+    return valuesContains(null, keyContains);
+  }
+
+  @Override protected <T> List<T> valuesPrefix(String converterKey, String keyPrefix) {
+    return values(converterKey, keyPrefix, null);
+  }
+
+  @Override protected <T> List<T> valuesContains(String converterKey, String keyContains) {
+    return values(converterKey, null, keyContains);
+  }
+
+  @Override protected <T> CloseableIterator<Entry<T>> entriesIterator(Selection selection) {
+    return entries(selection.converterKey(), selection.keyPrefix(), selection.keyContains(),
+        selection.afterKey(), selection.offset(), selection.limit());
+  }
+
+  @Override protected CloseableIterator<String> keysIterator(Selection selection) {
+    return keys(selection.converterKey(), selection.keyPrefix(), selection.keyContains(),
+        selection.afterKey(), selection.offset(), selection.limit());
+  }
+
+  @Override protected <T> CloseableIterator<T> valuesIterator(Selection selection) {
+    return new MapScanIterator<Value, T>(scanMap(selection.converterKey()), selection.keyPrefix(),
+        selection.keyContains(), selection.afterKey(), selection.offset(), selection.limit()) {
+      @Override protected T read(String key, Value value) {
+        return convert(value.bytes(), value.type());
+      }
+    };
+  }
+
+  private <T> CloseableIterator<Entry<T>> entries(String converterKey, String keyPrefix,
+      String keyContains, String afterKey, int offset, int limit) {
+    return new MapScanIterator<Value, Entry<T>>(scanMap(converterKey), keyPrefix, keyContains,
+        afterKey, offset, limit) {
+      @Override protected Entry<T> read(String key, Value value) {
+        return MemoryStore.this.entry(key, value.bytes(), value.type());
+      }
+    };
+  }
+
+  private CloseableIterator<String> keys(String converterKey, String keyPrefix,
+      String keyContains, String afterKey, int offset, int limit) {
+    return new MapScanIterator<Value, String>(scanMap(converterKey), keyPrefix, keyContains,
+        afterKey, offset, limit) {
+      @Override protected String read(String key, Value value) {
+        return key;
+      }
+    };
+  }
+
+  /**
+   * Scan the keys first and convert the values with {@link #convertAll(List, List)}.
+   */
+  private <T> List<T> values(String converterKey, String keyPrefix, String keyContains) {
+    ArrayList<byte[]> bytes = new ArrayList<>();
+    ArrayList<String> converterKeys = new ArrayList<>();
+    CloseableIterator<Value> scan = new MapScanIterator<Value, Value>(scanMap(converterKey),
+        keyPrefix, keyContains, null, 0, -1) {
+      @Override protected Value read(String key, Value value) {
+        return value;
+      }
+    };
+    while (scan.hasNext()) {
+      Value value = scan.next();
+      bytes.add(value.bytes());
+      converterKeys.add(value.type());
+    }
+    return convertAll(bytes, converterKeys);
+  }
+
+  private static <T> List<T> list(CloseableIterator<T> iterator) {
+    ArrayList<T> list = new ArrayList<>();
+    try {
+      while (iterator.hasNext()) {
+        list.add(iterator.next());
+      }
+    } finally {
+      iterator.close();
+    }
+    return list;
+  }
+}
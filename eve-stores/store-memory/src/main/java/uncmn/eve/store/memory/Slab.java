@@ -0,0 +1,63 @@
+package uncmn.eve.store.memory;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A direct buffer split into chunks of one size class.
+ * <p>Chunks are allocated and freed by {@link SlabAllocator} under its lock. Copies out of a chunk
+ * hold the read lock of the slab. Writes to a chunk, freeing a chunk and formatting the slab hold
+ * the write lock, so a chunk freed while a reader copies it is not reused before the copy is done
+ * and a reader that finds its slot not freed reads the chunk size the slot was allocated with.
+ * </p>
+ */
+final class Slab {
+
+  final ByteBuffer buffer;
+  final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+  int chunkSize;
+  /**
+   * Slot of each chunk, null if the chunk is free.
+   */
+  Slot[] owners;
+  private int[] free;
+  private int freeCount;
+
+  Slab(int size) {
+    this.buffer = ByteBuffer.allocateDirect(size);
+  }
+
+  /**
+   * Split the slab into free chunks of a size, all chunks must be free. Hold the write lock.
+   */
+  void format(int chunkSize) {
+    int chunks = buffer.capacity() / chunkSize;
+    this.chunkSize = chunkSize;
+    this.owners = new Slot[chunks];
+    this.free = new int[chunks];
+    //lowest chunks first.
+    for (int i = 0; i < chunks; i++) {
+      free[i] = chunks - 1 - i;
+    }
+    this.freeCount = chunks;
+  }
+
+  int chunks() {
+    return owners.length;
+  }
+
+  /**
+   * @return a free chunk, -1 if the slab is full.
+   */
+  int allocate() {
+    return freeCount == 0 ? -1 : free[--freeCount];
+  }
+
+  /**
+   * Free a chunk, hold the write lock.
+   */
+  void free(int chunk) {
+    owners[chunk] = null;
+    free[freeCount++] = chunk;
+  }
+}
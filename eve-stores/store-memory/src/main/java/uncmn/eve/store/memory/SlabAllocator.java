@@ -0,0 +1,194 @@
+package uncmn.eve.store.memory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Allocator of value chunks in slabs of fixed size, limited to a maximum number of slabs.
+ * <p>Chunk sizes grow by a quarter per size class, from 64 bytes up to the slab size, and each
+ * slab holds chunks of one class. When a class is full and no slab is left, a clock over the
+ * chunks of the class evicts a slot that was not read since the last sweep. A class without
+ * slabs takes the last slab of the class with the most slabs.</p>
+ */
+abstract class SlabAllocator {
+
+  private static final int MIN_CHUNK = 64;
+
+  private final int slabSize;
+  private final int maxSlabs;
+  private final int[] chunkSizes;
+  private final List<List<Slab>> classes = new ArrayList<>();
+  private final int[] hands;
+  private int slabCount;
+  private long evictions;
+
+  SlabAllocator(int slabSize, int maxSlabs) {
+    this.slabSize = slabSize;
+    this.maxSlabs = maxSlabs;
+    List<Integer> sizes = new ArrayList<>();
+    int size = MIN_CHUNK;
+    while (size < slabSize) {
+      sizes.add(size);
+      size = Math.max(size + 8, (size + size / 4 + 7) & ~7);
+    }
+    sizes.add(slabSize);
+    this.chunkSizes = new int[sizes.size()];
+    for (int i = 0; i < chunkSizes.length; i++) {
+      chunkSizes[i] = sizes.get(i);
+      classes.add(new ArrayList<Slab>());
+    }
+    this.hands = new int[chunkSizes.length];
+  }
+
+  /**
+   * Remove a slot that was evicted from the maps of the store.
+   */
+  abstract void evicted(Slot slot);
+
+  /**
+   * Allocate a chunk for a value, evicting other values if needed.
+   *
+   * @param length value length, -1 for a null value.
+   */
+  synchronized Slot allocate(String key, String type, int length) {
+    if (length <= 0) {
+      return new Slot(key, type, null, 0, length);
+    }
+    int sizeClass = sizeClass(length);
+    List<Slab> slabs = classes.get(sizeClass);
+    Slab slab = null;
+    int chunk = -1;
+    for (int i = slabs.size() - 1; i >= 0 && chunk < 0; i--) {
+      slab = slabs.get(i);
+      chunk = slab.allocate();
+    }
+    if (chunk < 0) {
+      if (slabCount < maxSlabs) {
+        slab = new Slab(slabSize);
+        slabCount++;
+      } else if (slabs.isEmpty()) {
+        slab = reassign();
+      } else {
+        slab = evict(sizeClass);
+      }
+      if (slab.chunkSize != chunkSizes[sizeClass]) {
+        slab.lock.writeLock().lock();
+        try {
+          slab.format(chunkSizes[sizeClass]);
+        } finally {
+          slab.lock.writeLock().unlock();
+        }
+        slabs.add(slab);
+      }
+      chunk = slab.allocate();
+    }
+    Slot slot = new Slot(key, type, slab, chunk, length);
+    slab.owners[chunk] = slot;
+    return slot;
+  }
+
+  /**
+   * Free the chunk of a slot, nothing happens if the slot was evicted already. Readers of the
+   * slot see it freed before the chunk can be reused.
+   */
+  synchronized void free(Slot slot) {
+    if (slot.freed) {
+      return;
+    }
+    Slab slab = slot.slab;
+    if (slab == null) {
+      slot.freed = true;
+      return;
+    }
+    slab.lock.writeLock().lock();
+    try {
+      slot.freed = true;
+      slab.free(slot.chunk);
+    } finally {
+      slab.lock.writeLock().unlock();
+    }
+  }
+
+  private int sizeClass(int length) {
+    int low = 0;
+    int high = chunkSizes.length - 1;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (chunkSizes[middle] < length) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Evict slots of a class until a chunk is free.
+   *
+   * @return slab with a free chunk.
+   */
+  private Slab evict(int sizeClass) {
+    List<Slab> slabs = classes.get(sizeClass);
+    int chunks = slabs.get(0).chunks();
+    while (true) {
+      int position = hands[sizeClass] % (chunks * slabs.size());
+      hands[sizeClass] = position + 1;
+      Slab slab = slabs.get(position / chunks);
+      Slot owner = slab.owners[position % chunks];
+      if (owner == null) {
+        return slab;
+      }
+      if (owner.referenced) {
+        owner.referenced = false;
+      } else {
+        evict(owner);
+        return slab;
+      }
+    }
+  }
+
+  /**
+   * Evict all slots of the last slab of the largest class.
+   *
+   * @return an empty slab.
+   */
+  private Slab reassign() {
+    List<Slab> largest = classes.get(0);
+    for (List<Slab> slabs : classes) {
+      if (slabs.size() > largest.size()) {
+        largest = slabs;
+      }
+    }
+    Slab slab = largest.remove(largest.size() - 1);
+    slab.lock.writeLock().lock();
+    try {
+      for (Slot owner : slab.owners) {
+        if (owner != null) {
+          evict(owner);
+        }
+      }
+      slab.chunkSize = 0;
+    } finally {
+      slab.lock.writeLock().unlock();
+    }
+    return slab;
+  }
+
+  private void evict(Slot slot) {
+    free(slot);
+    evictions++;
+    evicted(slot);
+  }
+
+  /**
+   * Bytes of all slabs, allocated off-heap.
+   */
+  synchronized long capacity() {
+    return (long) slabCount * slabSize;
+  }
+
+  synchronized long evictions() {
+    return evictions;
+  }
+}
@@ -0,0 +1,382 @@
+package uncmn.eve.store.memory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import uncmn.eve.CloseableIterator;
+import uncmn.eve.Converter;
+import uncmn.eve.Entry;
+import uncmn.eve.MapScanIterator;
+import uncmn.eve.Selection;
+import uncmn.eve.Store;
+import uncmn.eve.Value;
+
+/**
+ * An implementation of {@link Store} as a cache that holds values off the Java heap.
+ * <p>Values are copied into chunks of direct buffer slabs, the heap only holds the index of keys
+ * and their slots. Values are copied back to the heap when they are read. The total size of all
+ * slabs is capped, when it is reached values that were not read recently are evicted, so a value
+ * that was set may be gone later.</p>
+ * <p>Like {@link MemoryStore}, key prefix and key contains filters are case sensitive.</p>
+ */
+public class SlabStore extends Store {
+
+  private final SlabAllocator allocator;
+  private final int slabSize;
+  private final ConcurrentHashMap<String, Slot> slots = new ConcurrentHashMap<>();
+  private final ConcurrentSkipListMap<String, Slot> sorted = new ConcurrentSkipListMap<>();
+  private final ConcurrentHashMap<String, ConcurrentSkipListMap<String, Slot>> types =
+      new ConcurrentHashMap<>();
+
+  SlabStore(Builder builder) {
+    super(builder.converter, builder.singleThreaded);
+    this.slabSize = builder.slabSize;
+    this.allocator = new SlabAllocator(builder.slabSize,
+        (int) Math.max(1, builder.maxBytes / builder.slabSize)) {
+      @Override void evicted(Slot slot) {
+        remove(slot);
+      }
+    };
+  }
+
+  public static Builder builder(Converter converter) {
+    return new Builder(converter);
+  }
+
+  /**
+   * Get number of entries in the store.
+   */
+  public int count() {
+    return slots.size();
+  }
+
+  /**
+   * Bytes allocated off-heap for slabs.
+   */
+  public long offHeapBytes() {
+    return allocator.capacity();
+  }
+
+  /**
+   * Number of values evicted to make room for others.
+   */
+  public long evictions() {
+    return allocator.evictions();
+  }
+
+  /**
+   * Keys of type, sorted. Created for writes only, like in {@link MemoryStore}.
+   */
+  private ConcurrentSkipListMap<String, Slot> typeMap(String converterKey) {
+    ConcurrentSkipListMap<String, Slot> map = types.get(converterKey);
+    if (map == null) {
+      map = new ConcurrentSkipListMap<>();
+      ConcurrentSkipListMap<String, Slot> existing = types.putIfAbsent(converterKey, map);
+      if (existing != null) {
+        map = existing;
+      }
+    }
+    return map;
+  }
+
+  private ConcurrentNavigableMap<String, Slot> scanMap(String converterKey) {
+    if (converterKey == null || converterKey.length() == 0) {
+      return sorted;
+    }
+    ConcurrentSkipListMap<String, Slot> map = types.get(converterKey);
+    return map == null ? new ConcurrentSkipListMap<String, Slot>() : map;
+  }
+
+  /**
+   * Remove the slot from the maps, if its key was not set again.
+   */
+  private void remove(Slot slot) {
+    slots.remove(slot.key, slot);
+    sorted.remove(slot.key, slot);
+    typeMap(slot.type).remove(slot.key, slot);
+  }
+
+  /**
+   * Copy the value of a slot to the heap.
+   *
+   * @return value, null if the slot was freed.
+   */
+  private Value load(Slot slot) {
+    byte[] bytes = slot.read();
+    if (bytes == null) {
+      return null;
+    }
+    if (!slot.referenced) {
+      slot.referenced = true;
+    }
+    return value(slot.length < 0 ? null : bytes, slot.type);
+  }
+
+  @Override public void set(String key, Value value) {
+    byte[] bytes = value.bytes();
+    if (bytes != null && bytes.length > slabSize) {
+      throw new IllegalArgumentException("Value larger than slab size " + key);
+    }
+    lock(key);
+    try {
+      Slot slot = allocator.allocate(key, value.type(), bytes == null ? -1 : bytes.length);
+      if (bytes != null) {
+        slot.write(bytes);
+      }
+      Slot previous = slots.put(key, slot);
+      sorted.put(key, slot);
+      typeMap(slot.type).put(key, slot);
+      if (previous != null) {
+        if (!previous.type.equals(slot.type)) {
+          typeMap(previous.type).remove(key, previous);
+        }
+        allocator.free(previous);
+      }
+      if (slot.freed) {
+        //evicted before it was added.
+        remove(slot);
+      }
+    } finally {
+      unlock(key);
+    }
+  }
+
+  @Override public Class type(String key) {
+    Slot slot = slots.get(key);
+    return slot == null ? null : converterType(slot.type);
+  }
+
+  @Override public <T> T get(String key) {
+    Slot slot = slots.get(key);
+    Value value = slot == null ? null : load(slot);
+    return value == null ? null : this.<T>convert(value.bytes(), value.type());
+  }
+
+  @Override protected byte[] bytes(String key, String converterKey) {
+    Slot slot = slots.get(key);
+    if (slot == null || !slot.type.equals(converterKey)) {
+      return null;
+    }
+    Value value = load(slot);
+    return value == null ? null : value.bytes();
+  }
+
+  /**
+   * Clear store and return number of keys removed. Slabs stay allocated for later values.
+   */
+  @Override public int clear() {
+    int count = 0;
+    for (String key : slots.keySet()) {
+      if (delete(key)) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  @Override public boolean delete(String key) {
+    lock(key);
+    try {
+      Slot previous = slots.remove(key);
+      if (previous == null) {
+        return false;
+      }
+      sorted.remove(key, previous);
+      typeMap(previous.type).remove(key, previous);
+      allocator.free(previous);
+      return true;
+    } finally {
+      unlock(key);
+    }
+  }
+
+  @Override public boolean exists(String key) {
+    return slots.containsKey(key);
+  }
+
+  @Override protected <T> List<Entry<T>> entries(String converterKey) {
+    return list(this.<T>entries(converterKey, null, null, null, 0, -1));
+  }
+
+  @Override protected <T> List<Entry<T>> entriesKeyPrefix(String converterKey, String keyPrefix) {
+    return list(this.<T>entries(converterKey, keyPrefix, null, null, 0, -1));
+  }
+
+  @Override
+  protected <T> List<Entry<T>> entriesKeyContains(String converterKey, String keyContains) {
+    return list(this.<T>entries(converterKey, null, keyContains, null, 0, -1));
+  }
+
+  @Override protected List<String> keysType(String converterKey) {
+    return list(keys(converterKey, null, null, null, 0, -1));
+  }
+
+  @Override protected List<String> keysPrefixAny(String keyPrefix) {
+    return keysPrefix(null, keyPrefix);
+  }
+
+  @Override protected List<String> keysContainsAny(String keyContains) {
+    return keysContains(null, keyContains);
+  }
+
+  @Override protected List<String> keysPrefix(String converterKey, String keyPrefix) {
+    return list(keys(converterKey, keyPrefix, null, null, 0, -1));
+  }
+
+  @Override protected List<String> keysContains(String converterKey, String keyContains) {
+    return list(keys(converterKey, null, keyContains, null, 0, -1));
+  }
+
+  @Override protected <T> List<T> valuesType(String converterKey) {
+    return values(converterKey, null, null);
+  }
+
+  @Override protected List<Object> valuesPrefixAny(String keyPrefix) {
+    return valuesPrefix(null, keyPrefix);
+  }
+
+  @Override protected List<Object> valuesContainsAny(String keyContains) {
+    return valuesContains(null, keyContains);
+  }
+
+  @Override protected <T> List<T> valuesPrefix(String converterKey, String keyPrefix) {
+    return values(converterKey, keyPrefix, null);
+  }
+
+  @Override protected <T> List<T> valuesContains(String converterKey, String keyContains) {
+    return values(converterKey, null, keyContains);
+  }
+
+  @Override protected <T> CloseableIterator<Entry<T>> entriesIterator(Selection selection) {
+    return entries(selection.converterKey(), selection.keyPrefix(), selection.keyContains(),
+        selection.afterKey(), selection.offset(), selection.limit());
+  }
+
+  @Override protected CloseableIterator<String> keysIterator(Selection selection) {
+    return keys(selection.converterKey(), selection.keyPrefix(), selection.keyContains(),
+        selection.afterKey(), selection.offset(), selection.limit());
+  }
+
+  @Override protected <T> CloseableIterator<T> valuesIterator(Selection selection) {
+    return new MapScanIterator<Slot, T>(scanMap(selection.converterKey()), selection.keyPrefix(),
+        selection.keyContains(), selection.afterKey(), selection.offset(), selection.limit()) {
+      @Override protected T read(String key, Slot slot) {
+        Value value = load(slot);
+        if (value == null) {
+          missing();
+          return null;
+        }
+        return convert(value.bytes(), value.type());
+      }
+    };
+  }
+
+  private <T> CloseableIterator<Entry<T>> entries(String converterKey, String keyPrefix,
+      String keyContains, String afterKey, int offset, int limit) {
+    return new MapScanIterator<Slot, Entry<T>>(scanMap(converterKey), keyPrefix, keyContains,
+        afterKey, offset, limit) {
+      @Override protected Entry<T> read(String key, Slot slot) {
+        Value value = load(slot);
+        if (value == null) {
+          missing();
+          return null;
+        }
+        return SlabStore.this.entry(key, value.bytes(), value.type());
+      }
+    };
+  }
+
+  private CloseableIterator<String> keys(String converterKey, String keyPrefix,
+      String keyContains, String afterKey, int offset, int limit) {
+    return new MapScanIterator<Slot, String>(scanMap(converterKey), keyPrefix, keyContains,
+        afterKey, offset, limit) {
+      @Override protected String read(String key, Slot slot) {
+        return key;
+      }
+    };
+  }
+
+  /**
+   * Copy the values to the heap first and convert them with {@link #convertAll(List, List)}.
+   */
+  private <T> List<T> values(String converterKey, String keyPrefix, String keyContains) {
+    ArrayList<byte[]> bytes = new ArrayList<>();
+    ArrayList<String> converterKeys = new ArrayList<>();
+    CloseableIterator<Value> scan = new MapScanIterator<Slot, Value>(scanMap(converterKey),
+        keyPrefix, keyContains, null, 0, -1) {
+      @Override protected Value read(String key, Slot slot) {
+        Value value = load(slot);
+        if (value == null) {
+          missing();
+        }
+        return value;
+      }
+    };
+    while (scan.hasNext()) {
+      Value value = scan.next();
+      bytes.add(value.bytes());
+      converterKeys.add(value.type());
+    }
+    return convertAll(bytes, converterKeys);
+  }
+
+  private static <T> List<T> list(CloseableIterator<T> iterator) {
+    ArrayList<T> list = new ArrayList<>();
+    try {
+      while (iterator.hasNext()) {
+        list.add(iterator.next());
+      }
+    } finally {
+      iterator.close();
+    }
+    return list;
+  }
+
+  public static class Builder {
+
+    final Converter converter;
+    int slabSize = 1024 * 1024;
+    long maxBytes = 64L * 1024 * 1024;
+    boolean singleThreaded;
+
+    Builder(Converter converter) {
+      this.converter = converter;
+    }
+
+    /**
+     * Size of a slab in bytes, default 1 MiB. Larger values cannot be stored.
+     */
+    public Builder slabSize(int slabSize) {
+      if (slabSize < 1024) {
+        throw new IllegalArgumentException("Slab size must be at least 1024 bytes");
+      }
+      this.slabSize = slabSize;
+      return this;
+    }
+
+    /**
+     * Maximum bytes of all slabs, default 64 MiB. Values are evicted once all are allocated.
+     */
+    public Builder maxBytes(long maxBytes) {
+      if (maxBytes <= 0) {
+        throw new IllegalArgumentException("Max bytes must be positive");
+      }
+      this.maxBytes = maxBytes;
+      return this;
+    }
+
+    /**
+     * True if the store is only accessed from one thread, key locks are skipped.
+     */
+    public Builder singleThreaded(boolean singleThreaded) {
+      this.singleThreaded = singleThreaded;
+      return this;
+    }
+
+    public SlabStore build() {
+      return new SlabStore(this);
+    }
+  }
+}
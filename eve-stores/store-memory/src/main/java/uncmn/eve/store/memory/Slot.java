@@ -0,0 +1,76 @@
+package uncmn.eve.store.memory;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Location of the value of a key: its slab, chunk and length.
+ * <p>Null and empty values have no slab. A slot is freed when its key is deleted, set again or
+ * evicted, reads of a freed slot return null.</p>
+ */
+final class Slot {
+
+  final String key;
+  final String type;
+  final Slab slab;
+  final int chunk;
+  /**
+   * Value length, -1 for a null value.
+   */
+  final int length;
+  /**
+   * Set on reads, cleared by the eviction clock.
+   */
+  volatile boolean referenced = true;
+  volatile boolean freed;
+
+  Slot(String key, String type, Slab slab, int chunk, int length) {
+    this.key = key;
+    this.type = type;
+    this.slab = slab;
+    this.chunk = chunk;
+    this.length = length;
+  }
+
+  /**
+   * Copy value into the chunk, unless the slot was evicted before.
+   */
+  void write(byte[] value) {
+    if (slab == null) {
+      return;
+    }
+    slab.lock.writeLock().lock();
+    try {
+      if (!freed) {
+        ByteBuffer writer = slab.buffer.duplicate();
+        writer.position(chunk * slab.chunkSize);
+        writer.put(value);
+      }
+    } finally {
+      slab.lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Copy the value to the heap, a null value is read as empty.
+   *
+   * @return value bytes, null if the slot was freed.
+   */
+  byte[] read() {
+    if (slab == null) {
+      return freed ? null : new byte[0];
+    }
+    slab.lock.readLock().lock();
+    try {
+      if (freed) {
+        return null;
+      }
+      ByteBuffer reader = slab.buffer.duplicate();
+      reader.position(chunk * slab.chunkSize);
+      byte[] value = new byte[length];
+      reader.get(value);
+      return value;
+    } finally {
+      slab.lock.readLock().unlock();
+    }
+  }
+}
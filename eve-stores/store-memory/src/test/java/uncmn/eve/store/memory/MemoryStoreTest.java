@@ -0,0 +1,12 @@
+package uncmn.eve.store.memory;
+
+import uncmn.eve.Store;
+import uncmn.eve.store.testing.StoreContract;
+import uncmn.eve.store.testing.TestConverter;
+
+public class MemoryStoreTest extends StoreContract {
+
+  @Override protected Store newStore() {
+    return MemoryStore.create(new TestConverter());
+  }
+}
@@ -0,0 +1,121 @@
+package uncmn.eve.store.memory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Test;
+import uncmn.eve.Store;
+import uncmn.eve.store.testing.StoreContract;
+import uncmn.eve.store.testing.TestConverter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SlabStoreTest extends StoreContract {
+
+  private static SlabStore store(long maxBytes) {
+    return SlabStore.builder(new TestConverter()).slabSize(1024).maxBytes(maxBytes).build();
+  }
+
+  @Override protected Store newStore() {
+    return store(64 * 1024);
+  }
+
+  @Test public void keepsEverythingBelowMaxBytes() {
+    SlabStore store = store(64 * 1024);
+    store.set("a1", 1);
+    store.set("b1", "one");
+    store.set("b2", 2L);
+    store.set("b1", "uno");
+
+    assertEquals("uno", store.<String>get("b1"));
+    assertEquals(3, store.count());
+    assertEquals(0, store.evictions());
+  }
+
+  @Test public void evictsToStayWithinMaxBytes() {
+    SlabStore store = store(4 * 1024);
+    for (int i = 0; i < 500; i++) {
+      store.set("key" + i, "value of key " + i);
+    }
+
+    assertTrue(store.evictions() > 0);
+    assertTrue(store.count() < 500);
+    assertTrue(store.offHeapBytes() <= 4 * 1024);
+    assertEquals("value of key 499", store.<String>get("key499"));
+    List<String> keys = store.query().keyPrefix("key").anyType().keys();
+    assertEquals(store.count(), keys.size());
+    for (String key : keys) {
+      assertEquals("value of " + key.replace("key", "key "), store.<String>get(key));
+    }
+  }
+
+  @Test public void rejectsValuesLargerThanSlab() {
+    SlabStore store = store(4 * 1024);
+    try {
+      store.set("large", new byte[2048]);
+      fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException expected) {
+      assertFalse(store.exists("large"));
+    }
+  }
+
+  private static String value(String key, int length) {
+    StringBuilder value = new StringBuilder(key).append(':');
+    while (value.length() < length) {
+      value.append('x');
+    }
+    return value.toString();
+  }
+
+  /**
+   * Readers race a writer whose values of changing sizes evict chunks and move slabs between
+   * size classes, a read sees the value of its key or nothing.
+   */
+  @Test public void readsDuringEvictionSeeOwnValueOrNull() throws InterruptedException {
+    final SlabStore store = store(4 * 1024);
+    final AtomicBoolean done = new AtomicBoolean();
+    final AtomicReference<Throwable> failure = new AtomicReference<>();
+    List<Thread> readers = new ArrayList<>();
+    for (int t = 0; t < 4; t++) {
+      readers.add(new Thread(new Runnable() {
+        @Override public void run() {
+          try {
+            while (!done.get()) {
+              for (int i = 0; i < 64; i++) {
+                String key = "key" + i;
+                String value = store.get(key);
+                if (value != null && !value.startsWith(key + ":")) {
+                  throw new AssertionError(key + " read " + value);
+                }
+              }
+            }
+          } catch (Throwable e) {
+            failure.compareAndSet(null, e);
+          }
+        }
+      }));
+    }
+    for (Thread reader : readers) {
+      reader.start();
+    }
+    int[] lengths = { 20, 200, 60, 700, 120, 400 };
+    for (int round = 0; round < 300 && failure.get() == null; round++) {
+      for (int i = 0; i < 64; i++) {
+        store.set("key" + i, value("key" + i, lengths[(round + i) % lengths.length]));
+      }
+    }
+    done.set(true);
+    for (Thread reader : readers) {
+      reader.join();
+    }
+
+    if (failure.get() != null) {
+      throw new AssertionError(failure.get());
+    }
+    assertTrue(store.evictions() > 0);
+  }
+}
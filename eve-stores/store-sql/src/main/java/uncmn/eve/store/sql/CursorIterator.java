@@ -0,0 +1,58 @@
+package uncmn.eve.store.sql;
+
+import android.database.Cursor;
+import java.util.NoSuchElementException;
+import uncmn.eve.CloseableIterator;
+
+/**
+ * A {@link CloseableIterator} that reads one element per row of a {@link Cursor}.
+ * <p>The cursor is closed when the last row was read or the iterator is closed.</p>
+ *
+ * @param <T> element type.
+ */
+abstract class CursorIterator<T> implements CloseableIterator<T> {
+
+  private final Cursor cursor;
+  private boolean advanced = false;
+  private boolean hasRow = false;
+
+  CursorIterator(Cursor cursor) {
+    this.cursor = cursor;
+  }
+
+  /**
+   * Read the element of the current row.
+   */
+  abstract T read(Cursor cursor);
+
+  @Override public boolean hasNext() {
+    if (!advanced) {
+      hasRow = cursor != null && !cursor.isClosed() && cursor.moveToNext();
+      advanced = true;
+      if (!hasRow) {
+        close();
+      }
+    }
+    return hasRow;
+  }
+
+  @Override public T next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    advanced = false;
+    return read(cursor);
+  }
+
+  @Override public void remove() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override public void close() {
+    hasRow = false;
+    advanced = true;
+    if (cursor != null && !cursor.isClosed()) {
+      cursor.close();
+    }
+  }
+}
@@ -0,0 +1,145 @@
+package uncmn.eve.store.sql;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * An immutable sorted array of keys, front coded in blocks.
+ * <p>Keys are stored as UTF-8 in blocks of {@link #BLOCK} keys. The first key of a block is
+ * stored whole, every other key as the length of the prefix it shares with the previous key and
+ * the remaining bytes. Lookups binary search the first keys of the blocks and decode a single
+ * block, so a key costs a few bytes beyond its distinct suffix.</p>
+ */
+final class FrontCodedKeys {
+
+  static final int BLOCK = 16;
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+  static final FrontCodedKeys EMPTY = new FrontCodedKeys(new byte[0], new int[0], 0);
+
+  private final byte[] data;
+  private final int[] blocks;
+  private final int size;
+
+  private FrontCodedKeys(byte[] data, int[] blocks, int size) {
+    this.data = data;
+    this.blocks = blocks;
+    this.size = size;
+  }
+
+  /**
+   * @param keys keys sorted in the order of the index.
+   */
+  static FrontCodedKeys of(List<String> keys) {
+    if (keys.isEmpty()) {
+      return EMPTY;
+    }
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    int[] blocks = new int[(keys.size() + BLOCK - 1) / BLOCK];
+    byte[] previous = null;
+    for (int i = 0; i < keys.size(); i++) {
+      byte[] key = keys.get(i).getBytes(UTF_8);
+      int shared = 0;
+      if (i % BLOCK == 0) {
+        blocks[i / BLOCK] = out.size();
+      } else {
+        int max = Math.min(previous.length, key.length);
+        while (shared < max && previous[shared] == key[shared]) {
+          shared++;
+        }
+      }
+      writeVarInt(out, shared);
+      writeVarInt(out, key.length - shared);
+      out.write(key, shared, key.length - shared);
+      previous = key;
+    }
+    return new FrontCodedKeys(out.toByteArray(), blocks, keys.size());
+  }
+
+  int size() {
+    return size;
+  }
+
+  /**
+   * Decode the keys of a block.
+   */
+  String[] block(int block) {
+    int count = Math.min(BLOCK, size - block * BLOCK);
+    String[] keys = new String[count];
+    int[] position = { blocks[block] };
+    byte[] key = new byte[0];
+    for (int i = 0; i < count; i++) {
+      int shared = readVarInt(position);
+      int suffix = readVarInt(position);
+      key = Arrays.copyOf(key, shared + suffix);
+      System.arraycopy(data, position[0], key, shared, suffix);
+      position[0] += suffix;
+      keys[i] = new String(key, UTF_8);
+    }
+    return keys;
+  }
+
+  int blockCount() {
+    return blocks.length;
+  }
+
+  /**
+   * First key of a block, without decoding the others.
+   */
+  private String first(int block) {
+    int[] position = { blocks[block] };
+    readVarInt(position);
+    int length = readVarInt(position);
+    return new String(data, position[0], length, UTF_8);
+  }
+
+  /**
+   * Index of the first key not smaller than key.
+   */
+  int lowerBound(String key, Comparator<String> order) {
+    //last block with a first key smaller than key.
+    int low = 0;
+    int high = blocks.length - 1;
+    int block = -1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      if (order.compare(first(middle), key) < 0) {
+        block = middle;
+        low = middle + 1;
+      } else {
+        high = middle - 1;
+      }
+    }
+    if (block < 0) {
+      return 0;
+    }
+    String[] keys = block(block);
+    int index = 0;
+    while (index < keys.length && order.compare(keys[index], key) < 0) {
+      index++;
+    }
+    return block * BLOCK + index;
+  }
+
+  private static void writeVarInt(ByteArrayOutputStream out, int value) {
+    while ((value & ~0x7f) != 0) {
+      out.write((value & 0x7f) | 0x80);
+      value >>>= 7;
+    }
+    out.write(value);
+  }
+
+  private int readVarInt(int[] position) {
+    int value = 0;
+    int shift = 0;
+    byte b;
+    do {
+      b = data[position[0]++];
+      value |= (b & 0x7f) << shift;
+      shift += 7;
+    } while ((b & 0x80) != 0);
+    return value;
+  }
+}
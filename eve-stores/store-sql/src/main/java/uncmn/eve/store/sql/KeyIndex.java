@@ -0,0 +1,253 @@
+package uncmn.eve.store.sql;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Keys of the store grouped by type and held in memory, to answer key queries without Sqlite.
+ * <p>Keys of a type are a {@link FrontCodedKeys} array loaded at open, and a small delta of keys
+ * added and removed since, merged into a new array once it grows. Keys are ordered ASCII case
+ * insensitive first, so keys with a prefix are a range whether or not case is ignored.</p>
+ * <p>The type of each key is also held in a hash map, so {@link #contains(String)} and
+ * {@link #type(String)} look up one key instead of the keys of every type.</p>
+ * <p>All methods are synchronized, writers update the index after Sqlite.</p>
+ */
+final class KeyIndex {
+
+  private static final int MIN_DELTA = 256;
+
+  /**
+   * ASCII case insensitive order, ties ordered by {@link String#compareTo(String)}.
+   */
+  static final Comparator<String> ORDER = new Comparator<String>() {
+    @Override public int compare(String lhs, String rhs) {
+      int length = Math.min(lhs.length(), rhs.length());
+      for (int i = 0; i < length; i++) {
+        int compare = fold(lhs.charAt(i)) - fold(rhs.charAt(i));
+        if (compare != 0) {
+          return compare;
+        }
+      }
+      int compare = lhs.length() - rhs.length();
+      return compare != 0 ? compare : lhs.compareTo(rhs);
+    }
+  };
+
+  private final Map<String, TypeKeys> types = new HashMap<>();
+  /**
+   * Type of each key, null for keys without a type.
+   */
+  private final Map<String, String> keyTypes = new HashMap<>();
+
+  /**
+   * @param keys keys of each type.
+   */
+  KeyIndex(Map<String, List<String>> keys) {
+    for (Map.Entry<String, List<String>> type : keys.entrySet()) {
+      List<String> sorted = type.getValue();
+      for (String key : sorted) {
+        keyTypes.put(key, type.getKey());
+      }
+      Collections.sort(sorted, ORDER);
+      types.put(type.getKey(), new TypeKeys(FrontCodedKeys.of(sorted)));
+    }
+  }
+
+  /**
+   * Keys of one type.
+   */
+  private static final class TypeKeys {
+
+    FrontCodedKeys base;
+    final TreeSet<String> added = new TreeSet<>(ORDER);
+    final HashSet<String> removed = new HashSet<>();
+
+    TypeKeys(FrontCodedKeys base) {
+      this.base = base;
+    }
+
+    void add(String key) {
+      if (!removed.remove(key)) {
+        added.add(key);
+      }
+      mergeIfLarge();
+    }
+
+    void remove(String key) {
+      if (!added.remove(key)) {
+        removed.add(key);
+      }
+      mergeIfLarge();
+    }
+
+    int size() {
+      return base.size() - removed.size() + added.size();
+    }
+
+    private void mergeIfLarge() {
+      if (added.size() + removed.size() > Math.max(MIN_DELTA, base.size() / 8)) {
+        merge();
+      }
+    }
+
+    private void merge() {
+      List<String> keys = new ArrayList<>(size());
+      collect(null, null, keys);
+      Collections.sort(keys, ORDER);
+      base = FrontCodedKeys.of(keys);
+      added.clear();
+      removed.clear();
+    }
+
+    /**
+     * Add keys with a prefix, case sensitive, and containing a string, ASCII case insensitive.
+     *
+     * @param prefix null for any key.
+     * @param contains null for any key.
+     */
+    void collect(String prefix, String contains, List<String> keys) {
+      String from = prefix == null ? null : upper(prefix);
+      String[] block = null;
+      int index = from == null ? 0 : base.lowerBound(from, ORDER);
+      for (; index < base.size(); index++) {
+        if (index % FrontCodedKeys.BLOCK == 0 || block == null) {
+          block = base.block(index / FrontCodedKeys.BLOCK);
+        }
+        String key = block[index % FrontCodedKeys.BLOCK];
+        if (prefix != null && !startsWithIgnoreCase(key, prefix)) {
+          break;
+        }
+        if (!removed.contains(key) && matches(key, prefix, contains)) {
+          keys.add(key);
+        }
+      }
+      Iterator<String> delta = from == null ? added.iterator()
+          : added.tailSet(from, true).iterator();
+      while (delta.hasNext()) {
+        String key = delta.next();
+        if (prefix != null && !startsWithIgnoreCase(key, prefix)) {
+          break;
+        }
+        if (matches(key, prefix, contains)) {
+          keys.add(key);
+        }
+      }
+    }
+  }
+
+  /**
+   * Keys with the prefix, ignoring case, are a range; the prefix must then match exactly.
+   */
+  private static boolean matches(String key, String prefix, String contains) {
+    return (prefix == null || key.startsWith(prefix))
+        && (contains == null || containsIgnoreCase(key, contains));
+  }
+
+  synchronized boolean contains(String key) {
+    return keyTypes.containsKey(key);
+  }
+
+  /**
+   * Type of key, null if key does not exist or has no type.
+   */
+  synchronized String type(String key) {
+    return keyTypes.get(key);
+  }
+
+  synchronized void put(String key, String type) {
+    boolean existed = keyTypes.containsKey(key);
+    String previous = keyTypes.put(key, type);
+    if (existed) {
+      if (type.equals(previous)) {
+        return;
+      }
+      types.get(previous).remove(key);
+    }
+    TypeKeys keys = types.get(type);
+    if (keys == null) {
+      keys = new TypeKeys(FrontCodedKeys.EMPTY);
+      types.put(type, keys);
+    }
+    keys.add(key);
+  }
+
+  synchronized void remove(String key) {
+    if (keyTypes.containsKey(key)) {
+      types.get(keyTypes.remove(key)).remove(key);
+    }
+  }
+
+  synchronized void clear() {
+    types.clear();
+    keyTypes.clear();
+  }
+
+  /**
+   * Keys of a type with a prefix and containing a string, matched like {@link ValueQuery}: the
+   * prefix case sensitive, contains ASCII case insensitive. Keys are not sorted.
+   *
+   * @param type converter key, null or empty for any type.
+   * @param prefix null for any key.
+   * @param contains null for any key.
+   */
+  synchronized List<String> keys(String type, String prefix, String contains) {
+    List<String> keys = new ArrayList<>();
+    if (type == null || type.length() == 0) {
+      for (TypeKeys typeKeys : types.values()) {
+        typeKeys.collect(prefix, contains, keys);
+      }
+    } else if (types.containsKey(type)) {
+      types.get(type).collect(prefix, contains, keys);
+    }
+    return keys;
+  }
+
+  static char fold(char c) {
+    return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+  }
+
+  private static String upper(String key) {
+    char[] chars = key.toCharArray();
+    for (int i = 0; i < chars.length; i++) {
+      if (chars[i] >= 'a' && chars[i] <= 'z') {
+        chars[i] = (char) (chars[i] - ('a' - 'A'));
+      }
+    }
+    return new String(chars);
+  }
+
+  static boolean startsWithIgnoreCase(String key, String prefix) {
+    return matches(key, 0, prefix);
+  }
+
+  static boolean containsIgnoreCase(String key, String part) {
+    for (int start = 0; start + part.length() <= key.length(); start++) {
+      if (matches(key, start, part)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * True if key has part at start, ASCII case insensitive.
+   */
+  private static boolean matches(String key, int start, String part) {
+    if (start + part.length() > key.length()) {
+      return false;
+    }
+    for (int i = 0; i < part.length(); i++) {
+      if (fold(key.charAt(start + i)) != fold(part.charAt(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
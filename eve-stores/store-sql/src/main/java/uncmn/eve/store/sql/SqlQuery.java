@@ -26,6 +26,7 @@ class SqlQuery {
   private boolean distinct = true;
   private String orderBy = null;
   private int limit = -1;
+  private int offset = 0;
 
   /**
    * Reset any internal state, allowing this builder to be recycled.
@@ -34,6 +35,9 @@ class SqlQuery {
     table = null;
     groupBy = null;
     having = null;
+    orderBy = null;
+    limit = -1;
+    offset = 0;
     selection.setLength(0);
     selectionArgs.clear();
     return this;
@@ -133,6 +137,11 @@ class SqlQuery {
     return this;
   }
 
+  public SqlQuery offset(int offset) {
+    this.offset = offset;
+    return this;
+  }
+
   /**
    * Return selection string for current internal state.
    *
@@ -160,8 +169,42 @@ class SqlQuery {
     }
   }
 
+  /**
+   * Complete statement: projection, selection, order and limit.
+   */
   public String sql() {
-    return baseQuery().append(" WHERE ").append(getSelection()).toString();
+    StringBuilder sql = baseQuery();
+    if (selection.length() > 0) {
+      sql.append(" WHERE ").append(getSelection());
+    }
+
+    if (orderBy != null) {
+      sql.append(" ORDER BY ").append(orderBy);
+    }
+
+    if (limit != -1 || offset > 0) {
+      sql.append(" LIMIT ").append(limit);
+    }
+
+    if (offset > 0) {
+      sql.append(" OFFSET ").append(offset);
+    }
+    return sql.toString();
+  }
+
+  /**
+   * Statement counting the rows of {@link #sql()}, without reading the projection when no
+   * order or limit applies.
+   */
+  public String countSql() {
+    if (orderBy != null || limit != -1 || offset > 0) {
+      return "SELECT count(*) FROM (" + sql() + ")";
+    }
+    StringBuilder sql = new StringBuilder("SELECT count(*) FROM ").append(table);
+    if (selection.length() > 0) {
+      sql.append(" WHERE ").append(getSelection());
+    }
+    return sql.toString();
   }
 
   public String[] args() {
@@ -179,15 +222,6 @@ class SqlQuery {
       projection.append(c);
     }
     sql.append("SELECT ").append(projection.toString()).append(" FROM ").append(table);
-
-    if (orderBy != null) {
-      sql.append(" ORDERBY ").append(orderBy);
-    }
-
-    if (limit != -1) {
-      sql.append(" LIMIT ").append(limit);
-    }
-
     return sql;
   }
 
@@ -217,6 +251,8 @@ class SqlQuery {
         + '\''
         + ", limit="
         + limit
+        + ", offset="
+        + offset
         + '}';
   }
 }
@@ -1,32 +1,65 @@
 package uncmn.eve.store.sql;
 
-import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteDoneException;
+import android.database.sqlite.SQLiteStatement;
 import com.squareup.sqlbrite.BriteDatabase;
 import com.squareup.sqlbrite.SqlBrite;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import rx.schedulers.Schedulers;
+import uncmn.eve.CloseableIterator;
 import uncmn.eve.Converter;
 import uncmn.eve.Entry;
+import uncmn.eve.Selection;
 import uncmn.eve.Store;
 import uncmn.eve.Value;
+import uncmn.eve.WriteBatch;
 
 /**
  * An implementation of {@link Store} with Sqlite operations.
+ * <p>With {@link Builder#keyIndex(boolean)} all keys are also held in a {@link KeyIndex}, which
+ * answers key queries, {@link #exists(String)} and {@link #type(String)} without Sqlite. With
+ * {@link Builder#trigramIndex(boolean)} key contains filters are answered by a
+ * {@link TrigramIndex}, rows of the matching keys are then read by key.</p>
+ * <p>The database is in write-ahead logging mode, the framework then keeps a pool of connections
+ * that run read-only statements in parallel with each other and with the writer. The pool is
+ * owned and closed by the framework.</p>
+ * <p>Rows hold the id of their type, {@link TypeIds} resolves the names of ids in memory.</p>
  */
 public class SqlStore extends Store {
 
   BriteDatabase db;
   String dbPath;
   String dbName;
+  /**
+   * Keys in memory, null if not enabled.
+   */
+  final KeyIndex keyIndex;
+  /**
+   * Trigrams of keys, null if not enabled.
+   */
+  final TrigramIndex trigramIndex;
+  /**
+   * Held by writers while they write Sqlite and the indexes, so both see writes in one order.
+   * Sqlite is written first, the indexes only change once the write succeeded.
+   */
+  private final Object indexLock = new Object();
+  private final StatementPool inserts;
+  private final StatementPool deletes;
+  private final StatementPool selectType;
+  private final StatementPool selectExists;
+  private final TypeIds typeIds;
 
-  SqlStore(Context context, Converter converter) {
-    super(converter);
+  SqlStore(Builder builder) {
+    super(builder.converter, builder.singleThreaded);
 
-    SqlStoreOpenHelper openHelper = new SqlStoreOpenHelper(context);
+    SqlStoreOpenHelper openHelper = new SqlStoreOpenHelper(builder.context);
+    openHelper.setWriteAheadLoggingEnabled(true);
 
     db = SqlBrite.create(new SqlBrite.Logger() {
       @Override public void log(String message) {
@@ -35,10 +68,118 @@ public class SqlStore extends Store {
     }).wrapDatabaseHelper(openHelper, Schedulers.io());
     this.dbPath = openHelper.getReadableDatabase().getPath();
     this.dbName = openHelper.getDatabaseName();
+    SQLiteDatabase database = db.getWritableDatabase();
+    this.inserts = new StatementPool(database, ValueQuery.INSERT_OR_REPLACE);
+    this.deletes = new StatementPool(database, ValueQuery.DELETE_KEY);
+    this.selectType = new StatementPool(database, ValueQuery.SELECT_TYPE);
+    this.selectExists = new StatementPool(database, ValueQuery.SELECT_EXISTS);
+    this.typeIds = new TypeIds(database);
+    Map<String, List<String>> keys =
+        builder.keyIndex || builder.trigramIndex ? loadKeys() : null;
+    this.trigramIndex = builder.trigramIndex ? new TrigramIndex(keys) : null;
+    this.keyIndex = builder.keyIndex ? new KeyIndex(keys) : null;
   }
 
   public static SqlStore create(Context context, Converter converter) {
-    return new SqlStore(context, converter);
+    return builder(context, converter).build();
+  }
+
+  /**
+   * @param singleThreaded true if the store is only accessed from one thread, locking is skipped.
+   */
+  public static SqlStore create(Context context, Converter converter, boolean singleThreaded) {
+    return builder(context, converter).singleThreaded(singleThreaded).build();
+  }
+
+  public static Builder builder(Context context, Converter converter) {
+    return new Builder(context, converter);
+  }
+
+  /**
+   * Read all keys and their types.
+   */
+  private Map<String, List<String>> loadKeys() {
+    Map<String, List<String>> keys = new HashMap<>();
+    Cursor cursor = db.query(ValueQuery.SELECT_KEY_AND_TYPE);
+    try {
+      if (cursor != null) {
+        while (cursor.moveToNext()) {
+          String type = typeIds.name(cursor.getInt(1));
+          List<String> typeKeys = keys.get(type);
+          if (typeKeys == null) {
+            typeKeys = new ArrayList<>();
+            keys.put(type, typeKeys);
+          }
+          typeKeys.add(cursor.getString(0));
+        }
+      }
+    } finally {
+      if (cursor != null) {
+        cursor.close();
+      }
+    }
+    return keys;
+  }
+
+  private boolean indexed() {
+    return keyIndex != null || trigramIndex != null;
+  }
+
+  private void indexPut(String key, String type) {
+    if (keyIndex != null) {
+      keyIndex.put(key, type);
+    }
+    if (trigramIndex != null) {
+      trigramIndex.put(key, type);
+    }
+  }
+
+  private void indexRemove(String key) {
+    if (keyIndex != null) {
+      keyIndex.remove(key);
+    }
+    if (trigramIndex != null) {
+      trigramIndex.remove(key);
+    }
+  }
+
+  /**
+   * Keys of a type containing a string from the indexes.
+   *
+   * @return matching keys, null if no index can answer the filter.
+   */
+  private List<String> containsKeys(String converterKey, String keyContains) {
+    List<String> keys = null;
+    if (trigramIndex != null) {
+      keys = trigramIndex.keys(converterKey, keyContains);
+    }
+    if (keys == null && keyIndex != null) {
+      keys = keyIndex.keys(converterKey, null, keyContains);
+    }
+    return keys;
+  }
+
+  /**
+   * Queries of the rows of keys, in chunks of at most {@link ValueQuery#MAX_KEYS} keys.
+   */
+  private List<ValueQuery> keysQueries(String converterKey, List<String> keys) {
+    List<ValueQuery> queries = new ArrayList<>();
+    for (int from = 0; from < keys.size(); from += ValueQuery.MAX_KEYS) {
+      List<String> chunk = keys.subList(from, Math.min(keys.size(), from + ValueQuery.MAX_KEYS));
+      ValueQuery query = ValueQuery.queryBuilder().keyIn(chunk);
+      if (converterKey != null && converterKey.length() > 0) {
+        query.type(typeIds.find(converterKey));
+      }
+      queries.add(query);
+    }
+    return queries;
+  }
+
+  /**
+   * Type name of the current row of a cursor.
+   */
+  private String typeOf(Cursor cursor) {
+    return typeIds.name(cursor.getInt(cursor.getColumnIndexOrThrow(ValueQuery.TYPE_ID)));
   }
 
   /**
@@ -77,66 +218,149 @@ public class SqlStore extends Store {
   }
 
   @Override public void set(String key, Value value) {
-    ValueQuery query = ValueQuery.queryBuilder().key(key);
+    if (!indexed()) {
+      insert(key, value);
+      return;
+    }
+    synchronized (indexLock) {
+      insert(key, value);
+      indexPut(key, value.type());
+    }
+  }
 
-    final String sql = query.sql();
-    final String[] args = query.args();
+  /**
+   * Insert or replace the row of key with one compiled statement.
+   */
+  private void insert(String key, Value value) {
+    int typeId = typeIds.id(value.type());
+    SQLiteStatement insert = inserts.acquire();
+    try {
+      ValueQuery.bindInsert(insert, key, typeId, value);
+      insert.executeInsert();
+    } finally {
+      inserts.release(insert);
+    }
+  }
 
-    Cursor cursor = db.query(sql, args);
-    ContentValues contentValues = ValueQuery.contentValues(key, value);
+  /**
+   * Commit all writes of the batch in a single transaction, reusing one pooled statement for
+   * all inserts and one for all deletes.
+   */
+  @Override protected void write(WriteBatch batch) {
+    List<WriteBatch.Write> writes = batch.writes();
+    if (writes.isEmpty()) {
+      return;
+    }
+    if (!indexed()) {
+      commit(writes);
+      return;
+    }
+    synchronized (indexLock) {
+      commit(writes);
+      for (WriteBatch.Write write : writes) {
+        if (write.isDelete()) {
+          indexRemove(write.key());
+        } else {
+          indexPut(write.key(), write.value().type());
+        }
+      }
+    }
+  }
+
+  private void commit(List<WriteBatch.Write> writes) {
+    //types are added before the transaction, which may roll back.
+    int[] typeIds = new int[writes.size()];
+    for (int i = 0; i < writes.size(); i++) {
+      WriteBatch.Write write = writes.get(i);
+      typeIds[i] = write.isDelete() ? TypeIds.NONE : this.typeIds.id(write.value().type());
+    }
+    SQLiteStatement insert = null;
+    SQLiteStatement delete = null;
+    BriteDatabase.Transaction transaction = db.newTransaction();
     try {
-      if (cursor != null && cursor.getCount() > 0) {
-        db.update(ValueQuery.TABLE, contentValues, SQLiteDatabase.CONFLICT_REPLACE,
-            ValueQuery.WHERE_KEY, args);
-      } else {
-        db.insert(ValueQuery.TABLE, contentValues, SQLiteDatabase.CONFLICT_REPLACE);
+      for (int i = 0; i < writes.size(); i++) {
+        WriteBatch.Write write = writes.get(i);
+        if (write.isDelete()) {
+          if (delete == null) {
+            delete = deletes.acquire();
+          }
+          delete.bindString(1, write.key());
+          delete.executeUpdateDelete();
+        } else {
+          if (insert == null) {
+            insert = inserts.acquire();
+          }
+          ValueQuery.bindInsert(insert, write.key(), typeIds[i], write.value());
+          insert.executeInsert();
+        }
       }
+      transaction.markSuccessful();
     } finally {
-      if (cursor != null) {
-        cursor.close();
+      transaction.end();
+      if (insert != null) {
+        inserts.release(insert);
+      }
+      if (delete != null) {
+        deletes.release(delete);
       }
     }
   }
 
+  /**
+   * Read the type with a pooled statement, no query is built.
+   */
   @Override public Class type(String key) {
-    ValueQuery query = ValueQuery.queryBuilder().key(key);
+    if (keyIndex != null) {
+      return converterType(keyIndex.type(key));
+    }
+    SQLiteStatement statement = selectType.acquire();
+    int typeId;
+    try {
+      statement.bindString(1, key);
+      typeId = (int) statement.simpleQueryForLong();
+    } catch (SQLiteDoneException e) {
+      typeId = TypeIds.NONE;
+    } finally {
+      selectType.release(statement);
+    }
+    return converterType(typeIds.name(typeId));
+  }
 
-    final String sql = query.sql();
-    final String[] args = query.args();
-    String type = null;
-    Cursor cursor = db.query(sql, args);
+  /**
+   * Read type and value with constant SQL and fixed columns, statements cannot read blobs.
+   */
+  @Override @SuppressWarnings("unchecked") public <T> T get(String key) {
+    Cursor cursor = db.query(ValueQuery.SELECT_TYPE_AND_VALUE, key);
     try {
-      if (cursor != null && cursor.getCount() > 0) {
-        cursor.moveToFirst();
-        type = cursor.getString(cursor.getColumnIndexOrThrow(ValueQuery.TYPE));
+      if (cursor != null && cursor.moveToFirst()) {
+        return (T) convert(cursor.getBlob(1), typeIds.name(cursor.getInt(0)));
       }
     } finally {
       if (cursor != null) {
         cursor.close();
       }
     }
-    return converterType(type);
+    return null;
   }
 
-  @Override @SuppressWarnings("unchecked") public <T> T get(String key) {
-    ValueQuery query = ValueQuery.queryBuilder().key(key);
-    final String sql = query.sql();
-    final String[] args = query.args();
-
-    Cursor cursor = db.query(sql, args);
+  /**
+   * Read only the value column of key, filtered by type in the same statement.
+   */
+  @Override protected byte[] bytes(String key, String converterKey) {
+    int typeId = typeIds.find(converterKey);
+    if (typeId == TypeIds.NONE) {
+      return null;
+    }
+    Cursor cursor = db.query(ValueQuery.SELECT_VALUE_OF_TYPE, key, String.valueOf(typeId));
     try {
-      if (cursor != null && cursor.getCount() > 0) {
-        cursor.moveToFirst();
-        String type = cursor.getString(cursor.getColumnIndexOrThrow(ValueQuery.TYPE));
-        byte[] value = cursor.getBlob(cursor.getColumnIndexOrThrow(ValueQuery.VALUE));
-        return (T) convert(value, type);
+      if (cursor != null && cursor.moveToFirst()) {
+        return cursor.getBlob(0);
       }
     } finally {
       if (cursor != null) {
         cursor.close();
       }
     }
-
     return null;
   }
 
@@ -144,54 +368,78 @@ public class SqlStore extends Store {
    * Clear database and return number of rows deleted.
    */
   @Override public int clear() {
-    return db.delete(ValueQuery.TABLE, null);
+    if (!indexed()) {
+      return db.delete(ValueQuery.TABLE, null);
+    }
+    synchronized (indexLock) {
+      int count = db.delete(ValueQuery.TABLE, null);
+      if (keyIndex != null) {
+        keyIndex.clear();
+      }
+      if (trigramIndex != null) {
+        trigramIndex.clear();
+      }
+      return count;
+    }
   }
 
   @Override public boolean delete(String key) {
-    ValueQuery query = ValueQuery.queryBuilder().key(key);
+    if (!indexed()) {
+      return deleteRow(key);
+    }
+    synchronized (indexLock) {
+      if (keyIndex != null ? !keyIndex.contains(key) : !trigramIndex.contains(key)) {
+        return false;
+      }
+      //a failed delete throws and leaves the key indexed, like its row.
+      boolean deleted = deleteRow(key);
+      indexRemove(key);
+      return deleted;
+    }
+  }
 
-    final String sql = query.sql();
-    final String[] args = query.args();
-    Cursor cursor = db.query(sql, args);
+  /**
+   * Delete the row of key with one compiled statement.
+   *
+   * @return true if a row was deleted.
+   */
+  private boolean deleteRow(String key) {
+    SQLiteStatement delete = deletes.acquire();
     try {
-      if (cursor != null && cursor.getCount() > 0) {
-        db.delete(ValueQuery.TABLE, ValueQuery.WHERE_KEY, args);
-        return true;
-      }
+      delete.bindString(1, key);
+      return delete.executeUpdateDelete() > 0;
     } finally {
-      if (cursor != null) {
-        cursor.close();
-      }
+      deletes.release(delete);
     }
-    return false;
   }
 
   @Override public boolean exists(String key) {
-    ValueQuery query = ValueQuery.queryBuilder().key(key);
-
-    final String sql = query.sql();
-    final String[] args = query.args();
-    Cursor cursor = db.query(sql, args);
-
+    if (keyIndex != null) {
+      return keyIndex.contains(key);
+    }
+    SQLiteStatement statement = selectExists.acquire();
     try {
-      if (cursor != null && cursor.getCount() > 0) {
-        cursor.moveToFirst();
-        return true;
-      }
+      statement.bindString(1, key);
+      return statement.simpleQueryForLong() != 0;
     } finally {
-      if (cursor != null) {
-        cursor.close();
-      }
+      selectExists.release(statement);
     }
-    return false;
   }
 
   @Override
   protected <T> List<Entry<T>> entriesKeyContains(String converterKey, String keyContains) {
+    List<String> indexed = containsKeys(converterKey, keyContains);
+    if (indexed != null) {
+      ArrayList<Entry<T>> entries = new ArrayList<>();
+      for (ValueQuery query : keysQueries(converterKey, indexed)) {
+        this.<T>readEntries(query.sql(), query.args(), entries);
+      }
+      return entries;
+    }
     ValueQuery query;
 
     if (converterKey != null && converterKey.length() > 0) {
-      query = ValueQuery.queryBuilder().keyContains(keyContains).type(converterKey);
+      query = ValueQuery.queryBuilder().keyContains(keyContains).type(typeIds.find(converterKey));
     } else {
       query = ValueQuery.queryBuilder().keyContains(keyContains);
     }
@@ -202,11 +450,10 @@ public class SqlStore extends Store {
     try {
       if (cursor != null) {
         while (cursor.moveToNext()) {
-          String type = cursor.getString(cursor.getColumnIndexOrThrow(ValueQuery.TYPE));
+          String type = typeOf(cursor);
           String key = cursor.getString(cursor.getColumnIndexOrThrow(ValueQuery.KEY));
           byte[] value = cursor.getBlob(cursor.getColumnIndexOrThrow(ValueQuery.VALUE));
-          T val = convert(value, type);
-          entries.add(Entry.create(key, val));
+          entries.add(this.<T>entry(key, value, type));
         }
       }
     } finally {
@@ -221,7 +468,7 @@ public class SqlStore extends Store {
     ValueQuery query;
 
     if (converterKey != null && converterKey.length() > 0) {
-      query = ValueQuery.queryBuilder().keyPrefix(keyPrefix).type(converterKey);
+      query = ValueQuery.queryBuilder().keyPrefix(keyPrefix).type(typeIds.find(converterKey));
     } else {
       query = ValueQuery.queryBuilder().keyPrefix(keyPrefix);
     }
@@ -232,11 +479,10 @@ public class SqlStore extends Store {
     try {
       if (cursor != null) {
         while (cursor.moveToNext()) {
-          String type = cursor.getString(cursor.getColumnIndexOrThrow(ValueQuery.TYPE));
+          String type = typeOf(cursor);
           String key = cursor.getString(cursor.getColumnIndexOrThrow(ValueQuery.KEY));
           byte[] value = cursor.getBlob(cursor.getColumnIndexOrThrow(ValueQuery.VALUE));
-          T val = convert(value, type);
-          entries.add(Entry.create(key, val));
+          entries.add(this.<T>entry(key, value, type));
         }
       }
     } finally {
@@ -248,7 +494,7 @@ public class SqlStore extends Store {
   }
 
   @Override protected <T> List<Entry<T>> entries(String converterKey) {
-    ValueQuery query = ValueQuery.queryBuilder().type(converterKey);
+    ValueQuery query = ValueQuery.queryBuilder().type(typeIds.find(converterKey));
     final String sql = query.sql();
     final String[] args = query.args();
     ArrayList<Entry<T>> entries = new ArrayList<>();
@@ -256,11 +502,10 @@ public class SqlStore extends Store {
     try {
       if (cursor != null) {
         while (cursor.moveToNext()) {
-          String type = cursor.getString(cursor.getColumnIndexOrThrow(ValueQuery.TYPE));
+          String type = typeOf(cursor);
           String key = cursor.getString(cursor.getColumnIndexOrThrow(ValueQuery.KEY));
           byte[] value = cursor.getBlob(cursor.getColumnIndexOrThrow(ValueQuery.VALUE));
-          T val = convert(value, type);
-          entries.add(Entry.create(key, val));
+          entries.add(this.<T>entry(key, value, type));
         }
       }
     } finally {
@@ -272,7 +517,10 @@ public class SqlStore extends Store {
   }
 
   @Override protected List<String> keysType(String converterKey) {
-    ValueQuery query = ValueQuery.queryBuilder().type(converterKey);
+    if (keyIndex != null) {
+      return keyIndex.keys(converterKey, null, null);
+    }
+    ValueQuery query = ValueQuery.queryBuilder().keysOnly().type(typeIds.find(converterKey));
     final String sql = query.sql();
     final String[] args = query.args();
     ArrayList<String> keys = new ArrayList<>();
@@ -301,12 +549,18 @@ public class SqlStore extends Store {
   }
 
   @Override protected List<String> keysPrefix(String converterKey, String keyPrefix) {
+    if (keyIndex != null) {
+      return keyIndex.keys(converterKey, keyPrefix, null);
+    }
     ValueQuery query;
 
     if (converterKey != null && converterKey.length() > 0) {
-      query = ValueQuery.queryBuilder().keyPrefix(keyPrefix).type(converterKey);
+      query = ValueQuery.queryBuilder()
+          .keysOnly()
+          .keyPrefix(keyPrefix)
+          .type(typeIds.find(converterKey));
     } else {
-      query = ValueQuery.queryBuilder().keyPrefix(keyPrefix);
+      query = ValueQuery.queryBuilder().keysOnly().keyPrefix(keyPrefix);
     }
 
     final String sql = query.sql();
@@ -329,12 +583,19 @@ public class SqlStore extends Store {
   }
 
   @Override protected List<String> keysContains(String converterKey, String keyContains) {
+    List<String> indexed = containsKeys(converterKey, keyContains);
+    if (indexed != null) {
+      return indexed;
+    }
     ValueQuery query;
 
     if (converterKey != null && converterKey.length() > 0) {
-      query = ValueQuery.queryBuilder().keyContains(keyContains).type(converterKey);
+      query = ValueQuery.queryBuilder()
+          .keysOnly()
+          .keyContains(keyContains)
+          .type(typeIds.find(converterKey));
     } else {
-      query = ValueQuery.queryBuilder().keyContains(keyContains);
+      query = ValueQuery.queryBuilder().keysOnly().keyContains(keyContains);
     }
 
     final String sql = query.sql();
@@ -357,48 +618,72 @@ public class SqlStore extends Store {
   }
 
   @Override protected <T> List<T> valuesType(String converterKey) {
-    ValueQuery query = ValueQuery.queryBuilder().type(converterKey);
+    ValueQuery query = ValueQuery.queryBuilder().type(typeIds.find(converterKey));
 
     final String sql = query.sql();
     final String[] args = query.args();
-    ArrayList<T> values = new ArrayList<>();
-    Cursor cursor = db.query(sql, args);
-    try {
-      if (cursor != null) {
-        while (cursor.moveToNext()) {
-          String type = cursor.getString(cursor.getColumnIndexOrThrow(ValueQuery.TYPE));
-          byte[] value = cursor.getBlob(cursor.getColumnIndexOrThrow(ValueQuery.VALUE));
-          T val = convert(value, type);
-          values.add(val);
-        }
-      }
-    } finally {
-      if (cursor != null) {
-        cursor.close();
-      }
-    }
-    return values;
+    return readValues(sql, args);
   }
 
   @Override protected <T> List<T> valuesPrefix(String converterKey, String keyPrefix) {
     ValueQuery query;
 
     if (converterKey != null && converterKey.length() > 0) {
-      query = ValueQuery.queryBuilder().keyPrefix(keyPrefix).type(converterKey);
+      query = ValueQuery.queryBuilder().keyPrefix(keyPrefix).type(typeIds.find(converterKey));
     } else {
       query = ValueQuery.queryBuilder().keyPrefix(keyPrefix);
     }
     final String sql = query.sql();
     final String[] args = query.args();
-    ArrayList<T> values = new ArrayList<>();
+    return readValues(sql, args);
+  }
+
+  @Override protected <T> List<T> valuesContains(String converterKey, String keyContains) {
+    List<String> indexed = containsKeys(converterKey, keyContains);
+    if (indexed != null) {
+      ArrayList<byte[]> values = new ArrayList<>();
+      ArrayList<String> types = new ArrayList<>();
+      for (ValueQuery query : keysQueries(converterKey, indexed)) {
+        readRows(query.sql(), query.args(), values, types);
+      }
+      return convertAll(values, types);
+    }
+    ValueQuery query;
+
+    if (converterKey != null && converterKey.length() > 0) {
+      query = ValueQuery.queryBuilder().keyContains(keyContains).type(typeIds.find(converterKey));
+    } else {
+      query = ValueQuery.queryBuilder().keyContains(keyContains);
+    }
+
+    final String sql = query.sql();
+    final String[] args = query.args();
+    return readValues(sql, args);
+  }
+
+  /**
+   * Read the rows of a query sequentially, then convert them with {@link #convertAll(List, List)}
+   * which may spread converter work over the parallel executor.
+   */
+  private <T> List<T> readValues(String sql, String[] args) {
+    ArrayList<byte[]> values = new ArrayList<>();
+    ArrayList<String> types = new ArrayList<>();
+    readRows(sql, args, values, types);
+    return convertAll(values, types);
+  }
+
+  /**
+   * Add the values and types of the rows of a query.
+   */
+  private void readRows(String sql, String[] args, List<byte[]> values, List<String> types) {
     Cursor cursor = db.query(sql, args);
     try {
       if (cursor != null) {
+        int typeIndex = cursor.getColumnIndexOrThrow(ValueQuery.TYPE_ID);
+        int valueIndex = cursor.getColumnIndexOrThrow(ValueQuery.VALUE);
         while (cursor.moveToNext()) {
-          String type = cursor.getString(cursor.getColumnIndexOrThrow(ValueQuery.TYPE));
-          byte[] value = cursor.getBlob(cursor.getColumnIndexOrThrow(ValueQuery.VALUE));
-          T val = convert(value, type);
-          values.add(val);
+          types.add(typeIds.name(cursor.getInt(typeIndex)));
+          values.add(cursor.getBlob(valueIndex));
         }
       }
     } finally {
@@ -406,29 +691,21 @@ public class SqlStore extends Store {
         cursor.close();
       }
     }
-    return values;
   }
 
-  @Override protected <T> List<T> valuesContains(String converterKey, String keyContains) {
-    ValueQuery query;
-
-    if (converterKey != null && converterKey.length() > 0) {
-      query = ValueQuery.queryBuilder().keyContains(keyContains).type(converterKey);
-    } else {
-      query = ValueQuery.queryBuilder().keyContains(keyContains);
-    }
-
-    final String sql = query.sql();
-    final String[] args = query.args();
-    ArrayList<T> values = new ArrayList<>();
+  /**
+   * Add the entries of the rows of a query.
+   */
+  private <T> void readEntries(String sql, String[] args, List<Entry<T>> entries) {
     Cursor cursor = db.query(sql, args);
     try {
       if (cursor != null) {
+        int keyColumn = cursor.getColumnIndexOrThrow(ValueQuery.KEY);
+        int typeColumn = cursor.getColumnIndexOrThrow(ValueQuery.TYPE_ID);
+        int valueColumn = cursor.getColumnIndexOrThrow(ValueQuery.VALUE);
         while (cursor.moveToNext()) {
-          String type = cursor.getString(cursor.getColumnIndexOrThrow(ValueQuery.TYPE));
-          byte[] value = cursor.getBlob(cursor.getColumnIndexOrThrow(ValueQuery.VALUE));
-          T val = convert(value, type);
-          values.add(val);
+          entries.add(this.<T>entry(cursor.getString(keyColumn), cursor.getBlob(valueColumn),
+              typeIds.name(cursor.getInt(typeColumn))));
         }
       }
     } finally {
@@ -436,7 +713,6 @@ public class SqlStore extends Store {
         cursor.close();
       }
     }
-    return values;
   }
 
   @Override protected List<Object> valuesPrefixAny(String keyPrefix) {
@@ -446,4 +722,134 @@ public class SqlStore extends Store {
   @Override protected List<Object> valuesContainsAny(String keyContains) {
     return valuesContains(null, keyContains);
   }
+
+  /**
+   * Build the query of a selection. A key contains filter the indexes answer with at most
+   * {@link ValueQuery#MAX_KEYS} keys selects the rows of those keys.
+   */
+  private ValueQuery query(Selection selection) {
+    ValueQuery query = ValueQuery.queryBuilder();
+    String converterKey = selection.converterKey();
+    if (selection.keyPrefix() != null) {
+      query.keyPrefix(selection.keyPrefix());
+    } else if (selection.keyContains() != null) {
+      List<String> indexed = containsKeys(converterKey, selection.keyContains());
+      if (indexed != null && indexed.size() <= ValueQuery.MAX_KEYS) {
+        query.keyIn(indexed);
+      } else {
+        query.keyContains(selection.keyContains());
+      }
+    }
+    if (converterKey != null && converterKey.length() > 0) {
+      query.type(typeIds.find(converterKey));
+    }
+    if (selection.paged()) {
+      if (selection.afterKey() != null) {
+        query.after(selection.afterKey());
+      }
+      query.orderByKey().limit(selection.limit()).offset(selection.offset());
+    }
+    return query;
+  }
+
+  /**
+   * Count with {@code SELECT count(*)}, answered from the key and type indexes.
+   */
+  @Override protected int count(Selection selection) {
+    if (keyIndex != null) {
+      return super.count(selection);
+    }
+    ValueQuery query = query(selection);
+    Cursor cursor = db.query(query.countSql(), query.args());
+    try {
+      if (cursor != null && cursor.moveToFirst()) {
+        return cursor.getInt(0);
+      }
+    } finally {
+      if (cursor != null) {
+        cursor.close();
+      }
+    }
+    return 0;
+  }
+
+  @Override protected <T> CloseableIterator<Entry<T>> entriesIterator(Selection selection) {
+    ValueQuery query = query(selection);
+    return new CursorIterator<Entry<T>>(db.query(query.sql(), query.args())) {
+      @Override Entry<T> read(Cursor cursor) {
+        String type = typeOf(cursor);
+        String key = cursor.getString(cursor.getColumnIndexOrThrow(ValueQuery.KEY));
+        byte[] value = cursor.getBlob(cursor.getColumnIndexOrThrow(ValueQuery.VALUE));
+        return SqlStore.this.entry(key, value, type);
+      }
+    };
+  }
+
+  @Override protected CloseableIterator<String> keysIterator(Selection selection) {
+    if (keyIndex != null) {
+      //pages the keys of the index.
+      return super.keysIterator(selection);
+    }
+    ValueQuery query = query(selection).keysOnly();
+    return new CursorIterator<String>(db.query(query.sql(), query.args())) {
+      @Override String read(Cursor cursor) {
+        return cursor.getString(cursor.getColumnIndexOrThrow(ValueQuery.KEY));
+      }
+    };
+  }
+
+  @Override protected <T> CloseableIterator<T> valuesIterator(Selection selection) {
+    ValueQuery query = query(selection);
+    return new CursorIterator<T>(db.query(query.sql(), query.args())) {
+      @Override T read(Cursor cursor) {
+        String type = typeOf(cursor);
+        byte[] value = cursor.getBlob(cursor.getColumnIndexOrThrow(ValueQuery.VALUE));
+        return convert(value, type);
+      }
+    };
+  }
+
+  public static class Builder {
+
+    final Context context;
+    final Converter converter;
+    boolean singleThreaded;
+    boolean keyIndex;
+    boolean trigramIndex;
+
+    Builder(Context context, Converter converter) {
+      this.context = context;
+      this.converter = converter;
+    }
+
+    /**
+     * True if the store is only accessed from one thread, key locks are skipped.
+     */
+    public Builder singleThreaded(boolean singleThreaded) {
+      this.singleThreaded = singleThreaded;
+      return this;
+    }
+
+    /**
+     * True to load all keys into memory at open and answer key queries, {@code exists} and
+     * {@code type} from memory. Writes are serialized to keep the index in sync.
+     */
+    public Builder keyIndex(boolean keyIndex) {
+      this.keyIndex = keyIndex;
+      return this;
+    }
+
+    /**
+     * True to index the trigrams of all keys in memory and answer key contains filters of at
+     * least three characters from the index instead of scanning with {@code LIKE}.
+     */
+    public Builder trigramIndex(boolean trigramIndex) {
+      this.trigramIndex = trigramIndex;
+      return this;
+    }
+
+    public SqlStore build() {
+      return new SqlStore(this);
+    }
+  }
 }
@@ -3,6 +3,8 @@ package uncmn.eve.store.sql;
 import android.content.Context;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * An object instance representing {@link SQLiteOpenHelper} with KeyValue store database.
@@ -10,7 +12,13 @@ import android.database.sqlite.SQLiteOpenHelper;
 public class SqlStoreOpenHelper extends SQLiteOpenHelper {
 
   static final String DB_NAME = "eve_kv_store.db";
-  static final int DB_VERSION = 1;
+  static final int DB_VERSION = 2;
+
+  /**
+   * Type column of version 1, the type string of each row.
+   */
+  private static final String V1_TYPE = "kv_type";
+  private static final String V1_TABLE = ValueQuery.TABLE + "_v1";
 
   public SqlStoreOpenHelper(Context context) {
     super(context, DB_NAME, null, DB_VERSION);
@@ -19,8 +27,8 @@ public class SqlStoreOpenHelper extends SQLiteOpenHelper {
   @Override public void onCreate(SQLiteDatabase db) {
     try {
       db.beginTransaction();
+      db.execSQL(ValueQuery.CREATE_TYPES_TABLE);
       db.execSQL(ValueQuery.CREATE_TABLE);
-      db.execSQL(ValueQuery.CREATE_INDEX_TYPE);
       db.execSQL(ValueQuery.CREATE_INDEX_TYPE_KEY);
       db.setTransactionSuccessful();
     } catch (Exception ex) {
@@ -31,5 +39,64 @@ public class SqlStoreOpenHelper extends SQLiteOpenHelper {
   }
 
   @Override public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+    if (oldVersion < 2) {
+      migrateTypeIds(db);
+    }
+  }
+
+  /**
+   * Version 2 moves the type strings of rows into the types table and stores their ids. Runs in
+   * the upgrade transaction.
+   */
+  private static void migrateTypeIds(SQLiteDatabase db) {
+    for (String sql : typeIdsMigration()) {
+      db.execSQL(sql);
+    }
+  }
+
+  /**
+   * Statements migrating a version 1 table to type ids, in order. Rows without a type keep a
+   * null id, which reads as no type like the null type string of version 1.
+   */
+  static List<String> typeIdsMigration() {
+    return Arrays.asList(ValueQuery.CREATE_TYPES_TABLE,
+        "INSERT INTO "
+            + ValueQuery.TYPES_TABLE
+            + " ("
+            + ValueQuery.TYPES_NAME
+            + ") SELECT DISTINCT "
+            + V1_TYPE
+            + " FROM "
+            + ValueQuery.TABLE
+            + " WHERE "
+            + V1_TYPE
+            + " IS NOT NULL",
+        //indexes of version 1 move with the table and are dropped with it.
+        "ALTER TABLE " + ValueQuery.TABLE + " RENAME TO " + V1_TABLE,
+        ValueQuery.CREATE_TABLE,
+        "INSERT INTO "
+            + ValueQuery.TABLE
+            + " ("
+            + ValueQuery.KEY
+            + ", "
+            + ValueQuery.TYPE_ID
+            + ", "
+            + ValueQuery.VALUE
+            + ") SELECT "
+            + ValueQuery.KEY
+            + ", "
+            + ValueQuery.TYPES_ID
+            + ", "
+            + ValueQuery.VALUE
+            + " FROM "
+            + V1_TABLE
+            + " LEFT JOIN "
+            + ValueQuery.TYPES_TABLE
+            + " ON "
+            + V1_TYPE
+            + " = "
+            + ValueQuery.TYPES_NAME,
+        "DROP TABLE " + V1_TABLE,
+        ValueQuery.CREATE_INDEX_TYPE_KEY);
   }
 }
@@ -0,0 +1,46 @@
+package uncmn.eve.store.sql;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compiled statements of one SQL, reused across calls.
+ * <p>A {@link SQLiteStatement} holds its bindings and must not be shared by threads running it at
+ * the same time, so every call acquires a statement of its own and releases it when done.
+ * Statements are compiled on demand and a few are kept idle.</p>
+ */
+final class StatementPool {
+
+  private static final int MAX_IDLE = 4;
+
+  private final SQLiteDatabase database;
+  private final String sql;
+  private final ConcurrentLinkedQueue<SQLiteStatement> idle = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger idleCount = new AtomicInteger();
+
+  StatementPool(SQLiteDatabase database, String sql) {
+    this.database = database;
+    this.sql = sql;
+  }
+
+  SQLiteStatement acquire() {
+    SQLiteStatement statement = idle.poll();
+    if (statement == null) {
+      return database.compileStatement(sql);
+    }
+    idleCount.decrementAndGet();
+    return statement;
+  }
+
+  void release(SQLiteStatement statement) {
+    statement.clearBindings();
+    if (idleCount.incrementAndGet() <= MAX_IDLE) {
+      idle.offer(statement);
+    } else {
+      idleCount.decrementAndGet();
+      statement.close();
+    }
+  }
+}
@@ -0,0 +1,202 @@
+package uncmn.eve.store.sql;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Posting lists of the trigrams of all keys, to answer key contains filters without a scan.
+ * <p>Keys get increasing ids, so posting lists stay sorted by appending. A filter of at least
+ * three characters intersects the lists of its trigrams, smallest first, and verifies the
+ * candidates. Trigrams are ASCII case insensitive like Sqlite's {@code LIKE}. Removed keys stay
+ * in the lists until more than half of all ids are removed, then the lists are rebuilt.</p>
+ * <p>All methods are synchronized, writers update the index after Sqlite.</p>
+ */
+final class TrigramIndex {
+
+  static final int GRAM = 3;
+  private static final int MIN_COMPACT = 1024;
+
+  private final Map<String, Integer> ids = new HashMap<>();
+  private String[] keys = new String[16];
+  private String[] types = new String[16];
+  private int nextId;
+  private final Map<Long, Postings> postings = new HashMap<>();
+
+  /**
+   * @param keys keys of each type.
+   */
+  TrigramIndex(Map<String, List<String>> keys) {
+    for (Map.Entry<String, List<String>> type : keys.entrySet()) {
+      for (String key : type.getValue()) {
+        add(key, type.getKey());
+      }
+    }
+  }
+
+  /**
+   * Sorted ids of the keys with a trigram.
+   */
+  private static final class Postings {
+
+    int[] ids = new int[4];
+    int size;
+
+    void add(int id) {
+      if (size > 0 && ids[size - 1] == id) {
+        return;
+      }
+      if (size == ids.length) {
+        ids = Arrays.copyOf(ids, size * 2);
+      }
+      ids[size++] = id;
+    }
+  }
+
+  private static final Comparator<Postings> SIZE_ORDER = new Comparator<Postings>() {
+    @Override public int compare(Postings lhs, Postings rhs) {
+      return lhs.size - rhs.size;
+    }
+  };
+
+  private void add(String key, String type) {
+    int id = nextId++;
+    if (id == keys.length) {
+      keys = Arrays.copyOf(keys, id * 2);
+      types = Arrays.copyOf(types, id * 2);
+    }
+    keys[id] = key;
+    types[id] = type;
+    ids.put(key, id);
+    for (int i = 0; i + GRAM <= key.length(); i++) {
+      long gram = gram(key, i);
+      Postings list = postings.get(gram);
+      if (list == null) {
+        list = new Postings();
+        postings.put(gram, list);
+      }
+      list.add(id);
+    }
+  }
+
+  synchronized void put(String key, String type) {
+    Integer id = ids.get(key);
+    if (id != null) {
+      types[id] = type;
+    } else {
+      add(key, type);
+    }
+  }
+
+  synchronized void remove(String key) {
+    Integer id = ids.remove(key);
+    if (id == null) {
+      return;
+    }
+    keys[id] = null;
+    types[id] = null;
+    int removed = nextId - ids.size();
+    if (removed > MIN_COMPACT && removed > ids.size()) {
+      compact();
+    }
+  }
+
+  synchronized boolean contains(String key) {
+    return ids.containsKey(key);
+  }
+
+  synchronized void clear() {
+    ids.clear();
+    postings.clear();
+    keys = new String[16];
+    types = new String[16];
+    nextId = 0;
+  }
+
+  /**
+   * Give the remaining keys new ids and rebuild the posting lists.
+   */
+  private void compact() {
+    String[] liveKeys = keys;
+    String[] liveTypes = types;
+    int count = nextId;
+    clear();
+    for (int id = 0; id < count; id++) {
+      if (liveKeys[id] != null) {
+        add(liveKeys[id], liveTypes[id]);
+      }
+    }
+  }
+
+  /**
+   * Keys of a type that contain part, ASCII case insensitive. Keys are not sorted.
+   *
+   * @param type converter key, null or empty for any type.
+   * @return matching keys, null if part is shorter than a trigram.
+   */
+  synchronized List<String> keys(String type, String part) {
+    if (part.length() < GRAM) {
+      return null;
+    }
+    Set<Long> grams = new LinkedHashSet<>();
+    for (int i = 0; i + GRAM <= part.length(); i++) {
+      grams.add(gram(part, i));
+    }
+    List<Postings> lists = new ArrayList<>(grams.size());
+    for (long gram : grams) {
+      Postings list = postings.get(gram);
+      if (list == null) {
+        return Collections.emptyList();
+      }
+      lists.add(list);
+    }
+    Collections.sort(lists, SIZE_ORDER);
+    int[] candidates = Arrays.copyOf(lists.get(0).ids, lists.get(0).size);
+    int count = candidates.length;
+    for (int i = 1; i < lists.size() && count > 0; i++) {
+      count = intersect(candidates, count, lists.get(i));
+    }
+    boolean anyType = type == null || type.length() == 0;
+    List<String> matches = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      String key = keys[candidates[i]];
+      if (key != null
+          && (anyType || type.equals(types[candidates[i]]))
+          && KeyIndex.containsIgnoreCase(key, part)) {
+        matches.add(key);
+      }
+    }
+    return matches;
+  }
+
+  /**
+   * Keep the candidates that are in list, both sorted.
+   *
+   * @return number of candidates kept at the start of the array.
+   */
+  private static int intersect(int[] candidates, int count, Postings list) {
+    int kept = 0;
+    int j = 0;
+    for (int i = 0; i < count && j < list.size; i++) {
+      while (j < list.size && list.ids[j] < candidates[i]) {
+        j++;
+      }
+      if (j < list.size && list.ids[j] == candidates[i]) {
+        candidates[kept++] = candidates[i];
+      }
+    }
+    return kept;
+  }
+
+  private static long gram(String key, int start) {
+    return (long) KeyIndex.fold(key.charAt(start)) << 32
+        | (long) KeyIndex.fold(key.charAt(start + 1)) << 16
+        | KeyIndex.fold(key.charAt(start + 2));
+  }
+}
@@ -0,0 +1,103 @@
+package uncmn.eve.store.sql;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ids of the converter keys in {@link ValueQuery#TYPES_TABLE}, rows store the id of their type.
+ * <p>Ids never change once given. Names are an array indexed by id and read without locking, so
+ * resolving the type of a row allocates nothing. A type is added before the first row of it is
+ * written, readers always find the name of an id they read.</p>
+ */
+final class TypeIds {
+
+  /**
+   * Id of a type no row was written with, no row matches it.
+   */
+  static final int NONE = 0;
+
+  private final SQLiteStatement insert;
+  private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+  private volatile String[] names = new String[16];
+
+  /**
+   * Load all types.
+   *
+   * @param writer connection adding new types.
+   */
+  TypeIds(SQLiteDatabase writer) {
+    this.insert = writer.compileStatement(ValueQuery.INSERT_TYPE);
+    Cursor cursor = writer.rawQuery(ValueQuery.SELECT_TYPES, null);
+    try {
+      if (cursor != null) {
+        while (cursor.moveToNext()) {
+          put(cursor.getInt(0), cursor.getString(1));
+        }
+      }
+    } finally {
+      if (cursor != null) {
+        cursor.close();
+      }
+    }
+  }
+
+  private void put(int id, String name) {
+    String[] grown = names;
+    if (id >= grown.length) {
+      grown = Arrays.copyOf(grown, Math.max(id + 1, grown.length * 2));
+    } else {
+      grown = grown.clone();
+    }
+    grown[id] = name;
+    names = grown;
+    ids.put(name, id);
+  }
+
+  /**
+   * Id of type, {@link #NONE} if no row was written with it or type is null.
+   */
+  int find(String type) {
+    if (type == null) {
+      return NONE;
+    }
+    Integer id = ids.get(type);
+    return id == null ? NONE : id;
+  }
+
+  /**
+   * Id of type, added to the types table if new. Must not run inside a transaction of the
+   * writer, a rollback would drop the type but not its id.
+   */
+  int id(String type) {
+    Integer id = ids.get(type);
+    if (id != null) {
+      return id;
+    }
+    synchronized (this) {
+      id = ids.get(type);
+      if (id != null) {
+        return id;
+      }
+      try {
+        insert.bindString(1, type);
+        int added = (int) insert.executeInsert();
+        put(added, type);
+        return added;
+      } finally {
+        insert.clearBindings();
+      }
+    }
+  }
+
+  /**
+   * Name of the type with id, null if there is none.
+   */
+  String name(int id) {
+    String[] current = names;
+    return id > NONE && id < current.length ? current[id] : null;
+  }
+}
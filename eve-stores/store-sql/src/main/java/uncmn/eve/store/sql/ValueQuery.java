@@ -1,6 +1,7 @@
 package uncmn.eve.store.sql;
 
-import android.content.ContentValues;
+import android.database.sqlite.SQLiteStatement;
+import java.util.List;
 import uncmn.eve.Value;
 
 /**
@@ -10,33 +11,100 @@ public class ValueQuery extends SqlQuery {
 
   public static final String TABLE = "key_value";
   public static final String KEY = "kv_key";
-  public static final String TYPE = "kv_type";
+  public static final String TYPE_ID = "kv_type_id";
   public static final String VALUE = "kv_value";
 
+  /**
+   * Dictionary of converter keys, rows hold the id of their type.
+   */
+  public static final String TYPES_TABLE = "types";
+  public static final String TYPES_ID = "type_id";
+  public static final String TYPES_NAME = "type_name";
+
   public static final String CREATE_TABLE = "CREATE TABLE "
       + TABLE
       + "("
       + KEY
       + " TEXT,"
-      + TYPE
-      + " TEXT,"
+      + TYPE_ID
+      + " INTEGER,"
       + VALUE
       + " BLOB,"
       + "UNIQUE ("
       + KEY
       + ") ON CONFLICT REPLACE)";
 
-  public static final String CREATE_INDEX_TYPE =
-      "CREATE INDEX index_type ON " + TABLE + " (" + TYPE + ")";
+  public static final String CREATE_TYPES_TABLE = "CREATE TABLE "
+      + TYPES_TABLE
+      + "("
+      + TYPES_ID
+      + " INTEGER PRIMARY KEY,"
+      + TYPES_NAME
+      + " TEXT UNIQUE)";
 
+  /**
+   * Index of type and key, also used by filters on the type alone.
+   */
   public static final String CREATE_INDEX_TYPE_KEY =
-      "CREATE INDEX index_type_and_key ON " + TABLE + " (" + TYPE + ", " + KEY + ")";
+      "CREATE INDEX index_type_and_key ON " + TABLE + " (" + TYPE_ID + ", " + KEY + ")";
+
+  public static final String SELECT_TYPES =
+      "SELECT " + TYPES_ID + ", " + TYPES_NAME + " FROM " + TYPES_TABLE;
+
+  public static final String INSERT_TYPE =
+      "INSERT INTO " + TYPES_TABLE + " (" + TYPES_NAME + ") VALUES (?)";
+
   public static final String WHERE_KEY = KEY + " = ?";
-  public static final String LIKE_KEY = KEY + " LIKE ?";
-  public static final String WHERE_TYPE = TYPE + " = ?";
+  public static final String LIKE_KEY = KEY + " LIKE ? ESCAPE '\\'";
+  public static final String KEY_RANGE = KEY + " >= ? AND " + KEY + " < ?";
+  public static final String KEY_FROM = KEY + " >= ?";
+  public static final String WHERE_TYPE = TYPE_ID + " = ?";
+  public static final String AFTER_KEY = KEY + " > ?";
+
+  public static final String INSERT_OR_REPLACE = "INSERT OR REPLACE INTO "
+      + TABLE
+      + " ("
+      + KEY
+      + ", "
+      + TYPE_ID
+      + ", "
+      + VALUE
+      + ") VALUES (?, ?, ?)";
+
+  public static final String SELECT_VALUE_OF_TYPE = "SELECT "
+      + VALUE
+      + " FROM "
+      + TABLE
+      + " WHERE "
+      + WHERE_KEY
+      + " AND "
+      + WHERE_TYPE;
+
+  public static final String SELECT_KEY_AND_TYPE =
+      "SELECT " + KEY + ", " + TYPE_ID + " FROM " + TABLE;
+
+  public static final String SELECT_TYPE =
+      "SELECT " + TYPE_ID + " FROM " + TABLE + " WHERE " + WHERE_KEY;
+
+  public static final String SELECT_TYPE_AND_VALUE =
+      "SELECT " + TYPE_ID + ", " + VALUE + " FROM " + TABLE + " WHERE " + WHERE_KEY;
+
+  public static final String SELECT_EXISTS =
+      "SELECT EXISTS (SELECT 1 FROM " + TABLE + " WHERE " + WHERE_KEY + ")";
+
+  public static final String DELETE_KEY = "DELETE FROM " + TABLE + " WHERE " + WHERE_KEY;
+
+  /**
+   * Maximum number of keys of {@link #keyIn(List)}, below the limit of Sqlite's bound arguments.
+   */
+  public static final int MAX_KEYS = 500;
 
   public static final String[] PROJECTION = {
-      KEY, TYPE, VALUE
+      KEY, TYPE_ID, VALUE
+  };
+
+  public static final String[] KEY_PROJECTION = {
+      KEY
   };
 
   public ValueQuery() {
@@ -45,41 +113,129 @@ public class ValueQuery extends SqlQuery {
   }
 
   /**
-   * Convert value into content values.
+   * Bind key and value to a compiled {@link #INSERT_OR_REPLACE} statement.
    *
+   * @param statement compiled insert statement.
    * @param key key with which value needs to stored.
+   * @param typeId id of the type of value in {@link #TYPES_TABLE}.
    * @param value Value instance.
-   * @return content values instance.
    */
-  public static ContentValues contentValues(String key, Value value) {
-    ContentValues values = new ContentValues();
-    values.put(KEY, key);
-    values.put(TYPE, value.type());
-    values.put(VALUE, value.bytes());
-    return values;
+  public static void bindInsert(SQLiteStatement statement, String key, int typeId,
+      Value value) {
+    statement.bindString(1, key);
+    statement.bindLong(2, typeId);
+    if (value.bytes() == null) {
+      statement.bindNull(3);
+    } else {
+      statement.bindBlob(3, value.bytes());
+    }
   }
 
   public static ValueQuery queryBuilder() {
     return new ValueQuery();
   }
 
+  /**
+   * Select only the key column, which the key indexes cover, so no table page is read.
+   */
+  public ValueQuery keysOnly() {
+    columns(KEY_PROJECTION);
+    return this;
+  }
+
   public ValueQuery key(String key) {
     where(WHERE_KEY, key);
     return this;
   }
 
-  public ValueQuery keyPrefix(String key) {
-    where(LIKE_KEY, key + "%");
+  /**
+   * Keys starting with prefix, case sensitive. A range of keys from the prefix up to its
+   * successor, which Sqlite answers with a seek on the key indexes.
+   */
+  public ValueQuery keyPrefix(String prefix) {
+    String end = successor(prefix);
+    if (end == null) {
+      where(KEY_FROM, prefix);
+    } else {
+      where(KEY_RANGE, prefix, end);
+    }
     return this;
   }
 
+  /**
+   * Keys containing key, ASCII case insensitive. {@code %} and {@code _} match literally.
+   */
   public ValueQuery keyContains(String key) {
-    where(LIKE_KEY, "%" + key + "%");
+    where(LIKE_KEY, "%" + escapeLike(key) + "%");
+    return this;
+  }
+
+  /**
+   * Smallest string greater than all strings starting with prefix, in the UTF-8 byte order of
+   * Sqlite's BINARY collation.
+   *
+   * @return successor, null if there is none.
+   */
+  static String successor(String prefix) {
+    int end = prefix.length();
+    while (end > 0) {
+      int last = prefix.codePointBefore(end);
+      end -= Character.charCount(last);
+      if (last < Character.MAX_CODE_POINT) {
+        int next = last + 1 == Character.MIN_SURROGATE ? Character.MAX_SURROGATE + 1 : last + 1;
+        return new StringBuilder(prefix.substring(0, end)).appendCodePoint(next).toString();
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Escape the wildcards of a {@code LIKE} pattern with {@code \}.
+   */
+  static String escapeLike(String key) {
+    StringBuilder escaped = new StringBuilder(key.length());
+    for (int i = 0; i < key.length(); i++) {
+      char c = key.charAt(i);
+      if (c == '%' || c == '_' || c == '\\') {
+        escaped.append('\\');
+      }
+      escaped.append(c);
+    }
+    return escaped.toString();
+  }
+
+  /**
+   * Only the given keys, at most {@link #MAX_KEYS}.
+   */
+  public ValueQuery keyIn(List<String> keys) {
+    StringBuilder in = new StringBuilder(KEY).append(" IN (");
+    for (int i = 0; i < keys.size(); i++) {
+      in.append(i == 0 ? "?" : ", ?");
+    }
+    where(in.append(")").toString(), keys.toArray(new String[keys.size()]));
+    return this;
+  }
+
+  /**
+   * Only rows of a type.
+   *
+   * @param typeId id of the type in {@link #TYPES_TABLE}.
+   */
+  public ValueQuery type(int typeId) {
+    where(WHERE_TYPE, String.valueOf(typeId));
+    return this;
+  }
+
+  /**
+   * Only keys greater than key, a range seek on the key indexes.
+   */
+  public ValueQuery after(String key) {
+    where(AFTER_KEY, key);
     return this;
   }
 
-  public ValueQuery type(String type) {
-    where(WHERE_TYPE, type);
+  public ValueQuery orderByKey() {
+    orderBy(KEY);
     return this;
   }
 }
@@ -0,0 +1,79 @@
+package uncmn.eve.store.sql;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+
+public class FrontCodedKeysTest {
+
+  private static List<String> sorted(List<String> keys) {
+    List<String> sorted = new ArrayList<>(keys);
+    Collections.sort(sorted, KeyIndex.ORDER);
+    return sorted;
+  }
+
+  private static List<String> decode(FrontCodedKeys keys) {
+    List<String> decoded = new ArrayList<>();
+    for (int block = 0; block < keys.blockCount(); block++) {
+      decoded.addAll(asList(keys.block(block)));
+    }
+    return decoded;
+  }
+
+  @Test public void emptyHasNoKeys() {
+    FrontCodedKeys keys = FrontCodedKeys.of(new ArrayList<String>());
+
+    assertEquals(0, keys.size());
+    assertEquals(0, keys.blockCount());
+    assertEquals(0, keys.lowerBound("a", KeyIndex.ORDER));
+  }
+
+  @Test public void blocksDecodeToKeys() {
+    List<String> expected = new ArrayList<>();
+    for (int i = 0; i < 3 * FrontCodedKeys.BLOCK + 5; i++) {
+      expected.add(String.format("user/%04d/name", i));
+    }
+    expected.add("\u00e9t\u00e9");
+    expected.add("\u00e9t\u00e9s");
+    expected.add("a\ud83d\ude00");
+    expected.add("a\ud83d\ude01");
+    expected = sorted(expected);
+
+    FrontCodedKeys keys = FrontCodedKeys.of(expected);
+
+    assertEquals(expected.size(), keys.size());
+    assertEquals(4, keys.blockCount());
+    assertEquals(expected, decode(keys));
+  }
+
+  @Test public void lowerBoundFindsFirstKeyNotSmaller() {
+    List<String> expected = new ArrayList<>();
+    for (int i = 0; i < 100; i += 2) {
+      expected.add(String.format("key%03d", i));
+    }
+    FrontCodedKeys keys = FrontCodedKeys.of(expected);
+
+    assertEquals(0, keys.lowerBound("a", KeyIndex.ORDER));
+    assertEquals(0, keys.lowerBound("key000", KeyIndex.ORDER));
+    assertEquals(1, keys.lowerBound("key001", KeyIndex.ORDER));
+    assertEquals(16, keys.lowerBound("key032", KeyIndex.ORDER));
+    assertEquals(17, keys.lowerBound("key033", KeyIndex.ORDER));
+    assertEquals(49, keys.lowerBound("key098", KeyIndex.ORDER));
+    assertEquals(50, keys.lowerBound("key099", KeyIndex.ORDER));
+    assertEquals(50, keys.lowerBound("z", KeyIndex.ORDER));
+  }
+
+  @Test public void lowerBoundOfSurrogatePairs() {
+    FrontCodedKeys keys =
+        FrontCodedKeys.of(sorted(asList("a", "a\uffff", "a\ud83d\ude00", "a\ud83d\ude01", "b")));
+
+    assertEquals(asList("a", "a\ud83d\ude00", "a\ud83d\ude01", "a\uffff", "b"), decode(keys));
+    assertEquals(1, keys.lowerBound("a\ud83d", KeyIndex.ORDER));
+    assertEquals(2, keys.lowerBound("a\ud83d\ude01", KeyIndex.ORDER));
+    assertEquals(3, keys.lowerBound("a\ud83e", KeyIndex.ORDER));
+  }
+}
@@ -0,0 +1,134 @@
+package uncmn.eve.store.sql;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class KeyIndexTest {
+
+  private static KeyIndex index(String type, String... keys) {
+    Map<String, List<String>> types = new HashMap<>();
+    types.put(type, new ArrayList<>(asList(keys)));
+    return new KeyIndex(types);
+  }
+
+  private static List<String> sorted(List<String> keys) {
+    Collections.sort(keys);
+    return keys;
+  }
+
+  @Test public void loadedKeysHaveTheirTypes() {
+    Map<String, List<String>> types = new HashMap<>();
+    types.put("int", new ArrayList<>(asList("b", "a")));
+    types.put("string", new ArrayList<>(asList("c")));
+    types.put(null, new ArrayList<>(asList("untyped")));
+    KeyIndex index = new KeyIndex(types);
+
+    assertEquals("int", index.type("a"));
+    assertEquals("string", index.type("c"));
+    assertTrue(index.contains("untyped"));
+    assertNull(index.type("untyped"));
+    assertFalse(index.contains("d"));
+    assertNull(index.type("d"));
+    assertEquals(asList("a", "b"), sorted(index.keys("int", null, null)));
+    assertEquals(asList("a", "b", "c", "untyped"), sorted(index.keys(null, null, null)));
+  }
+
+  @Test public void putMovesKeyBetweenTypes() {
+    KeyIndex index = index("int", "a", "b");
+
+    index.put("a", "string");
+    index.put("c", "string");
+    index.put("c", "string");
+
+    assertEquals("string", index.type("a"));
+    assertEquals(asList("b"), index.keys("int", null, null));
+    assertEquals(asList("a", "c"), sorted(index.keys("string", null, null)));
+    assertEquals(Collections.<String>emptyList(), index.keys("long", null, null));
+  }
+
+  @Test public void removeHidesLoadedAndAddedKeys() {
+    KeyIndex index = index("int", "a", "b");
+    index.put("c", "int");
+
+    index.remove("a");
+    index.remove("c");
+    index.remove("missing");
+
+    assertFalse(index.contains("a"));
+    assertFalse(index.contains("c"));
+    assertEquals(asList("b"), index.keys("int", null, null));
+
+    index.put("a", "int");
+    assertTrue(index.contains("a"));
+    assertEquals(asList("a", "b"), sorted(index.keys("int", null, null)));
+
+    index.clear();
+    assertFalse(index.contains("b"));
+    assertEquals(Collections.<String>emptyList(), index.keys(null, null, null));
+  }
+
+  @Test public void mergesLargeDeltas() {
+    KeyIndex index = index("int");
+    List<String> expected = new ArrayList<>();
+    for (int i = 0; i < 2000; i++) {
+      index.put(String.format("key%04d", i), "int");
+    }
+    for (int i = 0; i < 2000; i++) {
+      if (i % 3 == 0) {
+        index.remove(String.format("key%04d", i));
+      } else {
+        expected.add(String.format("key%04d", i));
+      }
+    }
+
+    assertEquals(expected, sorted(index.keys("int", null, null)));
+    assertEquals(expected, sorted(index.keys("int", "key", null)));
+    assertFalse(index.contains("key0000"));
+    assertEquals("int", index.type("key1999"));
+  }
+
+  @Test public void prefixIsCaseSensitiveRange() {
+    KeyIndex index = index("int", "Ab", "ab", "abc", "aB", "b", "a", "AB");
+    for (int i = 0; i < 300; i++) {
+      index.put("ab" + i, "int");
+    }
+
+    List<String> keys = sorted(index.keys("int", "ab", null));
+
+    assertEquals(302, keys.size());
+    for (String key : keys) {
+      assertTrue(key, key.startsWith("ab"));
+    }
+    assertEquals(asList("AB"), index.keys("int", "AB", null));
+    assertEquals(asList("aB"), index.keys("int", "aB", null));
+  }
+
+  @Test public void prefixWithSurrogates() {
+    KeyIndex index = index("int", "a", "a\ud83d\ude00", "a\ud83d\ude00x", "a\ud83d\ude01",
+        "a\uffff", "b");
+
+    assertEquals(asList("a\ud83d\ude00", "a\ud83d\ude00x", "a\ud83d\ude01"),
+        sorted(index.keys("int", "a\ud83d", null)));
+    assertEquals(asList("a\ud83d\ude00", "a\ud83d\ude00x"),
+        sorted(index.keys("int", "a\ud83d\ude00", null)));
+    assertEquals(asList("a\uffff"), index.keys("int", "a\uffff", null));
+  }
+
+  @Test public void containsIgnoresAsciiCase() {
+    KeyIndex index = index("int", "UserName", "username", "user", "\u00c9t\u00e9");
+
+    assertEquals(asList("UserName", "username"), sorted(index.keys("int", null, "NAME")));
+    assertEquals(asList("username"), index.keys("int", "user", "ERN"));
+    assertEquals(Collections.<String>emptyList(), index.keys("int", null, "\u00e9t"));
+  }
+}
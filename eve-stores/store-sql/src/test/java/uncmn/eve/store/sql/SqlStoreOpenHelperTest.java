@@ -0,0 +1,113 @@
+package uncmn.eve.store.sql;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Runs the migration statements against a real Sqlite through JDBC.
+ */
+public class SqlStoreOpenHelperTest {
+
+  private Connection connection;
+
+  @Before public void createVersion1() throws SQLException {
+    connection = DriverManager.getConnection("jdbc:sqlite::memory:");
+    execute("CREATE TABLE key_value(kv_key TEXT,kv_type TEXT,kv_value BLOB,"
+        + "UNIQUE (kv_key) ON CONFLICT REPLACE)");
+    execute("CREATE INDEX index_type ON key_value (kv_type)");
+    execute("CREATE INDEX index_type_and_key ON key_value (kv_type, kv_key)");
+    PreparedStatement insert =
+        connection.prepareStatement("INSERT INTO key_value VALUES (?, ?, ?)");
+    String[][] rows = {
+        { "a", "java.lang.Integer" }, { "b", "java.lang.String" }, { "c", null },
+        { "d", "java.lang.Integer" }
+    };
+    for (int i = 0; i < rows.length; i++) {
+      insert.setString(1, rows[i][0]);
+      insert.setString(2, rows[i][1]);
+      insert.setBytes(3, new byte[] { (byte) i });
+      insert.executeUpdate();
+    }
+    insert.close();
+  }
+
+  @After public void close() throws SQLException {
+    connection.close();
+  }
+
+  private void execute(String sql) throws SQLException {
+    Statement statement = connection.createStatement();
+    statement.execute(sql);
+    statement.close();
+  }
+
+  private List<List<Object>> rows(String sql) throws SQLException {
+    Statement statement = connection.createStatement();
+    ResultSet result = statement.executeQuery(sql);
+    List<List<Object>> rows = new ArrayList<>();
+    int columns = result.getMetaData().getColumnCount();
+    while (result.next()) {
+      List<Object> row = new ArrayList<>();
+      for (int i = 1; i <= columns; i++) {
+        row.add(result.getObject(i));
+      }
+      rows.add(row);
+    }
+    statement.close();
+    return rows;
+  }
+
+  private void migrate() throws SQLException {
+    for (String sql : SqlStoreOpenHelper.typeIdsMigration()) {
+      execute(sql);
+    }
+  }
+
+  @Test public void keepsEveryRowAndValue() throws SQLException {
+    migrate();
+
+    List<List<Object>> rows = rows("SELECT kv_key, kv_value FROM key_value ORDER BY kv_key");
+    assertEquals(4, rows.size());
+    for (int i = 0; i < rows.size(); i++) {
+      assertEquals(String.valueOf((char) ('a' + i)), rows.get(i).get(0));
+      assertArrayEquals(new byte[] { (byte) i }, (byte[]) rows.get(i).get(1));
+    }
+  }
+
+  @Test public void rowsHoldIdsOfTheirTypes() throws SQLException {
+    migrate();
+
+    assertEquals(asList(asList((Object) "a", "java.lang.Integer"),
+        asList((Object) "b", "java.lang.String"), asList((Object) "c", null),
+        asList((Object) "d", "java.lang.Integer")),
+        rows("SELECT kv_key, type_name FROM key_value LEFT JOIN types"
+            + " ON kv_type_id = type_id ORDER BY kv_key"));
+    assertEquals(asList(asList((Object) 2)), rows("SELECT count(*) FROM types"));
+  }
+
+  @Test public void replacesTableAndIndexes() throws SQLException {
+    migrate();
+
+    assertEquals(asList(asList((Object) "index_type_and_key"), asList((Object) "key_value"),
+        asList((Object) "types")),
+        rows("SELECT name FROM sqlite_master WHERE name NOT LIKE 'sqlite_%' ORDER BY name"));
+    List<Object> columns = new ArrayList<>();
+    for (List<Object> column : rows("PRAGMA table_info(key_value)")) {
+      columns.add(column.get(1));
+    }
+    assertEquals(asList((Object) "kv_key", "kv_type_id", "kv_value"), columns);
+  }
+}
@@ -0,0 +1,134 @@
+package uncmn.eve.store.sql;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TrigramIndexTest {
+
+  private static TrigramIndex index(String type, String... keys) {
+    Map<String, List<String>> types = new HashMap<>();
+    types.put(type, new ArrayList<>(asList(keys)));
+    return new TrigramIndex(types);
+  }
+
+  private static List<String> keys(TrigramIndex index, String type, String part) {
+    List<String> keys = index.keys(type, part);
+    Collections.sort(keys);
+    return keys;
+  }
+
+  @Test public void findsKeysByEveryTrigram() {
+    TrigramIndex index = index("int", "abcd", "xabcx", "bcd", "abd");
+
+    assertEquals(asList("abcd", "xabcx"), keys(index, null, "abc"));
+    assertEquals(asList("abcd", "bcd"), keys(index, null, "bcd"));
+    assertEquals(asList("abcd"), keys(index, null, "abcd"));
+    assertEquals(Collections.<String>emptyList(), keys(index, null, "acd"));
+    assertEquals(Collections.<String>emptyList(), keys(index, null, "zzz"));
+  }
+
+  @Test public void verifiesCandidatesOfIntersection() {
+    TrigramIndex index = index("int", "abcXbcd", "abcd", "bcdabc");
+
+    assertEquals(asList("abcd"), keys(index, null, "abcd"));
+    assertEquals(asList("bcdabc"), keys(index, null, "dabc"));
+  }
+
+  @Test public void repeatedTrigrams() {
+    TrigramIndex index = index("int", "aaaa", "aaa", "aaXaa");
+
+    assertEquals(asList("aaa", "aaaa"), keys(index, null, "aaa"));
+    assertEquals(asList("aaaa"), keys(index, null, "aaaa"));
+  }
+
+  @Test public void foldsAsciiCaseLikeContainsIgnoreCase() {
+    TrigramIndex index = index("int", "UserName", "username", "USERNAME", "\u00c9T\u00c9",
+        "\u00e9t\u00e9");
+    String[] parts = { "NAME", "name", "rNa", "\u00e9t\u00e9", "\u00c9t\u00c9" };
+
+    for (String part : parts) {
+      List<String> expected = new ArrayList<>();
+      for (String key : asList("UserName", "username", "USERNAME", "\u00c9T\u00c9",
+          "\u00e9t\u00e9")) {
+        if (KeyIndex.containsIgnoreCase(key, part)) {
+          expected.add(key);
+        }
+      }
+      Collections.sort(expected);
+      assertEquals(part, expected, keys(index, null, part));
+    }
+    assertEquals(asList("USERNAME", "UserName", "username"), keys(index, null, "name"));
+    assertEquals(asList("\u00e9t\u00e9"), keys(index, null, "\u00e9t\u00e9"));
+  }
+
+  @Test public void partsShorterThanTrigramAreNotAnswered() {
+    TrigramIndex index = index("int", "ab", "abc");
+
+    assertNull(index.keys(null, "ab"));
+    assertNull(index.keys(null, ""));
+    assertTrue(index.contains("ab"));
+    assertEquals(asList("abc"), keys(index, null, "abc"));
+  }
+
+  @Test public void filtersByType() {
+    TrigramIndex index = index("int", "key1", "key2");
+    index.put("key3", "string");
+    index.put("key2", "string");
+
+    assertEquals(asList("key1"), keys(index, "int", "key"));
+    assertEquals(asList("key2", "key3"), keys(index, "string", "key"));
+    assertEquals(asList("key1", "key2", "key3"), keys(index, "", "key"));
+    assertEquals(Collections.<String>emptyList(), keys(index, "long", "key"));
+  }
+
+  @Test public void removedKeysAreNotFound() {
+    TrigramIndex index = index("int", "key1", "key2");
+
+    index.remove("key1");
+    index.remove("missing");
+
+    assertFalse(index.contains("key1"));
+    assertEquals(asList("key2"), keys(index, null, "key"));
+
+    index.put("key1", "int");
+    assertEquals(asList("key1", "key2"), keys(index, null, "key"));
+  }
+
+  @Test public void compactsAfterRemovingMostKeys() {
+    TrigramIndex index = index("int");
+    for (int i = 0; i < 3000; i++) {
+      index.put(String.format("key%04d", i), "int");
+    }
+    List<String> expected = new ArrayList<>();
+    for (int i = 0; i < 3000; i++) {
+      if (i % 4 == 0) {
+        expected.add(String.format("key%04d", i));
+      } else {
+        index.remove(String.format("key%04d", i));
+      }
+    }
+
+    assertEquals(expected, keys(index, null, "key"));
+    assertEquals(asList("key0100", "key1000", "key1004", "key1008", "key1100", "key2100"),
+        keys(index, null, "100"));
+    assertFalse(index.contains("key0001"));
+    assertTrue(index.contains("key2996"));
+
+    index.put("key0001", "string");
+    assertEquals(asList("key0001"), keys(index, "string", "key"));
+
+    index.clear();
+    assertFalse(index.contains("key0000"));
+    assertEquals(Collections.<String>emptyList(), keys(index, null, "key"));
+  }
+}
@@ -0,0 +1,121 @@
+package uncmn.eve.store.sql;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Pattern and range helpers, checked against a real Sqlite through JDBC.
+ */
+public class ValueQueryTest {
+
+  private Connection connection;
+
+  @Before public void createTable() throws SQLException {
+    connection = DriverManager.getConnection("jdbc:sqlite::memory:");
+    Statement statement = connection.createStatement();
+    statement.execute(ValueQuery.CREATE_TABLE);
+    statement.close();
+  }
+
+  @After public void close() throws SQLException {
+    connection.close();
+  }
+
+  private void insert(String... keys) throws SQLException {
+    PreparedStatement insert = connection.prepareStatement(
+        "INSERT INTO " + ValueQuery.TABLE + " (" + ValueQuery.KEY + ") VALUES (?)");
+    for (String key : keys) {
+      insert.setString(1, key);
+      insert.executeUpdate();
+    }
+    insert.close();
+  }
+
+  private List<String> keys(String where, String... args) throws SQLException {
+    PreparedStatement select = connection.prepareStatement("SELECT " + ValueQuery.KEY + " FROM "
+        + ValueQuery.TABLE + " WHERE " + where + " ORDER BY " + ValueQuery.KEY);
+    for (int i = 0; i < args.length; i++) {
+      select.setString(i + 1, args[i]);
+    }
+    List<String> keys = new ArrayList<>();
+    ResultSet rows = select.executeQuery();
+    while (rows.next()) {
+      keys.add(rows.getString(1));
+    }
+    select.close();
+    return keys;
+  }
+
+  private List<String> contains(String key) throws SQLException {
+    return keys(ValueQuery.LIKE_KEY, "%" + ValueQuery.escapeLike(key) + "%");
+  }
+
+  private List<String> prefix(String prefix) throws SQLException {
+    String end = ValueQuery.successor(prefix);
+    return end == null ? keys(ValueQuery.KEY_FROM, prefix)
+        : keys(ValueQuery.KEY_RANGE, prefix, end);
+  }
+
+  @Test public void successorIncrementsLastCodePoint() {
+    assertEquals("b", ValueQuery.successor("a"));
+    assertEquals("ac", ValueQuery.successor("ab"));
+    assertEquals("a\u0100", ValueQuery.successor("a\u00ff"));
+  }
+
+  @Test public void successorSkipsSurrogates() {
+    assertEquals("a\ue000", ValueQuery.successor("a\ud7ff"));
+    assertEquals("a\ud800\udc00", ValueQuery.successor("a\uffff"));
+    assertEquals("a\ud83d\ude01", ValueQuery.successor("a\ud83d\ude00"));
+  }
+
+  @Test public void successorDropsMaxCodePoints() {
+    assertEquals("b", ValueQuery.successor("a\udbff\udfff"));
+    assertNull(ValueQuery.successor("\udbff\udfff\udbff\udfff"));
+    assertNull(ValueQuery.successor(""));
+  }
+
+  @Test public void escapeLikeEscapesWildcardsAndEscape() {
+    assertEquals("plain", ValueQuery.escapeLike("plain"));
+    assertEquals("50\\%\\_off\\\\", ValueQuery.escapeLike("50%_off\\"));
+  }
+
+  @Test public void containsMatchesWildcardsLiterally() throws SQLException {
+    insert("100%", "1000", "a_b", "axb", "back\\slash", "backslash");
+
+    assertEquals(asList("100%"), contains("0%"));
+    assertEquals(asList("a_b"), contains("_"));
+    assertEquals(asList("back\\slash"), contains("k\\s"));
+    assertEquals(asList("100%", "1000"), contains("100"));
+  }
+
+  @Test public void containsIgnoresAsciiCase() throws SQLException {
+    insert("ABC", "abd");
+
+    assertEquals(asList("ABC"), contains("abc"));
+  }
+
+  /**
+   * The JDBC driver binds supplementary characters as surrogates in modified UTF-8, so only
+   * characters of the basic plane are compared with Sqlite.
+   */
+  @Test public void prefixRangeFollowsUtf8Order() throws SQLException {
+    insert("a", "a\u00ff", "a\u0100", "a\uffff", "a\uffffz", "b", "\u00e9t\u00e9");
+
+    assertEquals(asList("a", "a\u00ff", "a\u0100", "a\uffff", "a\uffffz"), prefix("a"));
+    assertEquals(asList("a\u00ff"), prefix("a\u00ff"));
+    assertEquals(asList("\u00e9t\u00e9"), prefix("\u00e9"));
+  }
+}
@@ -0,0 +1,145 @@
+package uncmn.eve.store.testing;
+
+import org.junit.Test;
+import uncmn.eve.Store;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Behaviour every {@link Store} must have. Tests of a store extend this class, create the store
+ * in {@link #newStore()} and add the cases specific to that store.
+ */
+public abstract class StoreContract {
+
+  /**
+   * @return a new empty store using a {@link TestConverter}, subclasses close it after the test.
+   */
+  protected abstract Store newStore();
+
+  private Store store() {
+    Store store = newStore();
+    store.set("a1", 1);
+    store.set("b1", 2);
+    store.set("b2", "two");
+    store.set("b3", 3);
+    store.set("c1", 4);
+    return store;
+  }
+
+  @Test public void roundTrip() {
+    Store store = newStore();
+    store.set("a1", 1);
+    store.set("b1", "one");
+    store.set("b2", 2L);
+    store.set("b3", true);
+
+    assertEquals(1, store.getInt("a1", 0));
+    assertEquals("one", store.<String>get("b1"));
+    assertEquals(2L, store.getLong("b2", 0));
+    assertTrue(store.getBoolean("b3", false));
+    assertTrue(store.exists("a1"));
+  }
+
+  @Test public void missingKeys() {
+    Store store = store();
+
+    assertNull(store.get("missing"));
+    assertFalse(store.exists("missing"));
+    assertNull(store.type("missing"));
+    assertEquals(-1, store.getInt("missing", -1));
+    assertEquals(-1, store.getInt("b2", -1));
+  }
+
+  @Test public void setReplacesValueAndType() {
+    Store store = store();
+
+    store.set("b2", 5);
+
+    assertEquals(5, store.getInt("b2", 0));
+    assertEquals(asList("b1", "b2", "b3"),
+        store.query().keyPrefix("b").type(Integer.class).keys());
+    assertEquals(0, store.query().type(String.class).count());
+  }
+
+  @Test public void delete() {
+    Store store = store();
+
+    assertTrue(store.delete("b1"));
+    assertFalse(store.delete("b1"));
+
+    assertNull(store.get("b1"));
+    assertFalse(store.exists("b1"));
+    assertEquals(asList("b2", "b3"), store.query().keyPrefix("b").anyType().keys());
+    assertEquals(asList(3), store.query().keyPrefix("b").type(Integer.class).values());
+    assertEquals(4, store.clear());
+    assertFalse(store.exists("a1"));
+    assertEquals(0, store.query().type(Integer.class).count());
+  }
+
+  @Test public void batchCommitsAllWrites() {
+    Store store = newStore();
+    store.set("a", 1);
+
+    store.batch().set("b", 2).delete("a").set("c", "three").commit();
+
+    assertFalse(store.exists("a"));
+    assertEquals(2, store.getInt("b", 0));
+    assertEquals("three", store.<String>get("c"));
+  }
+
+  @Test public void prefixContainsAndTypeFilters() {
+    Store store = store();
+
+    assertEquals(asList("b1", "b2", "b3"), store.query().keyPrefix("b").anyType().keys());
+    assertEquals(asList(2, 3), store.query().keyPrefix("b").type(Integer.class).values());
+    assertEquals(asList("a1", "b1", "c1"), store.query().keyContains("1").anyType().keys());
+    assertEquals(asList("a1", "b1", "b3", "c1"), store.query().type(Integer.class).keys());
+    assertEquals(3, store.query().keyPrefix("b").anyType().count());
+  }
+
+  @Test public void pagesAfterKey() {
+    Store store = store();
+
+    assertEquals(asList("b2", "b3"), store.query().keyPrefix("b").anyType().after("b1").keys());
+    assertEquals(asList("b3"),
+        store.query().keyPrefix("b").type(Integer.class).after("b1").keys());
+    assertEquals(asList("b3"),
+        store.query().keyPrefix("b").anyType().after("b1").offset(1).keys());
+    assertEquals(asList("b2"), store.query().keyPrefix("b").anyType().after("b1").limit(1).keys());
+    assertEquals(asList("b2"), store.query().keyPrefix("b").anyType().offset(1).limit(1).keys());
+    assertEquals(asList("c1"), store.query().type(Integer.class).after("b3").keys());
+  }
+
+  @Test public void afterKeyBelowPrefix() {
+    Store store = store();
+
+    assertEquals(asList("b1", "b2", "b3"),
+        store.query().keyPrefix("b").anyType().after("a").keys());
+    assertEquals(asList(2, 3),
+        store.query().keyPrefix("b").type(Integer.class).after("a1").values());
+    assertEquals(asList("b3"),
+        store.query().keyPrefix("b").type(Integer.class).after("a1").offset(1).keys());
+  }
+
+  @Test public void afterKeyAbovePrefix() {
+    Store store = store();
+
+    assertEquals(0, store.query().keyPrefix("b").anyType().after("c").count());
+    assertTrue(store.query().keyPrefix("b").anyType().after("c").keys().isEmpty());
+  }
+
+  @Test public void queriesOfTypesNotWritten() {
+    Store store = store();
+
+    assertEquals(0, store.query().type(Double.class).count());
+    assertTrue(store.query().keyPrefix("b").type(Double.class).keys().isEmpty());
+    assertTrue(store.query().keyContains("1").type(Double.class).after("a").values().isEmpty());
+
+    store.set("d1", 1.5);
+    assertEquals(asList(1.5), store.query().type(Double.class).values());
+  }
+}
@@ -0,0 +1,29 @@
+package uncmn.eve.store.testing;
+
+import uncmn.eve.Converter;
+
+/**
+ * Converter without custom types, eve handles primitives and strings.
+ */
+public final class TestConverter implements Converter {
+
+  @Override public <T> T deserialize(byte[] data, String converterKey) {
+    throw new UnsupportedOperationException(converterKey);
+  }
+
+  @Override public byte[] serialize(Object object) {
+    throw new UnsupportedOperationException(String.valueOf(object));
+  }
+
+  @Override public String mapping(Object object) {
+    return null;
+  }
+
+  @Override public String mapping(Class<?> clazz) {
+    return null;
+  }
+
+  @Override public Class mapType(String converterKey) {
+    return null;
+  }
+}
@@ -0,0 +1,319 @@
+package uncmn.eve;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Asynchronous view of a {@link Store}.
+ * <p>Every operation runs on the {@link Executor} of this view and returns a
+ * {@link StoreFuture}. Operations on the same key run in the order they were submitted, so
+ * callers can pipeline writes and reads without waiting. A batch is ordered against the
+ * operations on each of its keys. Queries are not ordered with respect to key operations.</p>
+ * <p>An operation the executor rejects fails its future with the
+ * {@link RejectedExecutionException}.</p>
+ */
+public final class AsyncStore {
+
+  private static final int STRIPES = 16;
+
+  private final Store store;
+  private final Executor executor;
+  private final SerialExecutor[] serialExecutors;
+  /**
+   * Held while a batch queues on its stripes, so batches queue on all stripes in one order and
+   * cannot wait for each other.
+   */
+  private final Object batchLock = new Object();
+
+  private AsyncStore(Store store, Executor executor) {
+    this.store = store;
+    this.executor = executor;
+    this.serialExecutors = new SerialExecutor[STRIPES];
+    for (int i = 0; i < STRIPES; i++) {
+      serialExecutors[i] = new SerialExecutor(executor);
+    }
+  }
+
+  /**
+   * @param store store to run operations on.
+   * @param executor executor to run operations with.
+   * @return new asynchronous view.
+   */
+  public static AsyncStore create(Store store, Executor executor) {
+    if (store == null || executor == null) {
+      throw new IllegalArgumentException("Store and executor cannot be null");
+    }
+    return new AsyncStore(store, executor);
+  }
+
+  /**
+   * A pool of at most threads daemon threads, idle threads are released after a minute.
+   *
+   * @param threads maximum number of threads.
+   */
+  public static ExecutorService boundedExecutor(int threads) {
+    ThreadPoolExecutor pool =
+        new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(), new EveThreadFactory());
+    pool.allowCoreThreadTimeOut(true);
+    return pool;
+  }
+
+  /**
+   * A virtual thread per task executor when the runtime supports virtual threads, a
+   * {@link #boundedExecutor(int)} sized to the number of processors otherwise.
+   */
+  public static ExecutorService virtualThreadExecutor() {
+    try {
+      Method method = java.util.concurrent.Executors.class.getMethod(
+          "newVirtualThreadPerTaskExecutor");
+      return (ExecutorService) method.invoke(null);
+    } catch (Exception e) {
+      return boundedExecutor(Runtime.getRuntime().availableProcessors());
+    }
+  }
+
+  /**
+   * Store backing this view.
+   */
+  public Store store() {
+    return store;
+  }
+
+  /**
+   * Get value for key.
+   *
+   * @param key is a {@link String}, NotNull and Unique
+   * @param <T> value type.
+   */
+  public <T> StoreFuture<T> get(final String key) {
+    return submit(key, new Callable<T>() {
+      @Override public T call() throws Exception {
+        return store.get(key);
+      }
+    });
+  }
+
+  /**
+   * Set value for key. Values are encoded like the matching {@link Store} set method.
+   *
+   * @param key is a {@link String}, NotNull and Unique
+   * @param value primitive, array, String, list or an object that can be converted.
+   */
+  public StoreFuture<Void> set(final String key, final Object value) {
+    return submit(key, new Callable<Void>() {
+      @Override public Void call() throws Exception {
+        store.put(key, store.encode(value));
+        return null;
+      }
+    });
+  }
+
+  /**
+   * Delete key.
+   *
+   * @param key is a {@link String}, NotNull and Unique
+   */
+  public StoreFuture<Boolean> delete(final String key) {
+    return submit(key, new Callable<Boolean>() {
+      @Override public Boolean call() throws Exception {
+        return store.delete(key);
+      }
+    });
+  }
+
+  /**
+   * Check if key exists.
+   *
+   * @param key is a {@link String}, NotNull and Unique
+   */
+  public StoreFuture<Boolean> exists(final String key) {
+    return submit(key, new Callable<Boolean>() {
+      @Override public Boolean call() throws Exception {
+        return store.exists(key);
+      }
+    });
+  }
+
+  /**
+   * Commit a batch. The batch runs after the operations submitted before it on any of its keys
+   * and before the operations submitted after it.
+   *
+   * @param batch batch built with {@link Store#batch()} of the same store.
+   */
+  public StoreFuture<Void> commit(final WriteBatch batch) {
+    StoreFuture<Void> future = new StoreFuture<>(new Callable<Void>() {
+      @Override public Void call() throws Exception {
+        batch.commit();
+        return null;
+      }
+    });
+    boolean[] stripes = new boolean[STRIPES];
+    int count = 0;
+    for (WriteBatch.Write write : batch.writes()) {
+      int stripe = stripe(write.key());
+      if (!stripes[stripe]) {
+        stripes[stripe] = true;
+        count++;
+      }
+    }
+    if (count == 0) {
+      execute(future);
+      return future;
+    }
+    BatchGate gate = new BatchGate(future, count);
+    synchronized (batchLock) {
+      for (int i = 0; i < STRIPES; i++) {
+        if (stripes[i]) {
+          serialExecutors[i].hold(gate);
+        }
+      }
+    }
+    return future;
+  }
+
+  /**
+   * Run the entries query.
+   *
+   * @param runner query built with {@link Store#query()}.
+   */
+  public <T> StoreFuture<List<Entry<T>>> entries(final Query.QueryRunner<T> runner) {
+    return submit(null, new Callable<List<Entry<T>>>() {
+      @Override public List<Entry<T>> call() throws Exception {
+        return runner.entries();
+      }
+    });
+  }
+
+  /**
+   * Run the keys query.
+   *
+   * @param runner query built with {@link Store#query()}.
+   */
+  public <T> StoreFuture<List<String>> keys(final Query.QueryRunner<T> runner) {
+    return submit(null, new Callable<List<String>>() {
+      @Override public List<String> call() throws Exception {
+        return runner.keys();
+      }
+    });
+  }
+
+  /**
+   * Count the results of a query, see {@link Query.QueryRunner#count()}.
+   *
+   * @param runner query built with {@link Store#query()}.
+   */
+  public <T> StoreFuture<Integer> count(final Query.QueryRunner<T> runner) {
+    return submit(null, new Callable<Integer>() {
+      @Override public Integer call() throws Exception {
+        return runner.count();
+      }
+    });
+  }
+
+  /**
+   * Run the values query.
+   *
+   * @param runner query built with {@link Store#query()}.
+   */
+  public <T> StoreFuture<List<T>> values(final Query.QueryRunner<T> runner) {
+    return submit(null, new Callable<List<T>>() {
+      @Override public List<T> call() throws Exception {
+        return runner.values();
+      }
+    });
+  }
+
+  /**
+   * Submit a task, tasks of the same key run serially in submission order.
+   */
+  private <T> StoreFuture<T> submit(String key, Callable<T> callable) {
+    StoreFuture<T> future = new StoreFuture<>(callable);
+    if (key == null) {
+      execute(future);
+    } else {
+      serialExecutors[stripe(key)].execute(future);
+    }
+    return future;
+  }
+
+  private void execute(StoreFuture<?> future) {
+    try {
+      executor.execute(future);
+    } catch (RejectedExecutionException e) {
+      future.reject(e);
+    }
+  }
+
+  private static int stripe(String key) {
+    int hash = key.hashCode();
+    hash ^= (hash >>> 16);
+    return hash & (STRIPES - 1);
+  }
+
+  /**
+   * Holds the stripes of the keys of a batch, the batch runs once all of them are held and
+   * releases them when done. A stripe rejecting the gate fails the batch.
+   */
+  private static final class BatchGate implements SerialExecutor.HeldTask {
+
+    private static final Runnable NOTHING = new Runnable() {
+      @Override public void run() {
+      }
+    };
+
+    private final StoreFuture<Void> future;
+    private final List<Runnable> releases = new ArrayList<>();
+    private int waiting;
+
+    BatchGate(StoreFuture<Void> future, int stripes) {
+      this.future = future;
+      this.waiting = stripes;
+    }
+
+    @Override public void run(Runnable release) {
+      List<Runnable> held;
+      synchronized (this) {
+        releases.add(release);
+        if (--waiting > 0) {
+          return;
+        }
+        held = new ArrayList<>(releases);
+      }
+      try {
+        //does nothing if a stripe rejected the batch.
+        future.run();
+      } finally {
+        for (Runnable stripe : held) {
+          stripe.run();
+        }
+      }
+    }
+
+    @Override public void rejected(RejectedExecutionException e) {
+      future.reject(e);
+      run(NOTHING);
+    }
+  }
+
+  private static final class EveThreadFactory implements ThreadFactory {
+
+    private final AtomicInteger count = new AtomicInteger();
+
+    @Override public Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable, "eve-async-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+}
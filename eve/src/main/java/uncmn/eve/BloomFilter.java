@@ -0,0 +1,183 @@
+package uncmn.eve;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A Bloom filter over string keys.
+ * <p>{@link #mightContain(String)} never returns false for a key that was put, it returns true
+ * for a key that was not put with roughly the false positive probability the filter was created
+ * with. Keys cannot be removed. Puts and lookups are lock free and safe from many threads.</p>
+ */
+public final class BloomFilter {
+
+  private static final int MAGIC = 0x45564542; //EVEB
+  private static final int VERSION = 1;
+
+  private final AtomicLongArray bits;
+  private final long bitSize;
+  private final int hashes;
+
+  private BloomFilter(long[] data, int hashes) {
+    this.bits = new AtomicLongArray(data);
+    this.bitSize = (long) data.length * Long.SIZE;
+    this.hashes = hashes;
+  }
+
+  /**
+   * @param expectedKeys number of keys expected to be put.
+   * @param fpp desired false positive probability, between 0 and 1.
+   * @return empty filter.
+   */
+  public static BloomFilter create(long expectedKeys, double fpp) {
+    if (fpp <= 0 || fpp >= 1) {
+      throw new IllegalArgumentException("False positive probability must be between 0 and 1");
+    }
+    long keys = Math.max(1, expectedKeys);
+    long bitSize = (long) (-keys * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+    bitSize = Math.max(Long.SIZE, bitSize);
+    int hashes = Math.max(1, (int) Math.round((double) bitSize / keys * Math.log(2)));
+    long words = (bitSize + Long.SIZE - 1) / Long.SIZE;
+    if (words > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Bloom filter too large");
+    }
+    return new BloomFilter(new long[(int) words], hashes);
+  }
+
+  /**
+   * Read a filter written with {@link #writeTo(OutputStream)}.
+   *
+   * @throws IOException if the stream does not contain a valid filter.
+   */
+  public static BloomFilter readFrom(InputStream inputStream) throws IOException {
+    DataInputStream input = new DataInputStream(inputStream);
+    if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+      throw new IOException("Not a bloom filter");
+    }
+    int hashes = input.readInt();
+    int words = input.readInt();
+    if (hashes < 1 || words < 1) {
+      throw new IOException("Corrupt bloom filter");
+    }
+    long[] data = new long[words];
+    for (int i = 0; i < words; i++) {
+      data[i] = input.readLong();
+    }
+    return new BloomFilter(data, hashes);
+  }
+
+  /**
+   * Write this filter, a consistent snapshot requires that no keys are put concurrently.
+   */
+  public void writeTo(OutputStream outputStream) throws IOException {
+    DataOutputStream output = new DataOutputStream(outputStream);
+    output.writeInt(MAGIC);
+    output.writeInt(VERSION);
+    output.writeInt(hashes);
+    output.writeInt(bits.length());
+    for (int i = 0; i < bits.length(); i++) {
+      output.writeLong(bits.get(i));
+    }
+    output.flush();
+  }
+
+  /**
+   * Add key to the filter.
+   */
+  public void put(String key) {
+    long hash1 = hash(key);
+    long hash2 = mix(hash1 ^ 0x9E3779B97F4A7C15L);
+    for (int i = 1; i <= hashes; i++) {
+      set(index(hash1, hash2, i));
+    }
+  }
+
+  /**
+   * @return false if key was definitely never put, true if it might have been.
+   */
+  public boolean mightContain(String key) {
+    long hash1 = hash(key);
+    long hash2 = mix(hash1 ^ 0x9E3779B97F4A7C15L);
+    for (int i = 1; i <= hashes; i++) {
+      long index = index(hash1, hash2, i);
+      if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Remove all keys.
+   */
+  public void clear() {
+    for (int i = 0; i < bits.length(); i++) {
+      bits.set(i, 0);
+    }
+  }
+
+  /**
+   * Number of bits set.
+   */
+  public long bitCount() {
+    long count = 0;
+    for (int i = 0; i < bits.length(); i++) {
+      count += Long.bitCount(bits.get(i));
+    }
+    return count;
+  }
+
+  /**
+   * Size of the filter in bits.
+   */
+  public long bitSize() {
+    return bitSize;
+  }
+
+  /**
+   * Probability that {@link #mightContain(String)} returns true for a key never put, estimated
+   * from the bits set so far.
+   */
+  public double expectedFpp() {
+    return Math.pow((double) bitCount() / bitSize, hashes);
+  }
+
+  private long index(long hash1, long hash2, int i) {
+    return ((hash1 + i * hash2) & Long.MAX_VALUE) % bitSize;
+  }
+
+  private void set(long index) {
+    int word = (int) (index >>> 6);
+    long mask = 1L << index;
+    while (true) {
+      long current = bits.get(word);
+      if ((current & mask) != 0 || bits.compareAndSet(word, current, current | mask)) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * 64 bit hash of the characters of key, murmur3 finalizer over a multiplicative hash.
+   */
+  private static long hash(String key) {
+    long h = 0xcbf29ce484222325L;
+    for (int i = 0; i < key.length(); i++) {
+      h = (h ^ key.charAt(i)) * 0x100000001B3L;
+    }
+    return mix(h ^ key.length());
+  }
+
+  private static long mix(long h) {
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h;
+  }
+}
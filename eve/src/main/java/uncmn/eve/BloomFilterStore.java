@@ -0,0 +1,301 @@
+package uncmn.eve;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A {@link Store} that answers lookups of missing keys from a {@link BloomFilter} over all keys
+ * of another store.
+ * <p>{@link #exists(String)}, {@link #get(String)} and {@link #type(String)} of a key the filter
+ * has never seen return without touching the backing store. The filter is built from the keys of
+ * the backing store, or read from its file, when this store is created. Sets add keys to the
+ * filter, deleted keys stay in the filter until {@link #rebuild()}.</p>
+ * <p>The file is deleted by the first write after it was read or flushed and written again by
+ * {@link #flush()}, a store that was not flushed before the process died rebuilds its filter. A
+ * file that cannot be read is ignored and the filter rebuilt the same way.</p>
+ */
+public class BloomFilterStore extends ForwardingStore {
+
+  private final long expectedKeys;
+  private final double fpp;
+  private final File file;
+  //shared by writes, exclusive for flush, rebuild and clear which replace the whole filter.
+  private final ReadWriteLock flushLock = new ReentrantReadWriteLock();
+  private final AtomicBoolean dirty = new AtomicBoolean(false);
+  private final AtomicLong negativeCount = new AtomicLong();
+  private final AtomicLong positiveCount = new AtomicLong();
+  private final AtomicLong falsePositiveCount = new AtomicLong();
+  private volatile BloomFilter filter;
+
+  BloomFilterStore(Builder builder) {
+    super(builder.store);
+    this.expectedKeys = builder.expectedKeys;
+    this.fpp = builder.fpp;
+    this.file = builder.file;
+    this.filter = read();
+    if (filter == null) {
+      this.filter = build();
+      this.dirty.set(true);
+    }
+  }
+
+  /**
+   * @param store backing store.
+   */
+  public static Builder builder(Store store) {
+    return new Builder(store);
+  }
+
+  @Override public boolean exists(String key) {
+    if (!mightContain(key)) {
+      return false;
+    }
+    return verify(delegate.exists(key));
+  }
+
+  @Override public <T> T get(String key) {
+    if (!mightContain(key)) {
+      return null;
+    }
+    T value = delegate.get(key);
+    verify(value != null);
+    return value;
+  }
+
+  @Override protected byte[] bytes(String key, String converterKey) {
+    if (!mightContain(key)) {
+      return null;
+    }
+    return delegate.bytes(key, converterKey);
+  }
+
+  @Override public Class type(String key) {
+    if (!mightContain(key)) {
+      return null;
+    }
+    return delegate.type(key);
+  }
+
+  @Override public void set(String key, Value value) {
+    flushLock.readLock().lock();
+    try {
+      markDirty();
+      filter.put(key);
+      delegate.set(key, value);
+    } finally {
+      flushLock.readLock().unlock();
+    }
+  }
+
+  @Override protected void write(WriteBatch batch) {
+    flushLock.readLock().lock();
+    try {
+      markDirty();
+      for (WriteBatch.Write write : batch.writes()) {
+        if (!write.isDelete()) {
+          filter.put(write.key());
+        }
+      }
+      delegate.write(batch);
+    } finally {
+      flushLock.readLock().unlock();
+    }
+  }
+
+  @Override public int clear() {
+    flushLock.writeLock().lock();
+    try {
+      markDirty();
+      int count = delegate.clear();
+      filter.clear();
+      return count;
+    } finally {
+      flushLock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Build the filter again from the keys of the backing store, dropping deleted keys.
+   */
+  public void rebuild() {
+    flushLock.writeLock().lock();
+    try {
+      markDirty();
+      filter = build();
+    } finally {
+      flushLock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Write the filter to its file, if the store has one, so the next start skips the key scan.
+   *
+   * @throws IOException if the file cannot be written.
+   */
+  public void flush() throws IOException {
+    if (file == null) {
+      return;
+    }
+    flushLock.writeLock().lock();
+    try {
+      if (!dirty.get()) {
+        return;
+      }
+      File temp = new File(file.getPath() + ".tmp");
+      OutputStream output = new BufferedOutputStream(new FileOutputStream(temp));
+      try {
+        filter.writeTo(output);
+      } finally {
+        output.close();
+      }
+      if (!temp.renameTo(file)) {
+        throw new IOException("Cannot rename " + temp + " to " + file);
+      }
+      dirty.set(false);
+    } finally {
+      flushLock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Number of lookups answered by the filter without the backing store.
+   */
+  public long negativeCount() {
+    return negativeCount.get();
+  }
+
+  /**
+   * Number of lookups passed to the backing store.
+   */
+  public long positiveCount() {
+    return positiveCount.get();
+  }
+
+  /**
+   * Number of lookups passed to the backing store for a key it did not have.
+   */
+  public long falsePositiveCount() {
+    return falsePositiveCount.get();
+  }
+
+  /**
+   * Observed ratio of lookups of missing keys that were passed to the backing store.
+   */
+  public double falsePositiveRate() {
+    long falsePositives = falsePositiveCount.get();
+    long missing = falsePositives + negativeCount.get();
+    return missing == 0 ? 0.0 : (double) falsePositives / missing;
+  }
+
+  /**
+   * False positive probability expected from the bits set in the filter.
+   */
+  public double expectedFpp() {
+    return filter.expectedFpp();
+  }
+
+  private boolean mightContain(String key) {
+    if (filter.mightContain(key)) {
+      positiveCount.incrementAndGet();
+      return true;
+    }
+    negativeCount.incrementAndGet();
+    return false;
+  }
+
+  private boolean verify(boolean found) {
+    if (!found) {
+      falsePositiveCount.incrementAndGet();
+    }
+    return found;
+  }
+
+  private void markDirty() {
+    if (dirty.compareAndSet(false, true) && file != null && file.exists() && !file.delete()) {
+      throw new IllegalStateException("Cannot delete stale bloom filter " + file);
+    }
+  }
+
+  private BloomFilter build() {
+    List<String> keys = delegate.keysPrefixAny("");
+    BloomFilter bloomFilter = BloomFilter.create(Math.max(expectedKeys, keys.size() * 2L), fpp);
+    for (String key : keys) {
+      bloomFilter.put(key);
+    }
+    return bloomFilter;
+  }
+
+  /**
+   * @return filter of the file, null if there is no file or it cannot be read.
+   */
+  private BloomFilter read() {
+    if (file == null || !file.exists()) {
+      return null;
+    }
+    try {
+      InputStream input = new BufferedInputStream(new FileInputStream(file));
+      try {
+        return BloomFilter.readFrom(input);
+      } finally {
+        input.close();
+      }
+    } catch (IOException e) {
+      //corrupt or truncated, rebuilt from the keys of the backing store.
+      return null;
+    }
+  }
+
+  public static class Builder {
+
+    final Store store;
+    long expectedKeys = 10000;
+    double fpp = 0.01;
+    File file;
+
+    Builder(Store store) {
+      if (store == null) {
+        throw new IllegalArgumentException("Store cannot be null");
+      }
+      this.store = store;
+    }
+
+    /**
+     * Number of keys the filter is sized for, at least twice the keys present at build time.
+     */
+    public Builder expectedKeys(long expectedKeys) {
+      this.expectedKeys = expectedKeys;
+      return this;
+    }
+
+    /**
+     * Desired false positive probability, 0.01 by default.
+     */
+    public Builder fpp(double fpp) {
+      this.fpp = fpp;
+      return this;
+    }
+
+    /**
+     * File the filter is persisted to, for example next to the database of a SqlStore.
+     */
+    public Builder file(File file) {
+      this.file = file;
+      return this;
+    }
+
+    public BloomFilterStore build() {
+      return new BloomFilterStore(this);
+    }
+  }
+}
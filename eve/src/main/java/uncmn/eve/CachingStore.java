@@ -0,0 +1,187 @@
+package uncmn.eve;
+
+/**
+ * A {@link Store} that keeps decoded values of another store in a bounded memory cache.
+ * <p>Reads of cached keys skip the backing store and the converter. Every set, delete, batch and
+ * clear goes to the backing store first and then invalidates the cached keys. Cached values are
+ * shared between callers and must not be modified.</p>
+ * <p>The cache has a single lock, a hit holds it briefly to update the eviction order, so hits
+ * from many threads are serialized.</p>
+ */
+public class CachingStore extends ForwardingStore {
+
+  private final WeightedCache cache;
+
+  CachingStore(Builder builder) {
+    super(builder.store);
+    this.cache = new WeightedCache(builder.maximumWeight, builder.weigher, builder.policy);
+  }
+
+  /**
+   * @param store backing store.
+   */
+  public static Builder builder(Store store) {
+    return new Builder(store);
+  }
+
+  @Override @SuppressWarnings("unchecked") public <T> T get(String key) {
+    Object cached = cache.get(key);
+    if (cached != null) {
+      return (T) cached;
+    }
+    long generation = cache.generation();
+    T value = delegate.get(key);
+    if (value != null) {
+      cache.put(key, value, generation);
+    }
+    return value;
+  }
+
+  @Override public boolean exists(String key) {
+    return cache.contains(key) || delegate.exists(key);
+  }
+
+  @Override public void set(String key, Value value) {
+    try {
+      delegate.set(key, value);
+    } finally {
+      cache.invalidate(key);
+    }
+  }
+
+  @Override protected void write(WriteBatch batch) {
+    try {
+      delegate.write(batch);
+    } finally {
+      for (WriteBatch.Write write : batch.writes()) {
+        cache.invalidate(write.key());
+      }
+    }
+  }
+
+  @Override public boolean delete(String key) {
+    try {
+      return delegate.delete(key);
+    } finally {
+      cache.invalidate(key);
+    }
+  }
+
+  @Override public int clear() {
+    try {
+      return delegate.clear();
+    } finally {
+      cache.invalidateAll();
+    }
+  }
+
+  /**
+   * Number of reads served from the cache.
+   */
+  public long hitCount() {
+    return cache.hitCount();
+  }
+
+  /**
+   * Number of reads that went to the backing store.
+   */
+  public long missCount() {
+    return cache.missCount();
+  }
+
+  /**
+   * Ratio of reads served from the cache, 1 if nothing was read yet.
+   */
+  public double hitRate() {
+    long hits = hitCount();
+    long total = hits + missCount();
+    return total == 0 ? 1.0 : (double) hits / total;
+  }
+
+  /**
+   * Number of entries evicted, or not admitted, because of the weight bound.
+   */
+  public long evictionCount() {
+    return cache.evictionCount();
+  }
+
+  /**
+   * Current total weight of cached entries.
+   */
+  public long weight() {
+    return cache.weight();
+  }
+
+  /**
+   * Eviction policy of the cache.
+   */
+  public enum Policy {
+    /**
+     * Evict the least recently used entry.
+     */
+    LRU,
+    /**
+     * Admit entries by frequency with a small recency window (W-TinyLFU), resistant to scans.
+     */
+    TINY_LFU
+  }
+
+  /**
+   * Weight of a cached entry, relative to the maximum weight of the cache.
+   */
+  public interface Weigher {
+
+    /**
+     * @param key key of the entry.
+     * @param value decoded value of the entry.
+     * @return weight, must not be negative.
+     */
+    int weigh(String key, Object value);
+  }
+
+  public static class Builder {
+
+    private static final Weigher SINGLETON_WEIGHER = new Weigher() {
+      @Override public int weigh(String key, Object value) {
+        return 1;
+      }
+    };
+
+    final Store store;
+    long maximumWeight = 1000;
+    Weigher weigher = SINGLETON_WEIGHER;
+    Policy policy = Policy.TINY_LFU;
+
+    Builder(Store store) {
+      if (store == null) {
+        throw new IllegalArgumentException("Store cannot be null");
+      }
+      this.store = store;
+    }
+
+    /**
+     * Maximum total weight, the number of entries unless a {@link #weigher(Weigher)} is set.
+     */
+    public Builder maximumWeight(long maximumWeight) {
+      if (maximumWeight < 1) {
+        throw new IllegalArgumentException("Maximum weight must be positive");
+      }
+      this.maximumWeight = maximumWeight;
+      return this;
+    }
+
+    public Builder weigher(Weigher weigher) {
+      this.weigher = weigher;
+      return this;
+    }
+
+    public Builder policy(Policy policy) {
+      this.policy = policy;
+      return this;
+    }
+
+    public CachingStore build() {
+      return new CachingStore(this);
+    }
+  }
+}
@@ -0,0 +1,19 @@
+package uncmn.eve;
+
+import java.io.Closeable;
+import java.util.Iterator;
+
+/**
+ * An {@link Iterator} over query results that holds store resources, such as a database cursor,
+ * until it is exhausted or closed.
+ * <p>Results are read one at a time. Always close an iterator that is not read to the end.</p>
+ *
+ * @param <T> element type.
+ */
+public interface CloseableIterator<T> extends Iterator<T>, Closeable {
+
+  /**
+   * Release the resources of this iterator, it has no more elements afterwards.
+   */
+  @Override void close();
+}
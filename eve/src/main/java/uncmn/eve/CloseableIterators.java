@@ -0,0 +1,43 @@
+package uncmn.eve;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Factories for {@link CloseableIterator}.
+ */
+final class CloseableIterators {
+
+  private CloseableIterators() {
+  }
+
+  /**
+   * @return iterator over an already materialized list, closing only stops the iteration.
+   */
+  static <T> CloseableIterator<T> of(List<T> list) {
+    final Iterator<T> iterator = list.iterator();
+    return new CloseableIterator<T>() {
+      private boolean closed = false;
+
+      @Override public boolean hasNext() {
+        return !closed && iterator.hasNext();
+      }
+
+      @Override public T next() {
+        if (closed) {
+          throw new NoSuchElementException();
+        }
+        return iterator.next();
+      }
+
+      @Override public void remove() {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override public void close() {
+        closed = true;
+      }
+    };
+  }
+}
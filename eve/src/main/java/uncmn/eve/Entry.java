@@ -2,12 +2,19 @@ package uncmn.eve;
 
 /**
  * Encapsulates entry in eve. Key and a value of type T
+ * <p>Entries read by a store may be lazy, their value is deserialized on the first call to
+ * {@link #value()} and kept. {@link #rawBytes()} and {@link #type()} give the stored form without
+ * deserializing.</p>
  *
  * @param <T> value type T.
  */
 public class Entry<T> {
   private String key;
   private T value;
+  private byte[] bytes;
+  private String type;
+  private Store store;
+  private volatile boolean decoded;
 
   private Entry() {
 
@@ -25,6 +32,24 @@ public class Entry<T> {
     Entry<T> entry = new Entry<>();
     entry.key = key;
     entry.value = value;
+    entry.decoded = true;
+    return entry;
+  }
+
+  /**
+   * Entry that deserializes its value with the store on first access.
+   *
+   * @param key Entry key.
+   * @param bytes stored bytes of the value.
+   * @param type converter key of the value.
+   * @param store store whose converters deserialize the value.
+   */
+  static <T> Entry<T> lazy(String key, byte[] bytes, String type, Store store) {
+    Entry<T> entry = new Entry<>();
+    entry.key = key;
+    entry.bytes = bytes;
+    entry.type = type;
+    entry.store = store;
     return entry;
   }
 
@@ -36,12 +61,35 @@ public class Entry<T> {
   }
 
   /**
-   * Value.
+   * Value, deserialized on first access for lazy entries.
    */
   public T value() {
+    if (!decoded) {
+      synchronized (this) {
+        if (!decoded) {
+          value = store.convert(bytes, type);
+          store = null;
+          decoded = true;
+        }
+      }
+    }
     return value;
   }
 
+  /**
+   * Stored bytes of the value, null if this entry was created from a value.
+   */
+  public byte[] rawBytes() {
+    return bytes;
+  }
+
+  /**
+   * Converter key of the value, null if this entry was created from a value.
+   */
+  public String type() {
+    return type;
+  }
+
   @Override public String toString() {
     return "Entry{" + "key='" + key() + '\'' + ", value=" + value() + '}';
   }
@@ -1,5 +1,7 @@
 package uncmn.eve;
 
+import java.util.concurrent.Executor;
+
 /**
  * An object instance representing Eve.
  * <p>Main entry to the Eve KeyValue store</p>.
@@ -7,9 +9,12 @@ package uncmn.eve;
 public final class Eve {
 
   private Store store;
+  private Executor executor;
+  private AsyncStore async;
 
   Eve(Builder builder) {
     this.store = builder.store;
+    this.executor = builder.executor;
   }
 
   public static Builder builder() {
@@ -20,9 +25,24 @@ public final class Eve {
     return store;
   }
 
+  /**
+   * Asynchronous view of the store, backed by the executor of the builder. Without one a
+   * {@link AsyncStore#boundedExecutor(int)} sized to the number of processors is used.
+   */
+  public synchronized AsyncStore async() {
+    if (async == null) {
+      if (executor == null) {
+        executor = AsyncStore.boundedExecutor(Runtime.getRuntime().availableProcessors());
+      }
+      async = AsyncStore.create(store, executor);
+    }
+    return async;
+  }
+
   public static class Builder {
 
     Store store;
+    Executor executor;
 
     Builder() {
 
@@ -33,6 +53,15 @@ public final class Eve {
       return this;
     }
 
+    /**
+     * Executor for the {@link AsyncStore} view, for example
+     * {@link AsyncStore#virtualThreadExecutor()}.
+     */
+    public Builder executor(Executor executor) {
+      this.executor = executor;
+      return this;
+    }
+
     public Eve build() {
       return new Eve(this);
     }
@@ -3,6 +3,7 @@ package uncmn.eve;
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -10,12 +11,13 @@ import java.util.Map;
 /**
  * Default converter that converts all the primitive types.
  * int, float, double, boolean, char, byte & String are supported.
+ * <p>Thread safe, serializers are stateless and registries are immutable.</p>
  */
-public class EveConverter implements Converter {
+public class EveConverter implements ThreadSafeConverter {
   private static final String EVE_PREFIX = "eve.";
-  private static final Map<String, Class<?>> forward = new HashMap<>();
-  private static final Map<String, Serializer> serializers = new HashMap<>();
-  private static final Map<Class<?>, String> backward = new HashMap<>();
+  private static final Map<String, Class<?>> forward;
+  private static final Map<String, Serializer> serializers;
+  private static final Map<Class<?>, String> backward;
   private static final Charset UTF_8 = Charset.forName("UTF-8");
   private static final int INT_BYTE_SIZE = Integer.SIZE / Byte.SIZE;
   private static final int FLOAT_BYTE_SIZE = Float.SIZE / Byte.SIZE;
@@ -24,44 +26,58 @@ public class EveConverter implements Converter {
   private static final int BOOLEAN_BYTE_SIZE = 1;
   private static final int CHARACTER_BYTE_SIZE = Character.SIZE / Byte.SIZE;
   private static final String LIST_STRING_CONVERTER_KEY = EVE_PREFIX + "listString";
+  static final String INT_CONVERTER_KEY = EVE_PREFIX + Integer.class.getSimpleName();
+  static final String LONG_CONVERTER_KEY = EVE_PREFIX + Long.class.getSimpleName();
+  static final String FLOAT_CONVERTER_KEY = EVE_PREFIX + Float.class.getSimpleName();
+  static final String DOUBLE_CONVERTER_KEY = EVE_PREFIX + Double.class.getSimpleName();
+  static final String BOOLEAN_CONVERTER_KEY = EVE_PREFIX + Boolean.class.getSimpleName();
 
   static {
-    forward.put(EVE_PREFIX + Integer.class.getSimpleName(), Integer.class);
-    forward.put(EVE_PREFIX + Float.class.getSimpleName(), Float.class);
-    forward.put(EVE_PREFIX + Double.class.getSimpleName(), Double.class);
-    forward.put(EVE_PREFIX + Long.class.getSimpleName(), Long.class);
-    forward.put(EVE_PREFIX + Boolean.class.getSimpleName(), Boolean.class);
-    forward.put(EVE_PREFIX + Character.class.getSimpleName(), Character.class);
-    forward.put(EVE_PREFIX + Byte.class.getSimpleName(), Byte.class);
-    forward.put(EVE_PREFIX + String.class.getSimpleName(), String.class);
-    forward.put(EVE_PREFIX + int[].class.getSimpleName(), int[].class);
-    forward.put(EVE_PREFIX + float[].class.getSimpleName(), float[].class);
-    forward.put(EVE_PREFIX + double[].class.getSimpleName(), double[].class);
-    forward.put(EVE_PREFIX + long[].class.getSimpleName(), long[].class);
-    forward.put(EVE_PREFIX + char[].class.getSimpleName(), char[].class);
-    forward.put(EVE_PREFIX + byte[].class.getSimpleName(), byte[].class);
-    forward.put(EVE_PREFIX + String[].class.getSimpleName(), String[].class);
-
-    for (Map.Entry<String, Class<?>> entry : forward.entrySet()) {
-      backward.put(entry.getValue(), entry.getKey());
-    }
-
-    serializers.put(EVE_PREFIX + Integer.class.getSimpleName(), new IntSerializer());
-    serializers.put(EVE_PREFIX + Float.class.getSimpleName(), new FloatSerializer());
-    serializers.put(EVE_PREFIX + Double.class.getSimpleName(), new DoubleSerializer());
-    serializers.put(EVE_PREFIX + Long.class.getSimpleName(), new LongSerializer());
-    serializers.put(EVE_PREFIX + Boolean.class.getSimpleName(), new BooleanSerializer());
-    serializers.put(EVE_PREFIX + Character.class.getSimpleName(), new CharSerializer());
-    serializers.put(EVE_PREFIX + Byte.class.getSimpleName(), new ByteSerializer());
-    serializers.put(EVE_PREFIX + String.class.getSimpleName(), new StringSerializer());
-    serializers.put(EVE_PREFIX + int[].class.getSimpleName(), new IntArraySerializer());
-    serializers.put(EVE_PREFIX + float[].class.getSimpleName(), new FloatArraySerializer());
-    serializers.put(EVE_PREFIX + double[].class.getSimpleName(), new DoubleArraySerializer());
-    serializers.put(EVE_PREFIX + long[].class.getSimpleName(), new LongArraySerializer());
-    serializers.put(EVE_PREFIX + char[].class.getSimpleName(), new CharArraySerializer());
-    serializers.put(EVE_PREFIX + byte[].class.getSimpleName(), new ByteArraySerializer());
-    serializers.put(EVE_PREFIX + String[].class.getSimpleName(), new StringArraySerializer());
-    serializers.put(LIST_STRING_CONVERTER_KEY, new ListStringSerializer());
+    Map<String, Class<?>> forwardMap = new HashMap<>();
+    Map<String, Serializer> serializerMap = new HashMap<>();
+    Map<Class<?>, String> backwardMap = new HashMap<>();
+
+    forwardMap.put(EVE_PREFIX + Integer.class.getSimpleName(), Integer.class);
+    forwardMap.put(EVE_PREFIX + Float.class.getSimpleName(), Float.class);
+    forwardMap.put(EVE_PREFIX + Double.class.getSimpleName(), Double.class);
+    forwardMap.put(EVE_PREFIX + Long.class.getSimpleName(), Long.class);
+    forwardMap.put(EVE_PREFIX + Boolean.class.getSimpleName(), Boolean.class);
+    forwardMap.put(EVE_PREFIX + Character.class.getSimpleName(), Character.class);
+    forwardMap.put(EVE_PREFIX + Byte.class.getSimpleName(), Byte.class);
+    forwardMap.put(EVE_PREFIX + String.class.getSimpleName(), String.class);
+    forwardMap.put(EVE_PREFIX + int[].class.getSimpleName(), int[].class);
+    forwardMap.put(EVE_PREFIX + float[].class.getSimpleName(), float[].class);
+    forwardMap.put(EVE_PREFIX + double[].class.getSimpleName(), double[].class);
+    forwardMap.put(EVE_PREFIX + long[].class.getSimpleName(), long[].class);
+    forwardMap.put(EVE_PREFIX + char[].class.getSimpleName(), char[].class);
+    forwardMap.put(EVE_PREFIX + byte[].class.getSimpleName(), byte[].class);
+    forwardMap.put(EVE_PREFIX + String[].class.getSimpleName(), String[].class);
+
+    for (Map.Entry<String, Class<?>> entry : forwardMap.entrySet()) {
+      backwardMap.put(entry.getValue(), entry.getKey());
+    }
+
+    serializerMap.put(EVE_PREFIX + Integer.class.getSimpleName(), new IntSerializer());
+    serializerMap.put(EVE_PREFIX + Float.class.getSimpleName(), new FloatSerializer());
+    serializerMap.put(EVE_PREFIX + Double.class.getSimpleName(), new DoubleSerializer());
+    serializerMap.put(EVE_PREFIX + Long.class.getSimpleName(), new LongSerializer());
+    serializerMap.put(EVE_PREFIX + Boolean.class.getSimpleName(), new BooleanSerializer());
+    serializerMap.put(EVE_PREFIX + Character.class.getSimpleName(), new CharSerializer());
+    serializerMap.put(EVE_PREFIX + Byte.class.getSimpleName(), new ByteSerializer());
+    serializerMap.put(EVE_PREFIX + String.class.getSimpleName(), new StringSerializer());
+    serializerMap.put(EVE_PREFIX + int[].class.getSimpleName(), new IntArraySerializer());
+    serializerMap.put(EVE_PREFIX + float[].class.getSimpleName(), new FloatArraySerializer());
+    serializerMap.put(EVE_PREFIX + double[].class.getSimpleName(), new DoubleArraySerializer());
+    serializerMap.put(EVE_PREFIX + long[].class.getSimpleName(), new LongArraySerializer());
+    serializerMap.put(EVE_PREFIX + char[].class.getSimpleName(), new CharArraySerializer());
+    serializerMap.put(EVE_PREFIX + byte[].class.getSimpleName(), new ByteArraySerializer());
+    serializerMap.put(EVE_PREFIX + String[].class.getSimpleName(), new StringArraySerializer());
+    serializerMap.put(LIST_STRING_CONVERTER_KEY, new ListStringSerializer());
+
+    //registries are never modified after this point, reads need no locking.
+    forward = Collections.unmodifiableMap(forwardMap);
+    serializers = Collections.unmodifiableMap(serializerMap);
+    backward = Collections.unmodifiableMap(backwardMap);
   }
 
   EveConverter() {
@@ -119,6 +135,46 @@ public class EveConverter implements Converter {
     return forward.containsKey(converterKey) || LIST_STRING_CONVERTER_KEY.equals(converterKey);
   }
 
+  /**
+   * Decode bytes of {@link IntSerializer} without boxing.
+   */
+  static int decodeInt(byte[] bytes) {
+    return (bytes[0] & 0xff) << 24 | (bytes[1] & 0xff) << 16 | (bytes[2] & 0xff) << 8
+        | (bytes[3] & 0xff);
+  }
+
+  /**
+   * Decode bytes of {@link LongSerializer} without boxing.
+   */
+  static long decodeLong(byte[] bytes) {
+    long value = 0;
+    for (int i = 0; i < LONG_BYTE_SIZE; i++) {
+      value = value << 8 | (bytes[i] & 0xff);
+    }
+    return value;
+  }
+
+  /**
+   * Decode bytes of {@link FloatSerializer} without boxing.
+   */
+  static float decodeFloat(byte[] bytes) {
+    return Float.intBitsToFloat(decodeInt(bytes));
+  }
+
+  /**
+   * Decode bytes of {@link DoubleSerializer} without boxing.
+   */
+  static double decodeDouble(byte[] bytes) {
+    return Double.longBitsToDouble(decodeLong(bytes));
+  }
+
+  /**
+   * Decode bytes of {@link BooleanSerializer} without boxing.
+   */
+  static boolean decodeBoolean(byte[] bytes) {
+    return bytes[0] == (byte) 1;
+  }
+
   /**
    * Eve serializer.
    */
@@ -0,0 +1,129 @@
+package uncmn.eve;
+
+import java.util.List;
+
+/**
+ * A {@link Store} which forwards all its operations to another store.
+ * <p>Subclasses override operations to decorate the backing store, typed set operations encode
+ * values with the converter of the backing store and arrive at {@link #set(String, Value)}.</p>
+ */
+public class ForwardingStore extends Store {
+
+  protected final Store delegate;
+
+  /**
+   * @param delegate backing store.
+   */
+  protected ForwardingStore(Store delegate) {
+    super(delegate.converter());
+    this.delegate = delegate;
+  }
+
+  /**
+   * Backing store.
+   */
+  public Store delegate() {
+    return delegate;
+  }
+
+  @Override public void set(String key, Value value) {
+    delegate.set(key, value);
+  }
+
+  @Override protected void write(WriteBatch batch) {
+    delegate.write(batch);
+  }
+
+  @Override public Class type(String key) {
+    return delegate.type(key);
+  }
+
+  @Override public <T> T get(String key) {
+    return delegate.get(key);
+  }
+
+  @Override protected byte[] bytes(String key, String converterKey) {
+    return delegate.bytes(key, converterKey);
+  }
+
+  @Override public int clear() {
+    return delegate.clear();
+  }
+
+  @Override public boolean delete(String key) {
+    return delegate.delete(key);
+  }
+
+  @Override public boolean exists(String key) {
+    return delegate.exists(key);
+  }
+
+  @Override protected <T> List<Entry<T>> entries(String converterKey) {
+    return delegate.entries(converterKey);
+  }
+
+  @Override protected <T> List<Entry<T>> entriesKeyPrefix(String converterKey, String keyPrefix) {
+    return delegate.entriesKeyPrefix(converterKey, keyPrefix);
+  }
+
+  @Override
+  protected <T> List<Entry<T>> entriesKeyContains(String converterKey, String keyContains) {
+    return delegate.entriesKeyContains(converterKey, keyContains);
+  }
+
+  @Override protected List<String> keysType(String converterKey) {
+    return delegate.keysType(converterKey);
+  }
+
+  @Override protected List<String> keysPrefixAny(String keyPrefix) {
+    return delegate.keysPrefixAny(keyPrefix);
+  }
+
+  @Override protected List<String> keysContainsAny(String keyContains) {
+    return delegate.keysContainsAny(keyContains);
+  }
+
+  @Override protected List<String> keysPrefix(String converterKey, String keyPrefix) {
+    return delegate.keysPrefix(converterKey, keyPrefix);
+  }
+
+  @Override protected List<String> keysContains(String converterKey, String keyContains) {
+    return delegate.keysContains(converterKey, keyContains);
+  }
+
+  @Override protected <T> List<T> valuesType(String converterKey) {
+    return delegate.valuesType(converterKey);
+  }
+
+  @Override protected List<Object> valuesPrefixAny(String keyPrefix) {
+    return delegate.valuesPrefixAny(keyPrefix);
+  }
+
+  @Override protected List<Object> valuesContainsAny(String keyContains) {
+    return delegate.valuesContainsAny(keyContains);
+  }
+
+  @Override protected <T> List<T> valuesPrefix(String converterKey, String keyPrefix) {
+    return delegate.valuesPrefix(converterKey, keyPrefix);
+  }
+
+  @Override protected <T> List<T> valuesContains(String converterKey, String keyContains) {
+    return delegate.valuesContains(converterKey, keyContains);
+  }
+
+  @Override protected <T> CloseableIterator<Entry<T>> entriesIterator(Selection selection) {
+    return delegate.entriesIterator(selection);
+  }
+
+  @Override protected CloseableIterator<String> keysIterator(Selection selection) {
+    return delegate.keysIterator(selection);
+  }
+
+  @Override protected <T> CloseableIterator<T> valuesIterator(Selection selection) {
+    return delegate.valuesIterator(selection);
+  }
+
+  @Override protected int count(Selection selection) {
+    return delegate.count(selection);
+  }
+}
@@ -0,0 +1,87 @@
+package uncmn.eve;
+
+/**
+ * Approximate access frequency of keys, a count-min sketch of 4 bit counters.
+ * <p>Counters are halved after ten additions per expected entry, so that old popularity fades.
+ * Each row has four counters per expected entry, so between halvings a counter is shared by
+ * few keys and frequencies of keys read once stay low. Used as the admission filter of a TinyLFU
+ * cache. This class is <em>not</em> thread safe.</p>
+ */
+final class FrequencySketch {
+
+  private static final int MAX_COUNT = 15;
+  private static final int DEPTH = 4;
+  private static final int COUNTERS_PER_ENTRY = 4;
+  private static final int MAX_ENTRIES = 1 << 16;
+  private static final int[] SEEDS = {
+      0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F
+  };
+
+  private final byte[] counters;
+  private final int mask;
+  private final int sampleSize;
+  private int additions;
+
+  /**
+   * @param expectedEntries expected number of cached entries.
+   */
+  FrequencySketch(int expectedEntries) {
+    int entries = Math.max(16, Math.min(expectedEntries, MAX_ENTRIES));
+    int width = 16;
+    while (width < entries * COUNTERS_PER_ENTRY) {
+      width <<= 1;
+    }
+    counters = new byte[width * DEPTH];
+    mask = width - 1;
+    sampleSize = entries * 10;
+  }
+
+  /**
+   * @return estimated number of accesses of key, at most 15.
+   */
+  int frequency(String key) {
+    int hash = spread(key.hashCode());
+    int frequency = MAX_COUNT;
+    for (int row = 0; row < DEPTH; row++) {
+      frequency = Math.min(frequency, counters[index(hash, row)]);
+    }
+    return frequency;
+  }
+
+  /**
+   * Record an access of key.
+   */
+  void increment(String key) {
+    int hash = spread(key.hashCode());
+    boolean added = false;
+    for (int row = 0; row < DEPTH; row++) {
+      int index = index(hash, row);
+      if (counters[index] < MAX_COUNT) {
+        counters[index]++;
+        added = true;
+      }
+    }
+    if (added && ++additions == sampleSize) {
+      reset();
+    }
+  }
+
+  private void reset() {
+    for (int i = 0; i < counters.length; i++) {
+      counters[i] = (byte) (counters[i] >>> 1);
+    }
+    additions = additions >>> 1;
+  }
+
+  private int index(int hash, int row) {
+    int h = (hash + SEEDS[row]) * SEEDS[row];
+    h ^= h >>> 17;
+    return row * (mask + 1) + (h & mask);
+  }
+
+  private static int spread(int hash) {
+    hash ^= hash >>> 16;
+    hash *= 0x45d9f3b;
+    return hash ^ (hash >>> 16);
+  }
+}
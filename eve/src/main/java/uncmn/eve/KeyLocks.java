@@ -0,0 +1,92 @@
+package uncmn.eve;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Per key locks used by a {@link Store} instance.
+ * <p>Keys are hashed onto a fixed number of lock stripes, writes to the same key are serialized
+ * while writes to different keys rarely contend.</p>
+ */
+abstract class KeyLocks {
+
+  /**
+   * Default number of stripes, must be a power of two.
+   */
+  static final int DEFAULT_STRIPES = 64;
+
+  /**
+   * @param stripes number of lock stripes, rounded up to a power of two.
+   * @return striped key locks.
+   */
+  static KeyLocks striped(int stripes) {
+    return new Striped(stripes);
+  }
+
+  /**
+   * @return key locks that never lock, for stores confined to a single thread.
+   */
+  static KeyLocks none() {
+    return None.INSTANCE;
+  }
+
+  /**
+   * Acquire the lock guarding key.
+   *
+   * @param key is a {@link String}, NotNull and Unique
+   */
+  abstract void lock(String key);
+
+  /**
+   * Release the lock guarding key.
+   *
+   * @param key is a {@link String}, NotNull and Unique
+   */
+  abstract void unlock(String key);
+
+  private static final class Striped extends KeyLocks {
+
+    private final ReentrantLock[] locks;
+    private final int mask;
+
+    Striped(int stripes) {
+      int size = 1;
+      while (size < stripes) {
+        size <<= 1;
+      }
+      locks = new ReentrantLock[size];
+      for (int i = 0; i < size; i++) {
+        locks[i] = new ReentrantLock();
+      }
+      mask = size - 1;
+    }
+
+    private ReentrantLock stripe(String key) {
+      if (key == null) {
+        return locks[0];
+      }
+      int hash = key.hashCode();
+      //spread higher bits, keys often share a prefix and differ only at the end.
+      hash ^= (hash >>> 16);
+      return locks[hash & mask];
+    }
+
+    @Override void lock(String key) {
+      stripe(key).lock();
+    }
+
+    @Override void unlock(String key) {
+      stripe(key).unlock();
+    }
+  }
+
+  private static final class None extends KeyLocks {
+
+    static final None INSTANCE = new None();
+
+    @Override void lock(String key) {
+    }
+
+    @Override void unlock(String key) {
+    }
+  }
+}
@@ -0,0 +1,54 @@
+package uncmn.eve;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+
+/**
+ * A {@link ScanIterator} over a sorted map, for stores that keep their keys in one. Iteration of
+ * a concurrent map is weakly consistent with concurrent writes.
+ *
+ * @param <V> value type of the map.
+ * @param <T> element type.
+ */
+public abstract class MapScanIterator<V, T> extends ScanIterator<V, T> {
+
+  private final Iterator<Map.Entry<String, V>> iterator;
+  private Map.Entry<String, V> entry;
+
+  /**
+   * @param map sorted map to be scanned.
+   * @param keyPrefix prefix keys must start with, null for any key.
+   * @param keyContains string keys must contain, null for any key.
+   * @param afterKey only keys greater than this key are read, null to start at the first key.
+   * @param offset number of matching keys to skip.
+   * @param limit maximum number of elements, -1 if not limited.
+   */
+  protected MapScanIterator(NavigableMap<String, V> map, String keyPrefix, String keyContains,
+      String afterKey, int offset, int limit) {
+    super(keyPrefix, keyContains, afterKey, offset, limit);
+    String from = from();
+    this.iterator = (from == null ? map : map.tailMap(from, true)).entrySet().iterator();
+  }
+
+  @Override protected boolean advance() {
+    if (!iterator.hasNext()) {
+      entry = null;
+      return false;
+    }
+    entry = iterator.next();
+    return true;
+  }
+
+  @Override protected String key() {
+    return entry.getKey();
+  }
+
+  @Override protected V candidate() {
+    return entry.getValue();
+  }
+
+  @Override protected void release() {
+    entry = null;
+  }
+}
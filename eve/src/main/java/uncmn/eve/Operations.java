@@ -128,11 +128,58 @@ public interface Operations {
    */
   <T> T get(String key);
 
+  /**
+   * Get int value for key without boxing.
+   *
+   * @param key is a {@link String}, NotNull and Unique
+   * @param defaultValue returned if key does not exist or does not hold an int.
+   */
+  int getInt(String key, int defaultValue);
+
+  /**
+   * Get long value for key without boxing.
+   *
+   * @param key is a {@link String}, NotNull and Unique
+   * @param defaultValue returned if key does not exist or does not hold a long.
+   */
+  long getLong(String key, long defaultValue);
+
+  /**
+   * Get float value for key without boxing.
+   *
+   * @param key is a {@link String}, NotNull and Unique
+   * @param defaultValue returned if key does not exist or does not hold a float.
+   */
+  float getFloat(String key, float defaultValue);
+
+  /**
+   * Get double value for key without boxing.
+   *
+   * @param key is a {@link String}, NotNull and Unique
+   * @param defaultValue returned if key does not exist or does not hold a double.
+   */
+  double getDouble(String key, double defaultValue);
+
+  /**
+   * Get boolean value for key without boxing.
+   *
+   * @param key is a {@link String}, NotNull and Unique
+   * @param defaultValue returned if key does not exist or does not hold a boolean.
+   */
+  boolean getBoolean(String key, boolean defaultValue);
+
   /**
    * Clear all data. return number of keys deleted.
    */
   int clear();
 
+  /**
+   * Start a batch of writes.
+   *
+   * @return {@linkplain WriteBatch} instance, nothing is written until it is committed.
+   */
+  WriteBatch batch();
+
   /**
    * A generic query.
    *
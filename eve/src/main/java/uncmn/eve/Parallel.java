@@ -0,0 +1,86 @@
+package uncmn.eve;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Splits index based work into chunks that run on an {@link ExecutorService}.
+ * <p>Chunks are claimed by pool threads and by the calling thread alike, the caller never waits
+ * for a chunk that has not started. Waiting callers cannot starve a pool they also run on.</p>
+ */
+final class Parallel {
+
+  /**
+   * Chunks per available processor, smaller chunks balance uneven converter work.
+   */
+  private static final int CHUNKS_PER_PROCESSOR = 4;
+
+  private Parallel() {
+  }
+
+  /**
+   * Work on a single index.
+   */
+  interface Task {
+    void run(int index);
+  }
+
+  /**
+   * Run task for every index in [0, size) and wait until all of them completed.
+   */
+  static void forEach(ExecutorService executor, final int size, final Task task) {
+    final int chunks =
+        Math.min(size, Runtime.getRuntime().availableProcessors() * CHUNKS_PER_PROCESSOR);
+    final int chunkSize = (size + chunks - 1) / chunks;
+    final AtomicInteger nextChunk = new AtomicInteger();
+    final CountDownLatch done = new CountDownLatch(chunks);
+    final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    Runnable worker = new Runnable() {
+      @Override public void run() {
+        int chunk;
+        while ((chunk = nextChunk.getAndIncrement()) < chunks) {
+          try {
+            if (failure.get() == null) {
+              int to = Math.min(size, (chunk + 1) * chunkSize);
+              for (int i = chunk * chunkSize; i < to; i++) {
+                task.run(i);
+              }
+            }
+          } catch (Throwable t) {
+            failure.compareAndSet(null, t);
+          } finally {
+            done.countDown();
+          }
+        }
+      }
+    };
+
+    try {
+      for (int i = 1; i < chunks; i++) {
+        executor.execute(worker);
+      }
+    } catch (RejectedExecutionException e) {
+      //remaining chunks run on the calling thread.
+    }
+    worker.run();
+    try {
+      done.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    }
+
+    Throwable cause = failure.get();
+    if (cause instanceof RuntimeException) {
+      throw (RuntimeException) cause;
+    } else if (cause instanceof Error) {
+      throw (Error) cause;
+    } else if (cause != null) {
+      throw new RuntimeException(cause);
+    }
+  }
+}
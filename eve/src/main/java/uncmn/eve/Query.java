@@ -1,5 +1,6 @@
 package uncmn.eve;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
@@ -84,7 +85,7 @@ public class Query {
     }
 
     /**
-     * Fetch list of any type values/keys/entries.
+     * Fetch list of any type values/keys/entries, paged or not.
      */
     public <R> QueryRunner<R> anyType() {
       return AnyTypeQueryRunner.create(query, null);
@@ -95,6 +96,9 @@ public class Query {
 
     Query query;
     Class<T> cls;
+    int limit = -1;
+    int offset = 0;
+    String afterKey = null;
 
     QueryRunner(Query query, Class<T> cls) {
       this.query = query;
@@ -103,20 +107,157 @@ public class Query {
 
     protected abstract boolean validate();
 
+    /**
+     * Rows selected by this runner, null if a type is queried that no converter maps.
+     */
+    abstract Selection selection();
+
+    /**
+     * All entries, without paging.
+     */
+    abstract List<Entry<T>> allEntries();
+
+    /**
+     * All keys, without paging.
+     */
+    abstract List<String> allKeys();
+
+    /**
+     * All values, without paging.
+     */
+    abstract List<T> allValues();
+
+    private boolean paged() {
+      return limit >= 0 || offset > 0 || afterKey != null;
+    }
+
+    Selection selection(String converterKey, String keyPrefix, String keyContains) {
+      return new Selection(converterKey, keyPrefix, keyContains, limit, offset, afterKey);
+    }
+
+    /**
+     * Rows of the queried type, null if no converter maps it. A null converter key would select
+     * rows of any type, so a type without one selects no rows.
+     */
+    Selection typeSelection(String keyPrefix, String keyContains) {
+      String converterKey = query.store.converterKey(cls);
+      return converterKey == null ? null : selection(converterKey, keyPrefix, keyContains);
+    }
+
+    /**
+     * Return at most limit results, ordered by key.
+     */
+    public QueryRunner<T> limit(int limit) {
+      if (limit < 0) {
+        throw new IllegalArgumentException("Limit cannot be negative");
+      }
+      this.limit = limit;
+      return this;
+    }
+
+    /**
+     * Skip the first offset results, ordered by key.
+     */
+    public QueryRunner<T> offset(int offset) {
+      if (offset < 0) {
+        throw new IllegalArgumentException("Offset cannot be negative");
+      }
+      this.offset = offset;
+      return this;
+    }
+
+    /**
+     * Return only results with a key greater than lastKey, ordered by key. Pass the last key of a
+     * page to get the next page, unlike {@link #offset(int)} earlier rows are never read.
+     */
+    public QueryRunner<T> after(String lastKey) {
+      this.afterKey = lastKey;
+      return this;
+    }
+
     /**
      * Execute query in store and get a list of entries.
      */
-    public abstract List<Entry<T>> entries();
+    public List<Entry<T>> entries() {
+      if (paged()) {
+        return collect(entriesIterator());
+      }
+      return allEntries();
+    }
 
     /**
      * Get list of keys.
      */
-    public abstract List<String> keys();
+    public List<String> keys() {
+      if (paged()) {
+        return collect(keysIterator());
+      }
+      return allKeys();
+    }
 
     /**
      * Get list of values.
      */
-    public abstract List<T> values();
+    public List<T> values() {
+      if (paged()) {
+        return collect(valuesIterator());
+      }
+      return allValues();
+    }
+
+    /**
+     * Count results without reading or decoding values. This is the public way to count, stores
+     * answer it through {@link Store#count(Selection)}. Paging applies, a limit caps the count.
+     */
+    public int count() {
+      Selection selection = selection();
+      return selection == null ? 0 : query.store.count(selection);
+    }
+
+    /**
+     * Execute query in store and read entries one at a time, see {@link CloseableIterator}.
+     */
+    public CloseableIterator<Entry<T>> entriesIterator() {
+      Selection selection = selection();
+      if (selection == null) {
+        return CloseableIterators.of(Collections.<Entry<T>>emptyList());
+      }
+      return query.store.entriesIterator(selection);
+    }
+
+    /**
+     * Read keys one at a time, see {@link CloseableIterator}.
+     */
+    public CloseableIterator<String> keysIterator() {
+      Selection selection = selection();
+      if (selection == null) {
+        return CloseableIterators.of(Collections.<String>emptyList());
+      }
+      return query.store.keysIterator(selection);
+    }
+
+    /**
+     * Read values one at a time, see {@link CloseableIterator}.
+     */
+    public CloseableIterator<T> valuesIterator() {
+      Selection selection = selection();
+      if (selection == null) {
+        return CloseableIterators.of(Collections.<T>emptyList());
+      }
+      return query.store.valuesIterator(selection);
+    }
+
+    private static <E> List<E> collect(CloseableIterator<E> iterator) {
+      List<E> items = new ArrayList<>();
+      try {
+        while (iterator.hasNext()) {
+          items.add(iterator.next());
+        }
+      } finally {
+        iterator.close();
+      }
+      return items;
+    }
   }
 
   private static class TypeQueryRunner<T> extends QueryRunner<T> {
@@ -133,15 +274,19 @@ public class Query {
       return cls != null;
     }
 
-    @Override public List<Entry<T>> entries() {
+    @Override Selection selection() {
+      return typeSelection(null, null);
+    }
+
+    @Override List<Entry<T>> allEntries() {
       return query.store.entriesTypeInternal(cls);
     }
 
-    @Override public List<String> keys() {
+    @Override List<String> allKeys() {
       return query.store.keysTypeInternal(cls);
     }
 
-    @Override public List<T> values() {
+    @Override List<T> allValues() {
       return query.store.valuesTypeInternal(cls);
     }
   }
@@ -160,12 +305,22 @@ public class Query {
       return query.valid();
     }
 
-    @Override public List<Entry<T>> entries() {
-      System.out.println("Need type for entries.");
-      return Collections.emptyList();
+    @Override Selection selection() {
+      if (query.forPrefix()) {
+        return selection(null, query.littleKey, null);
+      }
+      return selection(null, null, query.littleKey);
+    }
+
+    @Override List<Entry<T>> allEntries() {
+      if (query.forPrefix()) {
+        return query.store.entriesKeyPrefix(null, query.littleKey);
+      } else {
+        return query.store.entriesKeyContains(null, query.littleKey);
+      }
     }
 
-    @Override public List<String> keys() {
+    @Override List<String> allKeys() {
       if (query.forPrefix()) {
         return query.store.keysPrefixAny(query.littleKey);
       } else {
@@ -173,7 +328,7 @@ public class Query {
       }
     }
 
-    @SuppressWarnings("unchecked") @Override public List<T> values() {
+    @SuppressWarnings("unchecked") @Override List<T> allValues() {
       if (query.forPrefix()) {
         return (List<T>) query.store.valuesPrefixAny(query.littleKey);
       } else {
@@ -199,15 +354,19 @@ public class Query {
       return true;
     }
 
-    @Override public List<Entry<T>> entries() {
+    @Override Selection selection() {
+      return typeSelection(query.littleKey, null);
+    }
+
+    @Override List<Entry<T>> allEntries() {
       return query.store.entriesKeyPrefixInternal(cls, query.littleKey);
     }
 
-    @Override public List<String> keys() {
+    @Override List<String> allKeys() {
       return query.store.keysPrefixInternal(cls, query.littleKey);
     }
 
-    @Override public List<T> values() {
+    @Override List<T> allValues() {
       return query.store.valuesPrefixInternal(cls, query.littleKey);
     }
   }
@@ -229,15 +388,19 @@ public class Query {
       return true;
     }
 
-    @Override public List<Entry<T>> entries() {
+    @Override Selection selection() {
+      return typeSelection(null, query.littleKey);
+    }
+
+    @Override List<Entry<T>> allEntries() {
       return query.store.entriesKeyContainsInternal(cls, query.littleKey);
     }
 
-    @Override public List<String> keys() {
+    @Override List<String> allKeys() {
       return query.store.keysContainsInternal(cls, query.littleKey);
     }
 
-    @Override public List<T> values() {
+    @Override List<T> allValues() {
       return query.store.valuesContainsInternal(cls, query.littleKey);
     }
   }
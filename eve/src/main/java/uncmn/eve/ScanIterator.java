@@ -0,0 +1,174 @@
+package uncmn.eve;
+
+import java.util.NoSuchElementException;
+
+/**
+ * A {@link CloseableIterator} over the keys of a store in key order, for store implementations.
+ * <p>A subclass positions its cursor at the first key not smaller than {@link #from()} and steps
+ * it with {@link #advance()}. The scan stops after the last key of the prefix, skips keys up to
+ * the after key, candidates the subclass does not {@link #accept(Object) accept} and keys not
+ * containing the contains filter, then applies offset and limit. Each element is read when
+ * {@link #hasNext()} finds it.</p>
+ *
+ * @param <C> what the cursor holds for a key, such as its value or its location.
+ * @param <T> element type.
+ */
+public abstract class ScanIterator<C, T> implements CloseableIterator<T> {
+
+  private final String keyPrefix;
+  private final String keyContains;
+  private final String afterKey;
+  private boolean pastAfterKey;
+  private int skip;
+  private int remaining;
+  private boolean missing;
+  private boolean released;
+  private boolean hasNext;
+  private T next;
+
+  /**
+   * @param keyPrefix prefix keys must start with, null for any key.
+   * @param keyContains string keys must contain, null for any key.
+   * @param afterKey only keys greater than this key are read, null to start at the first key.
+   * @param offset number of matching keys to skip.
+   * @param limit maximum number of elements, -1 if not limited.
+   */
+  protected ScanIterator(String keyPrefix, String keyContains, String afterKey, int offset,
+      int limit) {
+    this.keyPrefix = keyPrefix;
+    this.keyContains = keyContains;
+    this.afterKey = afterKey;
+    this.pastAfterKey = afterKey == null;
+    this.skip = offset;
+    this.remaining = limit;
+  }
+
+  /**
+   * Key to seek to, the larger of key prefix and after key, null to start at the first key. An
+   * after key below the prefix is outside the range of the prefix and must not be sought.
+   */
+  protected final String from() {
+    if (afterKey != null && (keyPrefix == null || compare(afterKey, keyPrefix) > 0)) {
+      return afterKey;
+    }
+    return keyPrefix;
+  }
+
+  /**
+   * Order of keys in the store, {@link String#compareTo(String)} by default.
+   */
+  protected int compare(String key, String other) {
+    return key.compareTo(other);
+  }
+
+  /**
+   * Move the cursor to its next key, to the first key on the first call.
+   *
+   * @return false if there are no more keys.
+   */
+  protected abstract boolean advance();
+
+  /**
+   * Key at the cursor.
+   */
+  protected abstract String key();
+
+  /**
+   * What the cursor holds for its key.
+   */
+  protected abstract C candidate();
+
+  /**
+   * @return false to skip candidate, e.g. if it has another type or is deleted.
+   */
+  protected boolean accept(C candidate) {
+    return true;
+  }
+
+  /**
+   * Read the element of a key, call {@link #missing()} if its value is gone.
+   */
+  protected abstract T read(String key, C candidate);
+
+  /**
+   * Skip the key being read, its value was removed after the key was scanned.
+   */
+  protected final void missing() {
+    missing = true;
+  }
+
+  /**
+   * Release what the cursor holds, called once when the last element was read or the iterator is
+   * closed.
+   */
+  protected void release() {
+  }
+
+  @Override public boolean hasNext() {
+    while (!hasNext && remaining != 0) {
+      if (!advance()) {
+        close();
+        break;
+      }
+      String key = key();
+      if (keyPrefix != null && !key.startsWith(keyPrefix)) {
+        //past the last key of the prefix.
+        close();
+        break;
+      }
+      if (!pastAfterKey) {
+        if (compare(key, afterKey) <= 0) {
+          continue;
+        }
+        pastAfterKey = true;
+      }
+      C candidate = candidate();
+      if (!accept(candidate) || keyContains != null && !key.contains(keyContains)) {
+        continue;
+      }
+      if (skip > 0) {
+        skip--;
+        continue;
+      }
+      next = read(key, candidate);
+      if (missing) {
+        missing = false;
+        next = null;
+        continue;
+      }
+      hasNext = true;
+      if (remaining > 0 && --remaining == 0) {
+        releaseOnce();
+      }
+    }
+    return hasNext;
+  }
+
+  @Override public T next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    T current = next;
+    hasNext = false;
+    next = null;
+    return current;
+  }
+
+  @Override public void remove() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override public void close() {
+    remaining = 0;
+    hasNext = false;
+    next = null;
+    releaseOnce();
+  }
+
+  private void releaseOnce() {
+    if (!released) {
+      released = true;
+      release();
+    }
+  }
+}
@@ -0,0 +1,141 @@
+package uncmn.eve;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Rows selected by a {@link Query}: an optional converter key, an optional key prefix or key
+ * contains filter and an optional page of rows ordered by key.
+ */
+public final class Selection {
+
+  private static final Comparator<Entry<?>> KEY_ORDER = new Comparator<Entry<?>>() {
+    @Override public int compare(Entry<?> lhs, Entry<?> rhs) {
+      return lhs.key().compareTo(rhs.key());
+    }
+  };
+
+  private final String converterKey;
+  private final String keyPrefix;
+  private final String keyContains;
+  private final int limit;
+  private final int offset;
+  private final String afterKey;
+
+  Selection(String converterKey, String keyPrefix, String keyContains, int limit, int offset,
+      String afterKey) {
+    this.converterKey = converterKey;
+    this.keyPrefix = keyPrefix;
+    this.keyContains = keyContains;
+    this.limit = limit;
+    this.offset = offset;
+    this.afterKey = afterKey;
+  }
+
+  /**
+   * Converter key values must have, null for any type.
+   */
+  public String converterKey() {
+    return converterKey;
+  }
+
+  /**
+   * Prefix keys must start with, null if keys are not filtered by prefix.
+   */
+  public String keyPrefix() {
+    return keyPrefix;
+  }
+
+  /**
+   * String keys must contain, null if keys are not filtered by contents.
+   */
+  public String keyContains() {
+    return keyContains;
+  }
+
+  /**
+   * Maximum number of rows, -1 if not limited.
+   */
+  public int limit() {
+    return limit;
+  }
+
+  /**
+   * Number of rows to skip.
+   */
+  public int offset() {
+    return offset;
+  }
+
+  /**
+   * Only rows with a key greater than this key are selected, null if not set.
+   */
+  public String afterKey() {
+    return afterKey;
+  }
+
+  /**
+   * @return true if a page is selected, rows must then be ordered by key.
+   */
+  public boolean paged() {
+    return limit >= 0 || offset > 0 || afterKey != null;
+  }
+
+  /**
+   * Apply the page to all selected keys.
+   */
+  List<String> page(List<String> keys) {
+    List<String> sorted = new ArrayList<>(keys);
+    Collections.sort(sorted);
+    int from = 0;
+    if (afterKey != null) {
+      int index = Collections.binarySearch(sorted, afterKey);
+      from = index >= 0 ? index + 1 : -index - 1;
+    }
+    return slice(sorted, from);
+  }
+
+  /**
+   * Apply the page to all selected entries.
+   */
+  <T> List<Entry<T>> pageEntries(List<Entry<T>> entries) {
+    List<Entry<T>> sorted = new ArrayList<>(entries);
+    Collections.sort(sorted, KEY_ORDER);
+    int from = 0;
+    if (afterKey != null) {
+      while (from < sorted.size() && sorted.get(from).key().compareTo(afterKey) <= 0) {
+        from++;
+      }
+    }
+    return slice(sorted, from);
+  }
+
+  private <T> List<T> slice(List<T> sorted, int from) {
+    from = (int) Math.min(sorted.size(), (long) from + offset);
+    int to = limit < 0 ? sorted.size() : (int) Math.min(sorted.size(), (long) from + limit);
+    return sorted.subList(from, to);
+  }
+
+  @Override public String toString() {
+    return "Selection{"
+        + "converterKey='"
+        + converterKey
+        + '\''
+        + ", keyPrefix='"
+        + keyPrefix
+        + '\''
+        + ", keyContains='"
+        + keyContains
+        + '\''
+        + ", limit="
+        + limit
+        + ", offset="
+        + offset
+        + ", afterKey='"
+        + afterKey
+        + '\''
+        + '}';
+  }
+}
@@ -0,0 +1,106 @@
+package uncmn.eve;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs tasks one at a time, in submission order, on a backing {@link Executor}.
+ * <p>A {@link HeldTask} keeps the executor busy until it releases it, so a task can wait for
+ * tasks of other serial executors without blocking a thread. A task the backing executor rejects
+ * is told so and the next task is scheduled.</p>
+ */
+final class SerialExecutor {
+
+  private final Executor executor;
+  private final ArrayDeque<HeldTask> tasks = new ArrayDeque<>();
+  private HeldTask active;
+
+  SerialExecutor(Executor executor) {
+    this.executor = executor;
+  }
+
+  /**
+   * A task that runs until it calls release, which it must call once, possibly on another thread.
+   */
+  interface HeldTask {
+
+    void run(Runnable release);
+
+    /**
+     * The backing executor rejected the task, it will not run.
+     */
+    void rejected(RejectedExecutionException e);
+  }
+
+  /**
+   * Run future after the tasks submitted before it, a rejection fails the future.
+   */
+  void execute(final StoreFuture<?> future) {
+    hold(new HeldTask() {
+      @Override public void run(Runnable release) {
+        try {
+          future.run();
+        } finally {
+          release.run();
+        }
+      }
+
+      @Override public void rejected(RejectedExecutionException e) {
+        future.reject(e);
+      }
+    });
+  }
+
+  void hold(HeldTask task) {
+    synchronized (this) {
+      tasks.offer(task);
+      if (active != null) {
+        return;
+      }
+      active = tasks.poll();
+    }
+    if (!launch(task)) {
+      scheduleNext();
+    }
+  }
+
+  private void scheduleNext() {
+    while (true) {
+      HeldTask next;
+      synchronized (this) {
+        active = tasks.poll();
+        next = active;
+      }
+      if (next == null || launch(next)) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * @return false if the backing executor rejected the task.
+   */
+  private boolean launch(final HeldTask task) {
+    final AtomicBoolean released = new AtomicBoolean();
+    final Runnable release = new Runnable() {
+      @Override public void run() {
+        if (released.compareAndSet(false, true)) {
+          scheduleNext();
+        }
+      }
+    };
+    try {
+      executor.execute(new Runnable() {
+        @Override public void run() {
+          task.run(release);
+        }
+      });
+      return true;
+    } catch (RejectedExecutionException e) {
+      task.rejected(e);
+      return false;
+    }
+  }
+}
@@ -1,19 +1,44 @@
 package uncmn.eve;
 
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
 
 public abstract class Store implements Operations {
   private static final String LIST_KEY_PREFIX = "eve.list-";
-  private static final Object storeLock = new Object();
+  /**
+   * Returned by the default {@link #bytes(String, String)}, primitive getters then read the value
+   * with {@link #get(String)}.
+   */
+  private static final byte[] NO_BYTES = new byte[0];
 
   private Converter converter;
   private EveConverter eveConverter = new EveConverter();
+  private final boolean singleThreaded;
+  private final boolean lockConverter;
+  private final KeyLocks keyLocks;
+  private final Object converterLock = new Object();
+  private volatile ExecutorService parallelExecutor;
+  private volatile int parallelThreshold;
 
   public Store(Converter converter) {
+    this(converter, false);
+  }
+
+  /**
+   * @param converter Converter for objects that are not handled by eve.
+   * @param singleThreaded true if this store is only accessed from a single thread, all locking
+   * is skipped. Otherwise writes are serialized per key with striped locks of this instance, and
+   * a converter that is not a {@link ThreadSafeConverter} is called from one thread at a time.
+   */
+  public Store(Converter converter, boolean singleThreaded) {
     this.converter = converter;
+    this.singleThreaded = singleThreaded;
+    this.lockConverter = !singleThreaded && !(converter instanceof ThreadSafeConverter);
+    this.keyLocks = singleThreaded ? KeyLocks.none() : KeyLocks.striped(KeyLocks.DEFAULT_STRIPES);
   }
 
   /**
@@ -24,9 +49,7 @@ public abstract class Store implements Operations {
    */
   @Override public void set(String key, int value) {
     String type = eveConverter.mapping(value);
-    synchronized (storeLock) {
-      set(key, value(eveConverter.serialize(value), type));
-    }
+    put(key, value(eveConverter.serialize(value), type));
   }
 
   /**
@@ -37,9 +60,7 @@ public abstract class Store implements Operations {
    */
   @Override public void set(String key, int[] value) {
     String type = eveConverter.mapping(value);
-    synchronized (storeLock) {
-      set(key, value(eveConverter.serialize(value), type));
-    }
+    put(key, value(eveConverter.serialize(value), type));
   }
 
   /**
@@ -50,9 +71,7 @@ public abstract class Store implements Operations {
    */
   @Override public void set(String key, float value) {
     String type = eveConverter.mapping(value);
-    synchronized (storeLock) {
-      set(key, value(eveConverter.serialize(value), type));
-    }
+    put(key, value(eveConverter.serialize(value), type));
   }
 
   /**
@@ -63,9 +82,7 @@ public abstract class Store implements Operations {
    */
   @Override public void set(String key, float[] value) {
     String type = eveConverter.mapping(value);
-    synchronized (storeLock) {
-      set(key, value(eveConverter.serialize(value), type));
-    }
+    put(key, value(eveConverter.serialize(value), type));
   }
 
   /**
@@ -76,9 +93,7 @@ public abstract class Store implements Operations {
    */
   @Override public void set(String key, long value) {
     String type = eveConverter.mapping(value);
-    synchronized (storeLock) {
-      set(key, value(eveConverter.serialize(value), type));
-    }
+    put(key, value(eveConverter.serialize(value), type));
   }
 
   /**
@@ -89,9 +104,7 @@ public abstract class Store implements Operations {
    */
   @Override public void set(String key, long[] value) {
     String type = eveConverter.mapping(value);
-    synchronized (storeLock) {
-      set(key, value(eveConverter.serialize(value), type));
-    }
+    put(key, value(eveConverter.serialize(value), type));
   }
 
   /**
@@ -102,9 +115,7 @@ public abstract class Store implements Operations {
    */
   @Override public void set(String key, double value) {
     String type = eveConverter.mapping(value);
-    synchronized (storeLock) {
-      set(key, value(eveConverter.serialize(value), type));
-    }
+    put(key, value(eveConverter.serialize(value), type));
   }
 
   /**
@@ -115,9 +126,7 @@ public abstract class Store implements Operations {
    */
   @Override public void set(String key, double[] value) {
     String type = eveConverter.mapping(value);
-    synchronized (storeLock) {
-      set(key, value(eveConverter.serialize(value), type));
-    }
+    put(key, value(eveConverter.serialize(value), type));
   }
 
   /**
@@ -128,9 +137,7 @@ public abstract class Store implements Operations {
    */
   @Override public void set(String key, boolean value) {
     String type = eveConverter.mapping(value);
-    synchronized (storeLock) {
-      set(key, value(eveConverter.serialize(value), type));
-    }
+    put(key, value(eveConverter.serialize(value), type));
   }
 
   /**
@@ -141,9 +148,7 @@ public abstract class Store implements Operations {
    */
   @Override public void set(String key, char value) {
     String type = eveConverter.mapping(value);
-    synchronized (storeLock) {
-      set(key, value(eveConverter.serialize(value), type));
-    }
+    put(key, value(eveConverter.serialize(value), type));
   }
 
   /**
@@ -154,9 +159,7 @@ public abstract class Store implements Operations {
    */
   @Override public void set(String key, char[] value) {
     String type = eveConverter.mapping(value);
-    synchronized (storeLock) {
-      set(key, value(eveConverter.serialize(value), type));
-    }
+    put(key, value(eveConverter.serialize(value), type));
   }
 
   /**
@@ -167,9 +170,7 @@ public abstract class Store implements Operations {
    */
   @Override public void set(String key, byte value) {
     String type = eveConverter.mapping(value);
-    synchronized (storeLock) {
-      set(key, value(eveConverter.serialize(value), type));
-    }
+    put(key, value(eveConverter.serialize(value), type));
   }
 
   /**
@@ -180,9 +181,7 @@ public abstract class Store implements Operations {
    */
   @Override public void set(String key, byte[] value) {
     String type = eveConverter.mapping(value);
-    synchronized (storeLock) {
-      set(key, value(value, type));
-    }
+    put(key, value(value, type));
   }
 
   /**
@@ -193,9 +192,7 @@ public abstract class Store implements Operations {
    */
   @Override public void set(String key, String value) {
     String type = eveConverter.mapping(value);
-    synchronized (storeLock) {
-      set(key, value(eveConverter.serialize(value), type));
-    }
+    put(key, value(eveConverter.serialize(value), type));
   }
 
   /**
@@ -206,9 +203,7 @@ public abstract class Store implements Operations {
    */
   @Override public void set(String key, String[] value) {
     String type = eveConverter.mapping(value);
-    synchronized (storeLock) {
-      set(key, value(eveConverter.serialize(value), type));
-    }
+    put(key, value(eveConverter.serialize(value), type));
   }
 
   /**
@@ -224,9 +219,7 @@ public abstract class Store implements Operations {
           + "Object cannot be converted -- "
           + object);
     }
-    synchronized (storeLock) {
-      set(key, value(converter.serialize(object), converterKey));
-    }
+    put(key, value(serialize(object), converterKey));
   }
 
   /**
@@ -237,35 +230,83 @@ public abstract class Store implements Operations {
     if (value.isEmpty()) {
       throw new RuntimeException("List to be stored cannot be empty");
     }
-    synchronized (storeLock) {
-      String type = eveConverter.mapping(value);
-      if (type != null) {
-        set(key, value(eveConverter.serialize(value), type));
-      } else {
-        Object object = value.get(0);
-        String converterKey = converter.mapping(object);
-        if (converterKey == null) {
-          throw new RuntimeException("Have you mapped object with converter.mapping() ? "
-              + "Object cannot be converted -- "
-              + object);
-        }
+    put(key, encodeList(value));
+  }
 
-        byte[][] objectBytes = new byte[value.size()][];
-        int totalSize = 4; //first size of the array.
-        for (int i = 0; i < value.size(); i++) {
-          objectBytes[i] = converter.serialize(value.get(i));
-          totalSize = totalSize + 4 + objectBytes[i].length;
-        }
-        ByteBuffer byteBuffer = ByteBuffer.allocate(totalSize);
-        byteBuffer.putInt(value.size());
-        for (byte[] objectByte : objectBytes) {
-          byteBuffer.putInt(objectByte.length);
-          byteBuffer.put(objectByte);
+  /**
+   * Encode a non empty homogeneous list, see {@link #set(String, List)}.
+   */
+  private Value encodeList(List<?> value) {
+    String type = eveConverter.mapping(value);
+    if (type != null) {
+      return value(eveConverter.serialize(value), type);
+    }
+    Object object = value.get(0);
+    String converterKey = converter.mapping(object);
+    if (converterKey == null) {
+      throw new RuntimeException("Have you mapped object with converter.mapping() ? "
+          + "Object cannot be converted -- "
+          + object);
+    }
+
+    final byte[][] objectBytes = new byte[value.size()][];
+    final List<?> items = value;
+    ExecutorService executor = parallelExecutor(items.size());
+    if (executor != null) {
+      Parallel.forEach(executor, items.size(), new Parallel.Task() {
+        @Override public void run(int index) {
+          objectBytes[index] = serialize(items.get(index));
         }
-        String listKey = LIST_KEY_PREFIX + converterKey;
-        set(key, value(byteBuffer.array(), listKey));
+      });
+    } else {
+      for (int i = 0; i < items.size(); i++) {
+        objectBytes[i] = serialize(items.get(i));
       }
     }
+    int totalSize = 4; //first size of the array.
+    for (byte[] objectByte : objectBytes) {
+      totalSize = totalSize + 4 + objectByte.length;
+    }
+    ByteBuffer byteBuffer = ByteBuffer.allocate(totalSize);
+    byteBuffer.putInt(value.size());
+    for (byte[] objectByte : objectBytes) {
+      byteBuffer.putInt(objectByte.length);
+      byteBuffer.put(objectByte);
+    }
+    String listKey = LIST_KEY_PREFIX + converterKey;
+    return value(byteBuffer.array(), listKey);
+  }
+
+  /**
+   * Encode any supported object into a {@link Value}. Primitives, arrays and strings are handled
+   * by eve, lists as in {@link #set(String, List)} and everything else by the converter.
+   */
+  Value encode(Object object) {
+    if (object instanceof List) {
+      List<?> list = (List<?>) object;
+      if (list.isEmpty()) {
+        throw new RuntimeException("List to be stored cannot be empty");
+      }
+      return encodeList(list);
+    }
+    String type = eveConverter.mapping(object);
+    if (type != null) {
+      return value(eveConverter.serialize(object), type);
+    }
+    String converterKey = converter.mapping(object);
+    if (converterKey == null) {
+      throw new RuntimeException("Have you mapped object with converter.mapping() ? "
+          + "Object cannot be converted -- "
+          + object);
+    }
+    return value(serialize(object), converterKey);
+  }
+
+  /**
+   * Converter for objects that are not handled by eve.
+   */
+  Converter converter() {
+    return converter;
   }
 
   /**
@@ -287,6 +328,61 @@ public abstract class Store implements Operations {
     return Value.builder().value(value).type(type).build();
   }
 
+  /**
+   * Set value of key while holding the lock of that key.
+   */
+  void put(String key, Value value) {
+    keyLocks.lock(key);
+    try {
+      set(key, value);
+    } finally {
+      keyLocks.unlock(key);
+    }
+  }
+
+  /**
+   * Acquire the write lock of key, stores updating more than one structure per write use it to
+   * keep them consistent. The lock is reentrant and a no-op for single threaded stores.
+   *
+   * @param key is a {@link String}, NotNull and Unique
+   */
+  protected void lock(String key) {
+    keyLocks.lock(key);
+  }
+
+  /**
+   * Release the write lock of key acquired with {@link #lock(String)}.
+   *
+   * @param key is a {@link String}, NotNull and Unique
+   */
+  protected void unlock(String key) {
+    keyLocks.unlock(key);
+  }
+
+  /**
+   * Serialize with the custom converter, locking only if it is not thread safe.
+   */
+  private byte[] serialize(Object object) {
+    if (!lockConverter) {
+      return converter.serialize(object);
+    }
+    synchronized (converterLock) {
+      return converter.serialize(object);
+    }
+  }
+
+  /**
+   * Deserialize with the custom converter, locking only if it is not thread safe.
+   */
+  private <T> T deserialize(byte[] value, String converterKey) {
+    if (!lockConverter) {
+      return converter.deserialize(value, converterKey);
+    }
+    synchronized (converterLock) {
+      return converter.deserialize(value, converterKey);
+    }
+  }
+
   /**
    * @param value byte[] to be converted.
    * @param converterKey Converter key.
@@ -295,14 +391,72 @@ public abstract class Store implements Operations {
    */
   @SuppressWarnings({ "unchecked", "UnusedDeclaration" }) protected <T> T convert(byte[] value,
       String converterKey) {
-    synchronized (storeLock) {
-      if (eveConverter.hasMapping(converterKey)) {
-        return (T) eveConverter.deserialize(value, converterKey);
-      } else if (converterKey.startsWith(LIST_KEY_PREFIX)) {
-        return convertList(value, converterKey);
+    if (eveConverter.hasMapping(converterKey)) {
+      return (T) eveConverter.deserialize(value, converterKey);
+    } else if (converterKey.startsWith(LIST_KEY_PREFIX)) {
+      return convertList(value, converterKey);
+    }
+    return deserialize(value, converterKey);
+  }
+
+  /**
+   * Convert many values, in parallel if enabled with {@link #parallel(ExecutorService, int)} and
+   * there are enough of them. Order is kept.
+   *
+   * @param values byte[]s to be converted.
+   * @param converterKeys Converter key of each value.
+   * @param <T> type to be converted to.
+   * @return converted values.
+   */
+  @SuppressWarnings("unchecked")
+  protected <T> List<T> convertAll(final List<byte[]> values, final List<String> converterKeys) {
+    final Object[] converted = new Object[values.size()];
+    ExecutorService executor = parallelExecutor(values.size());
+    if (executor != null) {
+      Parallel.forEach(executor, values.size(), new Parallel.Task() {
+        @Override public void run(int index) {
+          converted[index] = convert(values.get(index), converterKeys.get(index));
+        }
+      });
+    } else {
+      for (int i = 0; i < converted.length; i++) {
+        converted[i] = convert(values.get(i), converterKeys.get(i));
       }
-      return (T) converter.deserialize(value, converterKey);
     }
+    return new ArrayList<>((List<T>) Arrays.asList(converted));
+  }
+
+  /**
+   * Spread conversion of large lists and query results over an executor. Rows are still read
+   * sequentially, only converter work runs in parallel and result order is kept.
+   *
+   * @param executor executor for converter work, null to convert on the calling thread.
+   * @param threshold minimum number of elements for which converting in parallel is worth it.
+   */
+  public void parallel(ExecutorService executor, int threshold) {
+    this.parallelThreshold = threshold;
+    this.parallelExecutor = executor;
+  }
+
+  private ExecutorService parallelExecutor(int size) {
+    ExecutorService executor = parallelExecutor;
+    if (executor == null || size < Math.max(2, parallelThreshold)) {
+      return null;
+    }
+    return executor;
+  }
+
+  /**
+   * Entry whose value is converted on first access, see {@link Entry#value()}.
+   *
+   * @param key Entry key.
+   * @param value byte[] to be converted.
+   * @param converterKey Converter key.
+   * @param <T> type to be converted to.
+   * @return lazy entry.
+   */
+  protected <T> Entry<T> entry(String key, byte[] value, String converterKey) {
+    return Entry.lazy(key, value, converterKey, this);
   }
 
   /**
@@ -321,11 +475,99 @@ public abstract class Store implements Operations {
       int nextSize = byteBuffer.getInt();
       byte[] nextBytes = new byte[nextSize];
       byteBuffer.get(nextBytes);
-      objects[i] = converter.deserialize(nextBytes, actualConverterKey);
+      objects[i] = deserialize(nextBytes, actualConverterKey);
     }
     return (T) Arrays.asList(objects);
   }
 
+  /**
+   * Start a batch of writes that are committed together with {@link WriteBatch#commit()}.
+   */
+  @Override public WriteBatch batch() {
+    return new WriteBatch(this);
+  }
+
+  /**
+   * Apply the writes of a committed batch in order. Stores that support transactions should
+   * override this to commit the whole batch atomically, this implementation applies every
+   * write under the lock of its key.
+   *
+   * @param batch batch being committed.
+   */
+  protected void write(WriteBatch batch) {
+    for (WriteBatch.Write write : batch.writes()) {
+      String key = write.key();
+      keyLocks.lock(key);
+      try {
+        if (write.isDelete()) {
+          delete(key);
+        } else {
+          set(key, write.value());
+        }
+      } finally {
+        keyLocks.unlock(key);
+      }
+    }
+  }
+
+  @Override public int getInt(String key, int defaultValue) {
+    byte[] bytes = bytes(key, EveConverter.INT_CONVERTER_KEY);
+    if (bytes == NO_BYTES) {
+      Object value = get(key);
+      return value instanceof Integer ? (Integer) value : defaultValue;
+    }
+    return bytes == null ? defaultValue : EveConverter.decodeInt(bytes);
+  }
+
+  @Override public long getLong(String key, long defaultValue) {
+    byte[] bytes = bytes(key, EveConverter.LONG_CONVERTER_KEY);
+    if (bytes == NO_BYTES) {
+      Object value = get(key);
+      return value instanceof Long ? (Long) value : defaultValue;
+    }
+    return bytes == null ? defaultValue : EveConverter.decodeLong(bytes);
+  }
+
+  @Override public float getFloat(String key, float defaultValue) {
+    byte[] bytes = bytes(key, EveConverter.FLOAT_CONVERTER_KEY);
+    if (bytes == NO_BYTES) {
+      Object value = get(key);
+      return value instanceof Float ? (Float) value : defaultValue;
+    }
+    return bytes == null ? defaultValue : EveConverter.decodeFloat(bytes);
+  }
+
+  @Override public double getDouble(String key, double defaultValue) {
+    byte[] bytes = bytes(key, EveConverter.DOUBLE_CONVERTER_KEY);
+    if (bytes == NO_BYTES) {
+      Object value = get(key);
+      return value instanceof Double ? (Double) value : defaultValue;
+    }
+    return bytes == null ? defaultValue : EveConverter.decodeDouble(bytes);
+  }
+
+  @Override public boolean getBoolean(String key, boolean defaultValue) {
+    byte[] bytes = bytes(key, EveConverter.BOOLEAN_CONVERTER_KEY);
+    if (bytes == NO_BYTES) {
+      Object value = get(key);
+      return value instanceof Boolean ? (Boolean) value : defaultValue;
+    }
+    return bytes == null ? defaultValue : EveConverter.decodeBoolean(bytes);
+  }
+
+  /**
+   * Get the stored bytes of key, only if its value has the given converter key. Stores should
+   * override this to let primitive getters decode without boxing, by default they read the value
+   * with {@link #get(String)}.
+   *
+   * @param key is a {@link String}, NotNull and Unique
+   * @param converterKey Converter key the value must have.
+   * @return stored bytes, null if key does not exist or has another converter key.
+   */
+  protected byte[] bytes(String key, String converterKey) {
+    return NO_BYTES;
+  }
+
   /**
    * Print the value of the key.
    *
@@ -360,23 +602,25 @@ public abstract class Store implements Operations {
 
   /**
    * Map Class Type to converter key.
+   *
+   * @return converter key, null if cls is null or not mapped by any converter.
    */
-  private String converterKey(Class cls) {
+  String converterKey(Class cls) {
+    if (cls == null) {
+      return null;
+    }
     String converterKey = eveConverter.mapping(cls);
     if (converterKey == null) {
       converterKey = converter.mapping(cls);
     }
-    if (converterKey == null) {
-      System.out.println("Invalid converter key");
-    }
     return converterKey;
   }
 
   /**
-   * Map the converter key to class.
+   * Map the converter key to class, null for the null converter key of a missing key.
    */
   protected Class converterType(String converterKey) {
-    return converter.mapType(converterKey);
+    return converterKey == null ? null : converter.mapType(converterKey);
   }
 
   protected abstract <T> List<Entry<T>> entries(String converterKey);
@@ -386,15 +630,27 @@ public abstract class Store implements Operations {
   protected abstract <T> List<Entry<T>> entriesKeyContains(String converterKey, String keyContains);
 
   <T> List<Entry<T>> entriesTypeInternal(Class<T> clazz) {
-    return entries(converterKey(clazz));
+    String converterKey = converterKey(clazz);
+    if (converterKey == null) {
+      return Collections.emptyList();
+    }
+    return entries(converterKey);
   }
 
   <T> List<Entry<T>> entriesKeyPrefixInternal(Class<T> clazz, String keyPrefix) {
-    return entriesKeyPrefix(converterKey(clazz), keyPrefix);
+    String converterKey = converterKey(clazz);
+    if (converterKey == null) {
+      return Collections.emptyList();
+    }
+    return entriesKeyPrefix(converterKey, keyPrefix);
   }
 
   <T> List<Entry<T>> entriesKeyContainsInternal(Class<T> clazz, String keyContains) {
-    return entriesKeyContains(converterKey(clazz), keyContains);
+    String converterKey = converterKey(clazz);
+    if (converterKey == null) {
+      return Collections.emptyList();
+    }
+    return entriesKeyContains(converterKey, keyContains);
   }
 
   protected abstract List<String> keysType(String convertKey);
@@ -408,21 +664,27 @@ public abstract class Store implements Operations {
   protected abstract List<String> keysContains(String converterKey, String keyContains);
 
   <T> List<String> keysTypeInternal(Class<T> cls) {
-    return keysType(converterKey(cls));
+    String converterKey = converterKey(cls);
+    if (converterKey == null) {
+      return Collections.emptyList();
+    }
+    return keysType(converterKey);
   }
 
   <T> List<String> keysPrefixInternal(Class<T> clazz, String keyPrefix) {
-    if (clazz == null) {
+    String converterKey = converterKey(clazz);
+    if (converterKey == null) {
       return Collections.emptyList();
     }
-    return keysPrefix(converterKey(clazz), keyPrefix);
+    return keysPrefix(converterKey, keyPrefix);
   }
 
   <T> List<String> keysContainsInternal(Class<T> clazz, String keyContains) {
-    if (clazz == null) {
+    String converterKey = converterKey(clazz);
+    if (converterKey == null) {
       return Collections.emptyList();
     }
-    return keysContains(converterKey(clazz), keyContains);
+    return keysContains(converterKey, keyContains);
   }
 
   protected abstract <T> List<T> valuesType(String converterKey);
@@ -435,21 +697,126 @@ public abstract class Store implements Operations {
 
   protected abstract <T> List<T> valuesContains(String converterKey, String keyContains);
 
+  /**
+   * Entries of a selection, read one at a time. Stores should override this to read lazily,
+   * this implementation iterates over the materialized and paged list.
+   *
+   * @param selection rows to be read.
+   */
+  protected <T> CloseableIterator<Entry<T>> entriesIterator(Selection selection) {
+    return CloseableIterators.of(this.<T>selectEntries(selection));
+  }
+
+  /**
+   * Keys of a selection, read one at a time. Stores should override this to read lazily,
+   * this implementation iterates over the materialized and paged list.
+   *
+   * @param selection rows to be read.
+   */
+  protected CloseableIterator<String> keysIterator(Selection selection) {
+    String converterKey = selection.converterKey();
+    List<String> keys;
+    if (selection.keyPrefix() != null) {
+      keys = converterKey == null ? keysPrefixAny(selection.keyPrefix())
+          : keysPrefix(converterKey, selection.keyPrefix());
+    } else if (selection.keyContains() != null) {
+      keys = converterKey == null ? keysContainsAny(selection.keyContains())
+          : keysContains(converterKey, selection.keyContains());
+    } else {
+      keys = keysType(converterKey);
+    }
+    if (selection.paged()) {
+      keys = selection.page(keys);
+    }
+    return CloseableIterators.of(keys);
+  }
+
+  /**
+   * Values of a selection, read one at a time. Stores should override this to read lazily,
+   * this implementation iterates over the materialized and paged list.
+   *
+   * @param selection rows to be read.
+   */
+  @SuppressWarnings("unchecked")
+  protected <T> CloseableIterator<T> valuesIterator(Selection selection) {
+    String converterKey = selection.converterKey();
+    List<T> values;
+    if (selection.paged()) {
+      //values carry no key, page the entries.
+      List<Entry<T>> entries = selectEntries(selection);
+      values = new ArrayList<>(entries.size());
+      for (Entry<T> entry : entries) {
+        values.add(entry.value());
+      }
+    } else if (selection.keyPrefix() != null) {
+      values = converterKey == null ? (List<T>) valuesPrefixAny(selection.keyPrefix())
+          : this.<T>valuesPrefix(converterKey, selection.keyPrefix());
+    } else if (selection.keyContains() != null) {
+      values = converterKey == null ? (List<T>) valuesContainsAny(selection.keyContains())
+          : this.<T>valuesContains(converterKey, selection.keyContains());
+    } else {
+      values = valuesType(converterKey);
+    }
+    return CloseableIterators.of(values);
+  }
+
+  /**
+   * Number of rows of a selection, callers count with {@link Query.QueryRunner#count()}. Stores
+   * should override this to count without reading rows, this implementation counts the keys.
+   *
+   * @param selection rows to be counted.
+   */
+  protected int count(Selection selection) {
+    CloseableIterator<String> keys = keysIterator(selection);
+    int count = 0;
+    try {
+      while (keys.hasNext()) {
+        keys.next();
+        count++;
+      }
+    } finally {
+      keys.close();
+    }
+    return count;
+  }
+
+  private <T> List<Entry<T>> selectEntries(Selection selection) {
+    String converterKey = selection.converterKey();
+    List<Entry<T>> entries;
+    if (selection.keyPrefix() != null) {
+      entries = entriesKeyPrefix(converterKey, selection.keyPrefix());
+    } else if (selection.keyContains() != null) {
+      entries = entriesKeyContains(converterKey, selection.keyContains());
+    } else {
+      entries = entries(converterKey);
+    }
+    if (selection.paged()) {
+      entries = selection.pageEntries(entries);
+    }
+    return entries;
+  }
+
   <T> List<T> valuesTypeInternal(Class<T> cls) {
-    return valuesType(converterKey(cls));
+    String converterKey = converterKey(cls);
+    if (converterKey == null) {
+      return Collections.emptyList();
+    }
+    return valuesType(converterKey);
   }
 
   <T> List<T> valuesPrefixInternal(Class<T> clazz, String keyPrefix) {
-    if (clazz == null) {
+    String converterKey = converterKey(clazz);
+    if (converterKey == null) {
       return Collections.emptyList();
     }
-    return valuesPrefix(converterKey(clazz), keyPrefix);
+    return valuesPrefix(converterKey, keyPrefix);
   }
 
   <T> List<T> valuesContainsInternal(Class<T> clazz, String keyContains) {
-    if (clazz == null) {
+    String converterKey = converterKey(clazz);
+    if (converterKey == null) {
       return Collections.emptyList();
     }
-    return valuesContains(converterKey(clazz), keyContains);
+    return valuesContains(converterKey, keyContains);
   }
 }
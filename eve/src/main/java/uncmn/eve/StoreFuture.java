@@ -0,0 +1,100 @@
+package uncmn.eve;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Result of an {@link AsyncStore} operation.
+ * <p>Besides the blocking {@link #get()} of a {@link java.util.concurrent.Future}, callbacks can
+ * be registered with {@link #then(Callback)} so that many operations can be pipelined without
+ * blocking the caller.</p>
+ *
+ * @param <T> result type.
+ */
+public class StoreFuture<T> extends FutureTask<T> {
+
+  private final List<Callback<? super T>> callbacks = new ArrayList<>();
+  private boolean completed = false;
+
+  StoreFuture(Callable<T> callable) {
+    super(callable);
+  }
+
+  /**
+   * Register a callback that is invoked once the operation completes. The callback runs on the
+   * thread completing the operation, or immediately on the calling thread if already complete.
+   *
+   * @param callback callback to be notified.
+   * @return this future.
+   */
+  public StoreFuture<T> then(Callback<? super T> callback) {
+    synchronized (callbacks) {
+      if (!completed) {
+        callbacks.add(callback);
+        return this;
+      }
+    }
+    notify(callback);
+    return this;
+  }
+
+  /**
+   * Fail the operation without running it, when its executor rejected it.
+   */
+  void reject(Throwable error) {
+    setException(error);
+  }
+
+  @Override protected void done() {
+    List<Callback<? super T>> pending;
+    synchronized (callbacks) {
+      completed = true;
+      pending = new ArrayList<>(callbacks);
+      callbacks.clear();
+    }
+    for (Callback<? super T> callback : pending) {
+      notify(callback);
+    }
+  }
+
+  private void notify(Callback<? super T> callback) {
+    T result;
+    try {
+      result = get();
+    } catch (ExecutionException e) {
+      callback.onError(e.getCause());
+      return;
+    } catch (CancellationException e) {
+      callback.onError(e);
+      return;
+    } catch (InterruptedException e) {
+      //done, get() does not block.
+      Thread.currentThread().interrupt();
+      callback.onError(e);
+      return;
+    }
+    callback.onSuccess(result);
+  }
+
+  /**
+   * Completion callback of a {@link StoreFuture}.
+   *
+   * @param <T> result type.
+   */
+  public interface Callback<T> {
+
+    /**
+     * @param result result of the operation.
+     */
+    void onSuccess(T result);
+
+    /**
+     * @param error error thrown by the operation, or cancellation.
+     */
+    void onError(Throwable error);
+  }
+}
@@ -0,0 +1,8 @@
+package uncmn.eve;
+
+/**
+ * A {@link Converter} whose serialize and deserialize can be called concurrently from many
+ * threads. Stores call any other converter from one thread at a time.
+ */
+public interface ThreadSafeConverter extends Converter {
+}
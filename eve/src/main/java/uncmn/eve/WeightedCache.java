@@ -0,0 +1,207 @@
+package uncmn.eve;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A weight bounded cache of decoded values used by {@link CachingStore}.
+ * <p>With {@link CachingStore.Policy#LRU} the least recently used entries are evicted. With
+ * {@link CachingStore.Policy#TINY_LFU} new entries enter a small LRU window, entries leaving the
+ * window are admitted to the main LRU space only if they are accessed more frequently than the
+ * entry they would evict (W-TinyLFU).</p>
+ * <p>All methods are synchronized on the cache. A hit reorders its entry and counts it in the
+ * sketch, so hits of all keys take this one lock, each for a few map operations. That is far
+ * less than the read and decode a hit saves, but hits do not run in parallel.</p>
+ */
+final class WeightedCache {
+
+  private static final int WINDOW_PERCENT = 1;
+
+  private final CachingStore.Weigher weigher;
+  private final FrequencySketch sketch;
+  private final LinkedHashMap<String, Node> window = new LinkedHashMap<>(16, 0.75f, true);
+  private final LinkedHashMap<String, Node> main = new LinkedHashMap<>(16, 0.75f, true);
+  private final long maximumWeight;
+  private final long maximumWindowWeight;
+  private long windowWeight;
+  private long mainWeight;
+  private long generation;
+  private long hitCount;
+  private long missCount;
+  private long evictionCount;
+
+  WeightedCache(long maximumWeight, CachingStore.Weigher weigher, CachingStore.Policy policy) {
+    this.maximumWeight = maximumWeight;
+    this.weigher = weigher;
+    if (policy == CachingStore.Policy.TINY_LFU) {
+      this.sketch = new FrequencySketch((int) Math.min(maximumWeight, Integer.MAX_VALUE));
+      this.maximumWindowWeight = Math.max(1, maximumWeight * WINDOW_PERCENT / 100);
+    } else {
+      this.sketch = null;
+      this.maximumWindowWeight = 0;
+    }
+  }
+
+  /**
+   * @return cached value, null on a miss.
+   */
+  synchronized Object get(String key) {
+    if (sketch != null) {
+      sketch.increment(key);
+    }
+    Node node = window.get(key);
+    if (node == null) {
+      node = main.get(key);
+    }
+    if (node == null) {
+      missCount++;
+      return null;
+    }
+    hitCount++;
+    return node.value;
+  }
+
+  synchronized boolean contains(String key) {
+    return window.containsKey(key) || main.containsKey(key);
+  }
+
+  /**
+   * Generation of the cache, it changes on every invalidation.
+   */
+  synchronized long generation() {
+    return generation;
+  }
+
+  /**
+   * Cache a loaded value, unless the cache was invalidated since the value was loaded.
+   *
+   * @param generation {@link #generation()} before loading the value.
+   */
+  synchronized void put(String key, Object value, long generation) {
+    if (this.generation != generation) {
+      return;
+    }
+    int weight = weigher.weigh(key, value);
+    if (weight > maximumWeight) {
+      return;
+    }
+    remove(key);
+    Node node = new Node(key, value, weight);
+    if (sketch == null) {
+      main.put(key, node);
+      mainWeight += weight;
+      evictMain();
+    } else {
+      window.put(key, node);
+      windowWeight += weight;
+      evictWindow();
+    }
+  }
+
+  synchronized void invalidate(String key) {
+    generation++;
+    remove(key);
+  }
+
+  synchronized void invalidateAll() {
+    generation++;
+    window.clear();
+    main.clear();
+    windowWeight = 0;
+    mainWeight = 0;
+  }
+
+  synchronized long hitCount() {
+    return hitCount;
+  }
+
+  synchronized long missCount() {
+    return missCount;
+  }
+
+  synchronized long evictionCount() {
+    return evictionCount;
+  }
+
+  synchronized long weight() {
+    return windowWeight + mainWeight;
+  }
+
+  private void remove(String key) {
+    Node node = window.remove(key);
+    if (node != null) {
+      windowWeight -= node.weight;
+    }
+    node = main.remove(key);
+    if (node != null) {
+      mainWeight -= node.weight;
+    }
+  }
+
+  private void evictMain() {
+    Iterator<Node> iterator = main.values().iterator();
+    while (mainWeight > maximumWeight - maximumWindowWeight && iterator.hasNext()) {
+      Node victim = iterator.next();
+      iterator.remove();
+      mainWeight -= victim.weight;
+      evictionCount++;
+    }
+  }
+
+  /**
+   * Move candidates leaving the window into the main space if they are more popular than the
+   * victims they replace.
+   */
+  private void evictWindow() {
+    long maximumMainWeight = maximumWeight - maximumWindowWeight;
+    Iterator<Map.Entry<String, Node>> candidates = window.entrySet().iterator();
+    while (windowWeight > maximumWindowWeight && candidates.hasNext()) {
+      Node candidate = candidates.next().getValue();
+      candidates.remove();
+      windowWeight -= candidate.weight;
+
+      int candidateFrequency = sketch.frequency(candidate.key);
+      boolean admit = true;
+      Iterator<Node> victims = main.values().iterator();
+      long freed = 0;
+      while (mainWeight - freed + candidate.weight > maximumMainWeight && victims.hasNext()) {
+        Node victim = victims.next();
+        if (sketch.frequency(victim.key) >= candidateFrequency) {
+          admit = false;
+          break;
+        }
+        freed += victim.weight;
+      }
+      if (mainWeight - freed + candidate.weight > maximumMainWeight) {
+        admit = false;
+      }
+      if (admit) {
+        victims = main.values().iterator();
+        while (freed > 0) {
+          Node victim = victims.next();
+          victims.remove();
+          mainWeight -= victim.weight;
+          freed -= victim.weight;
+          evictionCount++;
+        }
+        main.put(candidate.key, candidate);
+        mainWeight += candidate.weight;
+      } else {
+        evictionCount++;
+      }
+    }
+  }
+
+  private static final class Node {
+    final String key;
+    final Object value;
+    final int weight;
+
+    Node(String key, Object value, int weight) {
+      this.key = key;
+      this.value = value;
+      this.weight = weight;
+    }
+  }
+}
@@ -0,0 +1,237 @@
+package uncmn.eve;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A batch of sets and deletes on a {@link Store}.
+ * <p>Values are serialized as they are added, nothing reaches the store until {@link #commit()}.
+ * Stores that support transactions commit the whole batch atomically. This class is
+ * <em>not</em> thread safe.</p>
+ */
+public final class WriteBatch {
+
+  private final Store store;
+  private final List<Write> writes = new ArrayList<>();
+  private boolean committed = false;
+
+  WriteBatch(Store store) {
+    this.store = store;
+  }
+
+  /**
+   * @param key Unique key string.
+   * @param value int value.
+   */
+  public WriteBatch set(String key, int value) {
+    return add(key, store.encode(value));
+  }
+
+  /**
+   * @param key Unique key string.
+   * @param value array of ints.
+   */
+  public WriteBatch set(String key, int[] value) {
+    return add(key, store.encode(value));
+  }
+
+  /**
+   * @param key Unique key string.
+   * @param value float value.
+   */
+  public WriteBatch set(String key, float value) {
+    return add(key, store.encode(value));
+  }
+
+  /**
+   * @param key Unique key string.
+   * @param value array of floats.
+   */
+  public WriteBatch set(String key, float[] value) {
+    return add(key, store.encode(value));
+  }
+
+  /**
+   * @param key Unique key string.
+   * @param value double value.
+   */
+  public WriteBatch set(String key, double value) {
+    return add(key, store.encode(value));
+  }
+
+  /**
+   * @param key Unique key string.
+   * @param value array of doubles.
+   */
+  public WriteBatch set(String key, double[] value) {
+    return add(key, store.encode(value));
+  }
+
+  /**
+   * @param key Unique key string.
+   * @param value long value.
+   */
+  public WriteBatch set(String key, long value) {
+    return add(key, store.encode(value));
+  }
+
+  /**
+   * @param key Unique key string.
+   * @param value array of longs.
+   */
+  public WriteBatch set(String key, long[] value) {
+    return add(key, store.encode(value));
+  }
+
+  /**
+   * @param key Unique key string.
+   * @param value boolean value.
+   */
+  public WriteBatch set(String key, boolean value) {
+    return add(key, store.encode(value));
+  }
+
+  /**
+   * @param key Unique key string.
+   * @param value char value.
+   */
+  public WriteBatch set(String key, char value) {
+    return add(key, store.encode(value));
+  }
+
+  /**
+   * @param key Unique key string.
+   * @param value array of chars.
+   */
+  public WriteBatch set(String key, char[] value) {
+    return add(key, store.encode(value));
+  }
+
+  /**
+   * @param key Unique key string.
+   * @param value byte value.
+   */
+  public WriteBatch set(String key, byte value) {
+    return add(key, store.encode(value));
+  }
+
+  /**
+   * @param key Unique key string.
+   * @param value byte array.
+   */
+  public WriteBatch set(String key, byte[] value) {
+    return add(key, store.encode(value));
+  }
+
+  /**
+   * @param key Unique key string.
+   * @param value String value.
+   */
+  public WriteBatch set(String key, String value) {
+    return add(key, store.encode(value));
+  }
+
+  /**
+   * @param key Unique key string.
+   * @param value array of strings.
+   */
+  public WriteBatch set(String key, String[] value) {
+    return add(key, store.encode(value));
+  }
+
+  /**
+   * @param key Unique key string.
+   * @param value An object that can be converted with {@linkplain Converter}.
+   */
+  public WriteBatch set(String key, Object value) {
+    return add(key, store.encode(value));
+  }
+
+  /**
+   * @param key Unique key string.
+   * @param value A non empty homogeneous list of objects, see {@link Store#set(String, List)}.
+   */
+  public WriteBatch set(String key, List<?> value) {
+    return add(key, store.encode(value));
+  }
+
+  /**
+   * @param key Unique key string to be deleted.
+   */
+  public WriteBatch delete(String key) {
+    return add(key, null);
+  }
+
+  private WriteBatch add(String key, Value value) {
+    if (committed) {
+      throw new IllegalStateException("Batch has already been committed");
+    }
+    writes.add(new Write(key, value));
+    return this;
+  }
+
+  /**
+   * Number of writes in this batch.
+   */
+  public int size() {
+    return writes.size();
+  }
+
+  /**
+   * Writes in the order they were added.
+   */
+  public List<Write> writes() {
+    return Collections.unmodifiableList(writes);
+  }
+
+  /**
+   * Write the batch to the store. A batch can be committed only once.
+   */
+  public void commit() {
+    if (committed) {
+      throw new IllegalStateException("Batch has already been committed");
+    }
+    committed = true;
+    store.write(this);
+  }
+
+  /**
+   * A single set or delete in a batch.
+   */
+  public static final class Write {
+
+    private final String key;
+    private final Value value;
+
+    Write(String key, Value value) {
+      this.key = key;
+      this.value = value;
+    }
+
+    /**
+     * Key.
+     */
+    public String key() {
+      return key;
+    }
+
+    /**
+     * Value to be set, null for a delete.
+     */
+    public Value value() {
+      return value;
+    }
+
+    /**
+     * @return true if this write deletes the key.
+     */
+    public boolean isDelete() {
+      return value == null;
+    }
+
+    @Override public String toString() {
+      return "Write{" + "key='" + key + '\'' + ", delete=" + isDelete() + '}';
+    }
+  }
+}
@@ -0,0 +1,152 @@
+package uncmn.eve;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class AsyncStoreTest {
+
+  /**
+   * Runs the most recently submitted task first, so only explicit ordering keeps tasks in order.
+   */
+  static final class LifoExecutor implements Executor {
+
+    final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+    boolean reject;
+
+    @Override public void execute(Runnable task) {
+      if (reject) {
+        throw new RejectedExecutionException("rejected");
+      }
+      tasks.push(task);
+    }
+
+    void runAll() {
+      while (!tasks.isEmpty()) {
+        tasks.pop().run();
+      }
+    }
+  }
+
+  @Test public void batchRunsAfterPendingOperationsOnItsKeys() throws Exception {
+    MapStore store = new MapStore();
+    LifoExecutor executor = new LifoExecutor();
+    AsyncStore async = AsyncStore.create(store, executor);
+
+    async.set("a", 1);
+    StoreFuture<Void> commit = async.commit(store.batch().set("a", 2).set("b", 3));
+    StoreFuture<Integer> a = async.get("a");
+    executor.runAll();
+
+    assertTrue(commit.isDone());
+    assertEquals(2, (int) a.get());
+    assertEquals(3, store.getInt("b", 0));
+  }
+
+  @Test public void operationsAfterBatchWaitForIt() throws Exception {
+    MapStore store = new MapStore();
+    LifoExecutor executor = new LifoExecutor();
+    AsyncStore async = AsyncStore.create(store, executor);
+
+    async.commit(store.batch().set("a", 1).delete("b"));
+    async.set("a", 2);
+    async.set("b", 3);
+    executor.runAll();
+
+    assertEquals(2, store.getInt("a", 0));
+    assertEquals(3, store.getInt("b", 0));
+  }
+
+  @Test public void rejectionFailsFutureAndKeepsStripeRunning() throws Exception {
+    MapStore store = new MapStore();
+    LifoExecutor executor = new LifoExecutor();
+    AsyncStore async = AsyncStore.create(store, executor);
+
+    executor.reject = true;
+    StoreFuture<Void> rejected = async.set("a", 1);
+    assertRejected(rejected);
+
+    executor.reject = false;
+    StoreFuture<Void> set = async.set("a", 2);
+    executor.runAll();
+    set.get();
+    assertEquals(2, store.getInt("a", 0));
+  }
+
+  @Test public void rejectedBatchReleasesItsStripes() throws Exception {
+    MapStore store = new MapStore();
+    LifoExecutor executor = new LifoExecutor();
+    AsyncStore async = AsyncStore.create(store, executor);
+
+    async.set("a", 1);
+    executor.reject = true;
+    StoreFuture<Void> commit = async.commit(store.batch().set("a", 2).set("b", 3));
+    executor.reject = false;
+    StoreFuture<Void> set = async.set("b", 4);
+    executor.runAll();
+
+    assertRejected(commit);
+    set.get();
+    assertEquals(1, store.getInt("a", 0));
+    assertEquals(4, store.getInt("b", 0));
+  }
+
+  @Test public void concurrentBatchesOnSharedKeysComplete() throws Exception {
+    final MapStore store = new MapStore();
+    ExecutorService pool = AsyncStore.boundedExecutor(2);
+    final AsyncStore async = AsyncStore.create(store, pool);
+    final List<StoreFuture<?>> futures = new ArrayList<>();
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < 4; t++) {
+      final int thread = t;
+      threads.add(new Thread(new Runnable() {
+        @Override public void run() {
+          for (int i = 0; i < 200; i++) {
+            WriteBatch batch = store.batch();
+            for (int k = 0; k < 20; k++) {
+              //threads visit keys in opposite orders.
+              int key = thread % 2 == 0 ? k : 19 - k;
+              batch.set("key" + key, i);
+            }
+            StoreFuture<?> commit = async.commit(batch);
+            StoreFuture<?> set = async.set("key" + (i % 20), -1);
+            synchronized (futures) {
+              futures.add(commit);
+              futures.add(set);
+            }
+          }
+        }
+      }));
+    }
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    for (StoreFuture<?> future : futures) {
+      future.get(10, TimeUnit.SECONDS);
+    }
+    pool.shutdown();
+  }
+
+  private static void assertRejected(StoreFuture<?> future) throws InterruptedException {
+    assertTrue(future.isDone());
+    try {
+      future.get();
+      fail("Expected rejection");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof RejectedExecutionException);
+    }
+  }
+}
@@ -0,0 +1,170 @@
+package uncmn.eve;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class BloomFilterStoreTest {
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  /**
+   * Store that counts key scans and lookups of the backing map.
+   */
+  static class CountingStore extends MapStore {
+
+    int scans;
+    int lookups;
+
+    @Override protected List<String> keysPrefixAny(String keyPrefix) {
+      scans++;
+      return super.keysPrefixAny(keyPrefix);
+    }
+
+    @Override public boolean exists(String key) {
+      lookups++;
+      return super.exists(key);
+    }
+
+    @Override public <T> T get(String key) {
+      lookups++;
+      return super.get(key);
+    }
+  }
+
+  private File file() {
+    return new File(folder.getRoot(), "keys.bloom");
+  }
+
+  private static BloomFilterStore open(Store store, File file) {
+    return BloomFilterStore.builder(store).expectedKeys(1000).file(file).build();
+  }
+
+  @Test public void missingKeysSkipBackingStore() {
+    CountingStore store = new CountingStore();
+    store.set("a", 1);
+    BloomFilterStore bloom = open(store, null);
+
+    assertFalse(bloom.exists("missing"));
+    assertNull(bloom.get("missing"));
+    assertNull(bloom.type("missing"));
+    assertEquals(-1, bloom.getInt("missing", -1));
+    assertTrue(bloom.exists("a"));
+    assertEquals(1, bloom.getInt("a", 0));
+
+    assertEquals(2, store.lookups);
+    assertEquals(4, bloom.negativeCount());
+  }
+
+  @Test public void setsAndBatchesAddKeys() {
+    BloomFilterStore bloom = open(new MapStore(), null);
+
+    bloom.set("a", 1);
+    bloom.batch().set("b", 2).delete("a").commit();
+
+    assertTrue(bloom.exists("b"));
+    assertFalse(bloom.exists("a"));
+  }
+
+  @Test public void flushedFilterIsReadInsteadOfBuilt() throws IOException {
+    CountingStore store = new CountingStore();
+    BloomFilterStore bloom = open(store, file());
+    for (int i = 0; i < 100; i++) {
+      bloom.set("key" + i, i);
+    }
+    bloom.flush();
+    assertEquals(1, store.scans);
+    assertTrue(file().exists());
+
+    BloomFilterStore reopened = open(store, file());
+
+    assertEquals(1, store.scans);
+    for (int i = 0; i < 100; i++) {
+      assertTrue(reopened.exists("key" + i));
+    }
+    assertEquals(0, reopened.negativeCount());
+  }
+
+  @Test public void firstWriteDeletesFlushedFile() throws IOException {
+    MapStore store = new MapStore();
+    open(store, file()).flush();
+    BloomFilterStore reopened = open(store, file());
+    assertTrue(file().exists());
+
+    reopened.set("a", 1);
+    assertFalse(file().exists());
+
+    reopened.flush();
+    assertTrue(file().exists());
+    assertTrue(open(store, file()).exists("a"));
+  }
+
+  @Test public void corruptFileIsRebuilt() throws IOException {
+    CountingStore store = new CountingStore();
+    store.set("a", 1);
+    OutputStream output = new FileOutputStream(file());
+    output.write(new byte[] { 1, 2, 3 });
+    output.close();
+
+    BloomFilterStore bloom = open(store, file());
+
+    assertEquals(1, store.scans);
+    assertTrue(bloom.exists("a"));
+    bloom.flush();
+    assertTrue(open(store, file()).exists("a"));
+    assertEquals(1, store.scans);
+  }
+
+  @Test public void rebuildDropsDeletedKeys() {
+    CountingStore store = new CountingStore();
+    BloomFilterStore bloom = open(store, null);
+    bloom.set("a", 1);
+    bloom.delete("a");
+
+    assertFalse(bloom.exists("a"));
+    assertEquals(1, bloom.falsePositiveCount());
+
+    bloom.rebuild();
+    int lookups = store.lookups;
+
+    assertFalse(bloom.exists("a"));
+    assertEquals(lookups, store.lookups);
+    assertEquals(1, bloom.falsePositiveCount());
+  }
+
+  @Test public void clearEmptiesFilter() {
+    BloomFilterStore bloom = open(new MapStore(), null);
+    bloom.set("a", 1);
+
+    assertEquals(1, bloom.clear());
+
+    assertFalse(bloom.exists("a"));
+    assertEquals(0, bloom.falsePositiveCount());
+  }
+
+  @Test public void falsePositivesNearExpectedProbability() {
+    MapStore store = new MapStore();
+    for (int i = 0; i < 1000; i++) {
+      store.set("key" + i, i);
+    }
+    BloomFilterStore bloom = BloomFilterStore.builder(store).expectedKeys(1000).build();
+
+    for (int i = 0; i < 20000; i++) {
+      assertFalse(bloom.exists("missing" + i));
+    }
+
+    assertTrue(bloom.expectedFpp() < 0.02);
+    assertTrue(String.valueOf(bloom.falsePositiveRate()), bloom.falsePositiveRate() < 0.03);
+    assertEquals(20000, bloom.negativeCount() + bloom.falsePositiveCount());
+  }
+}
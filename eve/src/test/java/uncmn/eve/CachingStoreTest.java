@@ -0,0 +1,192 @@
+package uncmn.eve;
+
+import java.util.concurrent.CountDownLatch;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class CachingStoreTest {
+
+  /**
+   * Store that counts reads of the backing map.
+   */
+  static class CountingStore extends MapStore {
+
+    int reads;
+
+    @Override public <T> T get(String key) {
+      reads++;
+      return super.get(key);
+    }
+  }
+
+  private static final CachingStore.Weigher LENGTH_WEIGHER = new CachingStore.Weigher() {
+    @Override public int weigh(String key, Object value) {
+      return ((String) value).length();
+    }
+  };
+
+  @Test public void readsCachedValuesOnce() {
+    CountingStore store = new CountingStore();
+    CachingStore cache = CachingStore.builder(store).build();
+    store.set("a", "one");
+
+    assertEquals("one", cache.<String>get("a"));
+    assertEquals("one", cache.<String>get("a"));
+    assertNull(cache.get("missing"));
+
+    assertEquals(2, store.reads);
+    assertEquals(1, cache.hitCount());
+    assertEquals(2, cache.missCount());
+    assertEquals(1.0 / 3, cache.hitRate(), 1e-9);
+    assertTrue(cache.exists("a"));
+    assertFalse(cache.exists("missing"));
+  }
+
+  @Test public void writesInvalidateCachedValues() {
+    CachingStore cache = CachingStore.builder(new MapStore()).build();
+    cache.set("a", "one");
+    cache.set("b", "two");
+    cache.set("c", "three");
+    cache.get("a");
+    cache.get("b");
+    cache.get("c");
+
+    cache.set("a", "uno");
+    cache.delete("b");
+    cache.batch().set("c", "tres").commit();
+
+    assertEquals("uno", cache.<String>get("a"));
+    assertNull(cache.get("b"));
+    assertEquals("tres", cache.<String>get("c"));
+
+    assertEquals(2, cache.clear());
+    assertNull(cache.get("a"));
+    assertEquals(0, cache.weight());
+  }
+
+  /**
+   * A value read before a concurrent set is not cached after the set invalidated its key.
+   */
+  @Test public void valueReadBeforeConcurrentSetIsNotCached() throws InterruptedException {
+    final CountDownLatch loaded = new CountDownLatch(1);
+    final CountDownLatch written = new CountDownLatch(1);
+    MapStore store = new MapStore() {
+      @Override public <T> T get(String key) {
+        T value = super.get(key);
+        if (loaded.getCount() > 0) {
+          loaded.countDown();
+          try {
+            written.await();
+          } catch (InterruptedException e) {
+            throw new AssertionError(e);
+          }
+        }
+        return value;
+      }
+    };
+    store.set("a", "old");
+    final CachingStore cache = CachingStore.builder(store).build();
+    final Object[] read = new Object[1];
+    Thread reader = new Thread(new Runnable() {
+      @Override public void run() {
+        read[0] = cache.get("a");
+      }
+    });
+
+    reader.start();
+    loaded.await();
+    cache.set("a", "new");
+    written.countDown();
+    reader.join();
+
+    assertEquals("old", read[0]);
+    assertEquals("new", cache.<String>get("a"));
+    assertEquals("new", cache.<String>get("a"));
+  }
+
+  @Test public void weightStaysWithinMaximum() {
+    for (CachingStore.Policy policy : CachingStore.Policy.values()) {
+      MapStore store = new MapStore();
+      CachingStore cache = CachingStore.builder(store)
+          .maximumWeight(100)
+          .weigher(LENGTH_WEIGHER)
+          .policy(policy)
+          .build();
+      for (int i = 0; i < 500; i++) {
+        String key = "key" + i;
+        store.set(key, "value of " + key);
+        cache.get(key);
+        cache.get("key" + i / 2);
+        assertTrue(policy + " weight " + cache.weight(), cache.weight() <= 100);
+      }
+      assertTrue(cache.evictionCount() > 0);
+    }
+  }
+
+  @Test public void valuesHeavierThanMaximumAreNotCached() {
+    CountingStore store = new CountingStore();
+    CachingStore cache =
+        CachingStore.builder(store).maximumWeight(5).weigher(LENGTH_WEIGHER).build();
+    store.set("a", "too long");
+
+    assertEquals("too long", cache.<String>get("a"));
+    assertEquals("too long", cache.<String>get("a"));
+
+    assertEquals(2, store.reads);
+    assertEquals(0, cache.weight());
+  }
+
+  @Test public void lruEvictsLeastRecentlyUsed() {
+    MapStore store = new MapStore();
+    CachingStore cache = CachingStore.builder(store)
+        .maximumWeight(3)
+        .policy(CachingStore.Policy.LRU)
+        .build();
+    for (String key : new String[] { "a", "b", "c", "d" }) {
+      store.set(key, key);
+    }
+    cache.get("a");
+    cache.get("b");
+    cache.get("c");
+    cache.get("a");
+
+    cache.get("d");
+
+    assertTrue(cache.exists("a"));
+    assertEquals(1, cache.evictionCount());
+    long misses = cache.missCount();
+    cache.get("a");
+    cache.get("b");
+    assertEquals(misses + 1, cache.missCount());
+  }
+
+  /**
+   * Frequently read keys stay cached while ten times as many keys as fit are read once.
+   */
+  @Test public void tinyLfuKeepsFrequentKeysDuringScan() {
+    MapStore store = new MapStore();
+    CachingStore cache = CachingStore.builder(store).maximumWeight(100).build();
+    for (int i = 0; i < 1100; i++) {
+      store.set("key" + i, i);
+    }
+    for (int round = 0; round < 5; round++) {
+      for (int i = 0; i < 50; i++) {
+        cache.get("key" + i);
+      }
+    }
+
+    for (int i = 100; i < 1100; i++) {
+      cache.get("key" + i);
+    }
+
+    long hits = cache.hitCount();
+    for (int i = 0; i < 50; i++) {
+      cache.get("key" + i);
+    }
+    assertTrue("hot hits " + (cache.hitCount() - hits), cache.hitCount() - hits >= 45);
+  }
+}
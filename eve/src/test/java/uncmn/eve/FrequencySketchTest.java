@@ -0,0 +1,49 @@
+package uncmn.eve;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FrequencySketchTest {
+
+  @Test public void countsAccesses() {
+    FrequencySketch sketch = new FrequencySketch(64);
+
+    for (int i = 0; i < 5; i++) {
+      sketch.increment("a");
+    }
+    sketch.increment("b");
+
+    assertEquals(5, sketch.frequency("a"));
+    assertEquals(1, sketch.frequency("b"));
+    assertEquals(0, sketch.frequency("c"));
+  }
+
+  @Test public void countsSaturate() {
+    FrequencySketch sketch = new FrequencySketch(64);
+
+    for (int i = 0; i < 100; i++) {
+      sketch.increment("a");
+    }
+
+    assertEquals(15, sketch.frequency("a"));
+  }
+
+  /**
+   * After as many additions as ten times the width, every counter is halved.
+   */
+  @Test public void agingHalvesCounts() {
+    FrequencySketch sketch = new FrequencySketch(16);
+    for (int i = 0; i < 12; i++) {
+      sketch.increment("hot");
+    }
+    assertEquals(12, sketch.frequency("hot"));
+
+    for (int i = 0; i < 16 * 10 - 12; i++) {
+      sketch.increment("cold" + i);
+    }
+
+    assertTrue(String.valueOf(sketch.frequency("hot")), sketch.frequency("hot") <= 8);
+  }
+}
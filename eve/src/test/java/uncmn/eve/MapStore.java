@@ -0,0 +1,168 @@
+package uncmn.eve;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * A {@link Store} over a sorted map that overrides only the abstract methods, like a third
+ * party store would.
+ */
+class MapStore extends Store {
+
+  final ConcurrentSkipListMap<String, Value> values = new ConcurrentSkipListMap<>();
+
+  MapStore() {
+    this(new TestConverter());
+  }
+
+  MapStore(Converter converter) {
+    super(converter);
+  }
+
+  @Override public void set(String key, Value value) {
+    values.put(key, value);
+  }
+
+  @Override public Class type(String key) {
+    Value value = values.get(key);
+    return converterType(value == null ? null : value.type());
+  }
+
+  @Override @SuppressWarnings("unchecked") public <T> T get(String key) {
+    Value value = values.get(key);
+    return value == null ? null : (T) convert(value.bytes(), value.type());
+  }
+
+  @Override public int clear() {
+    int size = values.size();
+    values.clear();
+    return size;
+  }
+
+  @Override public boolean delete(String key) {
+    return values.remove(key) != null;
+  }
+
+  @Override public boolean exists(String key) {
+    return values.containsKey(key);
+  }
+
+  private List<Map.Entry<String, Value>> select(String type, String prefix, String contains) {
+    List<Map.Entry<String, Value>> selected = new ArrayList<>();
+    for (Map.Entry<String, Value> entry : values.entrySet()) {
+      String key = entry.getKey();
+      if ((type == null || type.equals(entry.getValue().type()))
+          && (prefix == null || key.startsWith(prefix))
+          && (contains == null || key.contains(contains))) {
+        selected.add(entry);
+      }
+    }
+    return selected;
+  }
+
+  private <T> List<Entry<T>> entries(String type, String prefix, String contains) {
+    List<Entry<T>> entries = new ArrayList<>();
+    for (Map.Entry<String, Value> entry : select(type, prefix, contains)) {
+      entries.add(this.<T>entry(entry.getKey(), entry.getValue().bytes(),
+          entry.getValue().type()));
+    }
+    return entries;
+  }
+
+  private List<String> keys(String type, String prefix, String contains) {
+    List<String> keys = new ArrayList<>();
+    for (Map.Entry<String, Value> entry : select(type, prefix, contains)) {
+      keys.add(entry.getKey());
+    }
+    return keys;
+  }
+
+  private <T> List<T> values(String type, String prefix, String contains) {
+    List<T> values = new ArrayList<>();
+    for (Map.Entry<String, Value> entry : select(type, prefix, contains)) {
+      values.add(this.<T>convert(entry.getValue().bytes(), entry.getValue().type()));
+    }
+    return values;
+  }
+
+  @Override protected <T> List<Entry<T>> entries(String converterKey) {
+    return entries(converterKey, null, null);
+  }
+
+  @Override protected <T> List<Entry<T>> entriesKeyPrefix(String converterKey, String keyPrefix) {
+    return entries(converterKey, keyPrefix, null);
+  }
+
+  @Override
+  protected <T> List<Entry<T>> entriesKeyContains(String converterKey, String keyContains) {
+    return entries(converterKey, null, keyContains);
+  }
+
+  @Override protected List<String> keysType(String converterKey) {
+    return keys(converterKey, null, null);
+  }
+
+  @Override protected List<String> keysPrefixAny(String keyPrefix) {
+    return keys(null, keyPrefix, null);
+  }
+
+  @Override protected List<String> keysContainsAny(String keyContains) {
+    return keys(null, null, keyContains);
+  }
+
+  @Override protected List<String> keysPrefix(String converterKey, String keyPrefix) {
+    return keys(converterKey, keyPrefix, null);
+  }
+
+  @Override protected List<String> keysContains(String converterKey, String keyContains) {
+    return keys(converterKey, null, keyContains);
+  }
+
+  @Override protected <T> List<T> valuesType(String converterKey) {
+    return values(converterKey, null, null);
+  }
+
+  @Override protected List<Object> valuesPrefixAny(String keyPrefix) {
+    return values(null, keyPrefix, null);
+  }
+
+  @Override protected List<Object> valuesContainsAny(String keyContains) {
+    return values(null, null, keyContains);
+  }
+
+  @Override protected <T> List<T> valuesPrefix(String converterKey, String keyPrefix) {
+    return values(converterKey, keyPrefix, null);
+  }
+
+  @Override protected <T> List<T> valuesContains(String converterKey, String keyContains) {
+    return values(converterKey, null, keyContains);
+  }
+
+  /**
+   * Converter without custom types, eve handles primitives and strings.
+   */
+  static final class TestConverter implements Converter {
+
+    @Override public <T> T deserialize(byte[] data, String converterKey) {
+      throw new UnsupportedOperationException(converterKey);
+    }
+
+    @Override public byte[] serialize(Object object) {
+      throw new UnsupportedOperationException(String.valueOf(object));
+    }
+
+    @Override public String mapping(Object object) {
+      return null;
+    }
+
+    @Override public String mapping(Class<?> clazz) {
+      return null;
+    }
+
+    @Override public Class mapType(String converterKey) {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,92 @@
+package uncmn.eve;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class QueryTest {
+
+  private static List<String> keys(List<? extends Entry<?>> entries) {
+    List<String> keys = new ArrayList<>();
+    for (Entry<?> entry : entries) {
+      keys.add(entry.key());
+    }
+    return keys;
+  }
+
+  private static Store store() {
+    Store store = new MapStore();
+    store.set("a1", 1);
+    store.set("a2", "two");
+    store.set("a3", 3L);
+    store.set("b1", 4);
+    return store;
+  }
+
+  @Test public void anyTypeEntriesMatchPagedEntries() {
+    Store store = store();
+
+    List<Entry<Object>> all = store.query().keyPrefix("a").anyType().entries();
+    List<Entry<Object>> paged = store.query().keyPrefix("a").anyType().limit(10).entries();
+
+    assertEquals(asList("a1", "a2", "a3"), keys(all));
+    assertEquals(keys(all), keys(paged));
+    assertEquals("two", all.get(1).value());
+  }
+
+  @Test public void anyTypeContainsEntries() {
+    Store store = store();
+
+    List<Entry<Object>> all = store.query().keyContains("1").anyType().entries();
+    List<Entry<Object>> paged = store.query().keyContains("1").anyType().offset(1).entries();
+
+    assertEquals(asList("a1", "b1"), keys(all));
+    assertEquals(asList("b1"), keys(paged));
+  }
+
+  @Test public void countWithoutReadingValues() {
+    MapStore store = new MapStore() {
+      @Override public <T> T get(String key) {
+        throw new AssertionError("count read " + key);
+      }
+
+      @Override protected <T> T convert(byte[] value, String converterKey) {
+        throw new AssertionError("count decoded " + converterKey);
+      }
+    };
+    store.set("a1", 1);
+    store.set("a2", "two");
+    store.set("b1", 3);
+
+    assertEquals(2, store.query().keyPrefix("a").anyType().count());
+    assertEquals(2, store.query().type(Integer.class).count());
+    assertEquals(1, store.query().keyPrefix("a").type(Integer.class).count());
+    assertEquals(1, store.query().keyContains("1").anyType().after("a1").count());
+  }
+
+  private static void assertSelectsNothing(Query.QueryRunner<?> runner) {
+    assertEquals(0, runner.count());
+    assertTrue(runner.keys().isEmpty());
+    assertTrue(runner.values().isEmpty());
+    assertTrue(runner.entries().isEmpty());
+    assertFalse(runner.keysIterator().hasNext());
+    assertFalse(runner.valuesIterator().hasNext());
+    assertFalse(runner.entriesIterator().hasNext());
+  }
+
+  @Test public void unmappedTypeSelectsNothing() {
+    Store store = store();
+
+    assertSelectsNothing(store.query().type(Thread.class));
+    assertSelectsNothing(store.query().type(Thread.class).limit(10));
+    assertSelectsNothing(store.query().keyPrefix("a").type(Thread.class));
+    assertSelectsNothing(store.query().keyPrefix("a").type(Thread.class).after("a1"));
+    assertSelectsNothing(store.query().keyContains("1").type(Thread.class));
+    assertSelectsNothing(store.query().keyContains("1").type(Thread.class).offset(1));
+  }
+}
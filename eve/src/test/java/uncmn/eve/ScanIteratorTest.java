@@ -0,0 +1,95 @@
+package uncmn.eve;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import org.junit.Test;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class ScanIteratorTest {
+
+  private static final TreeMap<String, Integer> MAP = new TreeMap<>();
+
+  static {
+    MAP.put("a1", 1);
+    MAP.put("b1", 2);
+    MAP.put("b2", 3);
+    MAP.put("b3", 4);
+    MAP.put("c1", 5);
+  }
+
+  /**
+   * Keys of values other than skipped, counting releases.
+   */
+  static final class Scan extends MapScanIterator<Integer, String> {
+
+    final Integer skipped;
+    int releases;
+
+    Scan(String keyPrefix, String keyContains, String afterKey, int offset, int limit,
+        Integer skipped) {
+      super(MAP, keyPrefix, keyContains, afterKey, offset, limit);
+      this.skipped = skipped;
+    }
+
+    @Override protected String read(String key, Integer value) {
+      if (value.equals(skipped)) {
+        missing();
+      }
+      return key;
+    }
+
+    @Override protected void release() {
+      releases++;
+    }
+  }
+
+  private static List<String> keys(Scan scan) {
+    List<String> keys = new ArrayList<>();
+    while (scan.hasNext()) {
+      keys.add(scan.next());
+    }
+    scan.close();
+    assertEquals(1, scan.releases);
+    return keys;
+  }
+
+  @Test public void prefixStopsAfterLastKey() {
+    assertEquals(asList("b1", "b2", "b3"), keys(new Scan("b", null, null, 0, -1, null)));
+  }
+
+  @Test public void afterKeyBelowPrefixSeeksPrefix() {
+    assertEquals(asList("b1", "b2", "b3"), keys(new Scan("b", null, "a", 0, -1, null)));
+    assertEquals(asList("b1", "b2", "b3"), keys(new Scan("b", null, "a1", 0, -1, null)));
+  }
+
+  @Test public void afterKeyInsidePrefix() {
+    assertEquals(asList("b2", "b3"), keys(new Scan("b", null, "b1", 0, -1, null)));
+    assertEquals(asList("b3"), keys(new Scan("b", null, "b10", 1, -1, null)));
+  }
+
+  @Test public void afterKeyAbovePrefix() {
+    assertEquals(new ArrayList<String>(), keys(new Scan("b", null, "c", 0, -1, null)));
+  }
+
+  @Test public void containsOffsetAndLimit() {
+    assertEquals(asList("b1", "c1"), keys(new Scan(null, "1", null, 1, -1, null)));
+    assertEquals(asList("a1", "b1"), keys(new Scan(null, null, null, 0, 2, null)));
+  }
+
+  @Test public void missingValuesAreSkipped() {
+    assertEquals(asList("b1", "b3"), keys(new Scan("b", null, null, 0, -1, 3)));
+  }
+
+  @Test public void releasedWhenLimitReached() {
+    Scan scan = new Scan(null, null, null, 0, 1, null);
+    assertEquals("a1", scan.next());
+    assertEquals(1, scan.releases);
+    assertFalse(scan.hasNext());
+    scan.close();
+    assertEquals(1, scan.releases);
+  }
+}
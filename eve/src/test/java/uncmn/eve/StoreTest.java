@@ -0,0 +1,167 @@
+package uncmn.eve;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class StoreTest {
+
+  /**
+   * Store that decodes primitives from its stored bytes.
+   */
+  static final class BytesStore extends MapStore {
+
+    int reads;
+
+    @Override protected byte[] bytes(String key, String converterKey) {
+      reads++;
+      Value value = values.get(key);
+      return value != null && value.type().equals(converterKey) ? value.bytes() : null;
+    }
+  }
+
+  /**
+   * Converter mapping keys through a {@link ConcurrentHashMap}, which rejects null keys.
+   */
+  static final class ConcurrentMapConverter implements Converter {
+
+    final Map<String, Class<?>> mappings = new ConcurrentHashMap<>();
+
+    @Override public <T> T deserialize(byte[] data, String converterKey) {
+      throw new UnsupportedOperationException(converterKey);
+    }
+
+    @Override public byte[] serialize(Object object) {
+      return new byte[0];
+    }
+
+    @Override public String mapping(Object object) {
+      return mapping(object.getClass());
+    }
+
+    @Override public String mapping(Class<?> clazz) {
+      for (Map.Entry<String, Class<?>> mapping : mappings.entrySet()) {
+        if (mapping.getValue().equals(clazz)) {
+          return mapping.getKey();
+        }
+      }
+      return null;
+    }
+
+    @Override public Class mapType(String converterKey) {
+      return mappings.get(converterKey);
+    }
+  }
+
+  /**
+   * Converter that records the most calls it was in at once.
+   */
+  static final class CountingConverter implements Converter {
+
+    final AtomicInteger running = new AtomicInteger();
+    final AtomicInteger maxRunning = new AtomicInteger();
+
+    @Override public <T> T deserialize(byte[] data, String converterKey) {
+      throw new UnsupportedOperationException(converterKey);
+    }
+
+    @Override public byte[] serialize(Object object) {
+      int now = running.incrementAndGet();
+      int max = maxRunning.get();
+      while (now > max && !maxRunning.compareAndSet(max, now)) {
+        max = maxRunning.get();
+      }
+      Thread.yield();
+      running.decrementAndGet();
+      return new byte[0];
+    }
+
+    @Override public String mapping(Object object) {
+      return "object";
+    }
+
+    @Override public String mapping(Class<?> clazz) {
+      return "object";
+    }
+
+    @Override public Class mapType(String converterKey) {
+      return Object.class;
+    }
+  }
+
+  @Test public void convertersNotMarkedThreadSafeAreCalledOneAtATime()
+      throws InterruptedException {
+    CountingConverter converter = new CountingConverter();
+    final Store store = new MapStore(converter);
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < 4; t++) {
+      final int offset = t;
+      threads.add(new Thread(new Runnable() {
+        @Override public void run() {
+          for (int i = 0; i < 2000; i++) {
+            store.set("key" + offset + "-" + i, new Object());
+          }
+        }
+      }));
+    }
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertEquals(1, converter.maxRunning.get());
+  }
+
+  @Test public void typeOfMissingKeyIsNull() {
+    ConcurrentMapConverter converter = new ConcurrentMapConverter();
+    converter.mappings.put("object", Object.class);
+    Store store = new MapStore(converter);
+    store.set("object", new Object());
+
+    assertEquals(Object.class, store.type("object"));
+    assertNull(store.type("missing"));
+  }
+
+  @Test public void primitiveGettersFallBackToGet() {
+    Store store = new MapStore();
+    store.set("int", 7);
+    store.set("long", 8L);
+    store.set("float", 1.5f);
+    store.set("double", 2.5);
+    store.set("boolean", true);
+    store.set("string", "text");
+
+    assertEquals(7, store.getInt("int", -1));
+    assertEquals(8L, store.getLong("long", -1));
+    assertEquals(1.5f, store.getFloat("float", -1), 0);
+    assertEquals(2.5, store.getDouble("double", -1), 0);
+    assertTrue(store.getBoolean("boolean", false));
+
+    assertEquals(-1, store.getInt("missing", -1));
+    assertEquals(-1, store.getInt("string", -1));
+    assertEquals(-1L, store.getLong("int", -1));
+    assertFalse(store.getBoolean("string", false));
+  }
+
+  @Test public void primitiveGettersDecodeStoredBytes() {
+    BytesStore store = new BytesStore();
+    store.set("int", 7);
+    store.set("double", 2.5);
+
+    assertEquals(7, store.getInt("int", -1));
+    assertEquals(2.5, store.getDouble("double", -1), 0);
+    assertEquals(-1, store.getInt("double", -1));
+    assertEquals(-1, store.getInt("missing", -1));
+    assertEquals(4, store.reads);
+  }
+}